@@ -0,0 +1,235 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.service.headless;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * A jar or directory of classes and resources read by the headless runner.
+ * Entry names are always relative and separated with <tt>/</tt>, regardless of
+ * the kind of source.
+ */
+public abstract class ClassSource implements Closeable {
+    
+    /**
+     * Classes and resources in a jar file
+     */
+    static final class Jar extends ClassSource {
+        
+        private final JarFile jarFile;
+        
+        private final List<String> entries = new ArrayList<String>();
+
+        Jar(File file) throws IOException {
+            super(file);
+            this.jarFile = new JarFile(file);
+            for (Enumeration<JarEntry> iter = this.jarFile.entries(); iter.hasMoreElements();) {
+                JarEntry entry = iter.nextElement();
+                if (!entry.isDirectory()) {
+                    this.entries.add(entry.getName());
+                }
+            }
+        }
+        
+        @Override
+        public List<String> getEntries() {
+            return Collections.<String>unmodifiableList(this.entries);
+        }
+        
+        @Override
+        public byte[] getBytes(String entryName) throws IOException {
+            JarEntry entry = this.jarFile.getJarEntry(entryName);
+            if (entry == null || entry.isDirectory()) {
+                return null;
+            }
+            InputStream stream = this.jarFile.getInputStream(entry);
+            try {
+                return ByteStreams.toByteArray(stream);
+            } finally {
+                stream.close();
+            }
+        }
+        
+        @Override
+        public Manifest getManifest() throws IOException {
+            return this.jarFile.getManifest();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            this.jarFile.close();
+        }
+        
+    }
+    
+    /**
+     * Classes and resources in a directory tree
+     */
+    static final class Directory extends ClassSource {
+        
+        private final List<String> entries = new ArrayList<String>();
+        
+        Directory(File file) {
+            super(file);
+            Directory.scan(file, "", this.entries);
+        }
+        
+        private static void scan(File dir, String prefix, List<String> entries) {
+            File[] files = dir.listFiles();
+            if (files == null) {
+                return;
+            }
+            List<File> sorted = new ArrayList<File>();
+            Collections.addAll(sorted, files);
+            Collections.sort(sorted);
+            for (File file : sorted) {
+                if (file.isDirectory()) {
+                    Directory.scan(file, prefix + file.getName() + "/", entries);
+                } else {
+                    entries.add(prefix + file.getName());
+                }
+            }
+        }
+        
+        @Override
+        public List<String> getEntries() {
+            return Collections.<String>unmodifiableList(this.entries);
+        }
+        
+        @Override
+        public byte[] getBytes(String entryName) throws IOException {
+            File file = new File(this.getFile(), entryName.replace('/', File.separatorChar));
+            if (!file.isFile()) {
+                return null;
+            }
+            InputStream stream = new FileInputStream(file);
+            try {
+                return ByteStreams.toByteArray(stream);
+            } finally {
+                stream.close();
+            }
+        }
+        
+        @Override
+        public Manifest getManifest() throws IOException {
+            File file = new File(this.getFile(), JarFile.MANIFEST_NAME.replace('/', File.separatorChar));
+            if (!file.isFile()) {
+                return null;
+            }
+            InputStream stream = new FileInputStream(file);
+            try {
+                return new Manifest(stream);
+            } finally {
+                stream.close();
+            }
+        }
+        
+        @Override
+        public void close() {
+            // Nothing to close
+        }
+        
+    }
+    
+    private final File file;
+    
+    protected ClassSource(File file) {
+        this.file = file;
+    }
+    
+    /**
+     * Open a class source for the specified jar file or directory
+     * 
+     * @param file jar file or directory
+     * @return new class source
+     * @throws IOException if the file does not exist or cannot be read
+     */
+    public static ClassSource of(File file) throws IOException {
+        if (file.isDirectory()) {
+            return new Directory(file);
+        }
+        if (file.isFile()) {
+            return new Jar(file);
+        }
+        throw new IOException("Class source " + file + " does not exist");
+    }
+    
+    /**
+     * Get the jar file or directory
+     */
+    public File getFile() {
+        return this.file;
+    }
+    
+    /**
+     * Get the URL of the jar file or directory
+     */
+    public URL getURL() throws MalformedURLException {
+        return this.file.toURI().toURL();
+    }
+    
+    /**
+     * Get the names of all files in this source, in a stable order
+     */
+    public abstract List<String> getEntries();
+    
+    /**
+     * Read a file from this source
+     * 
+     * @param entryName relative name of the file
+     * @return file contents, or null if the file does not exist in this source
+     * @throws IOException if the file could not be read
+     */
+    public abstract byte[] getBytes(String entryName) throws IOException;
+    
+    /**
+     * Get the manifest of this source, if it has one
+     * 
+     * @return manifest or null
+     * @throws IOException if the manifest could not be read
+     */
+    public abstract Manifest getManifest() throws IOException;
+    
+    @Override
+    public String toString() {
+        return this.file.getPath();
+    }
+
+}
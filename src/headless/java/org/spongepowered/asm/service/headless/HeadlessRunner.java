@@ -0,0 +1,710 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.service.headless;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.spongepowered.asm.launch.MixinBootstrap;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+import org.spongepowered.asm.mixin.MixinEnvironment.Side;
+import org.spongepowered.asm.mixin.Mixins;
+import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
+import org.spongepowered.asm.mixin.transformer.AotManifest;
+import org.spongepowered.asm.mixin.transformer.IMixinTransformer;
+import org.spongepowered.asm.mixin.transformer.throwables.IllegalClassLoadError;
+import org.spongepowered.asm.service.ISyntheticClassRegistry;
+import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.util.Constants.ManifestAttributes;
+import org.spongepowered.asm.util.PrettyPrinter;
+import org.spongepowered.asm.util.perf.LatencyHistogram;
+import org.spongepowered.asm.util.perf.Profiler;
+
+/**
+ * Standalone runner which applies mixins to every class in a set of jars or
+ * directories without a game or launcher, as a reproducible offline load test
+ * for the transformer pipeline. Reports throughput, per-target latency and
+ * allocation, and optionally writes the transformed classes to a new jar.
+ * 
+ * <p>Usage:</p>
+ * 
+ * <pre>HeadlessRunner --input &lt;jar|dir&gt; [--lib &lt;jar|dir&gt;]
+ *     [--config &lt;name&gt;] [--threads &lt;n&gt;] [--side CLIENT|SERVER]
+ *     [--output &lt;jar&gt; [--aot]] [--top &lt;n&gt;]</pre>
+ * 
+ * <p>Classes in <tt>--input</tt> sources are transformed and written to the
+ * output, classes in <tt>--lib</tt> sources are only available for lookups.
+ * Both options and <tt>--config</tt> may be repeated. If no configs are
+ * specified, the <tt>MixinConfigs</tt> manifest attributes of all sources are
+ * used instead.</p>
+ * 
+ * <p>With <tt>--aot</tt> the output jar is also given an {@link AotManifest}
+ * at the location named by {@link Option#AOT_MANIFEST}, which must be set to a
+ * single resource name, so that the mixins which were applied at build time
+ * are skipped when the jar is loaded with the same configs at runtime. The
+ * option must also name the manifest at runtime, together with the manifests
+ * of any other transformed jars.</p>
+ */
+public final class HeadlessRunner {
+    
+    /**
+     * Outcome of transforming a single class
+     */
+    static final class Result {
+        
+        final String className;
+        
+        final String entryName;
+        
+        final byte[] classBytes;
+        
+        final boolean transformed;
+        
+        final int mixinCount;
+        
+        final long nanos;
+        
+        final long allocated;
+        
+        final Throwable error;
+        
+        Result(String className, String entryName, byte[] classBytes, boolean transformed, int mixinCount, long nanos, long allocated,
+                Throwable error) {
+            this.className = className;
+            this.entryName = entryName;
+            this.classBytes = classBytes;
+            this.transformed = transformed;
+            this.mixinCount = mixinCount;
+            this.nanos = nanos;
+            this.allocated = allocated;
+            this.error = error;
+        }
+        
+        boolean isTarget() {
+            return this.mixinCount > 0;
+        }
+        
+        boolean isMixin() {
+            return this.error instanceof IllegalClassLoadError;
+        }
+        
+        boolean isFailed() {
+            return this.error != null && !this.isMixin();
+        }
+        
+    }
+    
+    private static final String CLASS_SUFFIX = ".class";
+    
+    private static final String USAGE = "Usage: HeadlessRunner --input <jar|dir> [--lib <jar|dir>] [--config <name>] [--threads <n>]"
+            + " [--side CLIENT|SERVER] [--output <jar> [--aot]] [--top <n>]";
+    
+    private static final double NANOS_PER_MS = 1000000.0D;
+
+    private static final double BYTES_PER_KB = 1024.0D;
+
+    private static final double BYTES_PER_MB = 1024.0D * 1024.0D;
+    
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    
+    private final List<File> inputs = new ArrayList<File>();
+    
+    private final List<File> libraries = new ArrayList<File>();
+    
+    private final List<String> configs = new ArrayList<String>();
+    
+    private int threads = 1;
+    
+    private Side side;
+    
+    private File output;
+    
+    private boolean aot;
+    
+    private int top = 10;
+    
+    private HeadlessRunner(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--aot".equals(arg)) {
+                this.aot = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            if ("--input".equals(arg)) {
+                this.inputs.add(new File(value));
+            } else if ("--lib".equals(arg)) {
+                this.libraries.add(new File(value));
+            } else if ("--config".equals(arg)) {
+                this.configs.add(value);
+            } else if ("--threads".equals(arg)) {
+                this.threads = HeadlessRunner.parsePositive(arg, value);
+            } else if ("--side".equals(arg)) {
+                this.side = Side.valueOf(value.toUpperCase(Locale.ROOT));
+            } else if ("--output".equals(arg)) {
+                this.output = new File(value);
+            } else if ("--top".equals(arg)) {
+                this.top = HeadlessRunner.parsePositive(arg, value);
+            } else {
+                throw new IllegalArgumentException("Unrecognised option " + arg);
+            }
+        }
+        
+        if (this.inputs.isEmpty()) {
+            throw new IllegalArgumentException("No inputs were specified");
+        }
+        
+        if (this.aot && this.output == null) {
+            throw new IllegalArgumentException("--aot requires --output");
+        }
+    }
+    
+    private static int parsePositive(String arg, String value) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException ex) {
+            // fall through
+        }
+        throw new IllegalArgumentException("Invalid value for " + arg + ": " + value);
+    }
+
+    public static void main(String[] args) throws Exception {
+        HeadlessRunner runner;
+        try {
+            runner = new HeadlessRunner(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(HeadlessRunner.USAGE);
+            System.exit(2);
+            return;
+        }
+        
+        System.exit(runner.run() > 0 ? 1 : 0);
+    }
+    
+    /**
+     * Run the transformation
+     * 
+     * @return number of classes which failed to transform
+     */
+    private int run() throws IOException, InterruptedException {
+        List<ClassSource> inputs = HeadlessRunner.open(this.inputs);
+        List<ClassSource> libraries = HeadlessRunner.open(this.libraries);
+        try {
+            return this.run(inputs, libraries);
+        } finally {
+            HeadlessRunner.close(inputs);
+            HeadlessRunner.close(libraries);
+        }
+    }
+
+    private int run(List<ClassSource> inputs, List<ClassSource> libraries) throws IOException, InterruptedException {
+        List<ClassSource> sources = new ArrayList<ClassSource>(inputs);
+        sources.addAll(libraries);
+        
+        long readStart = System.nanoTime();
+        Map<String, byte[]> classes = HeadlessRunner.readClasses(inputs);
+        long readTime = System.nanoTime() - readStart;
+        
+        Set<String> configs = new LinkedHashSet<String>(this.configs);
+        if (configs.isEmpty()) {
+            HeadlessRunner.findConfigs(sources, configs);
+        }
+        if (configs.isEmpty()) {
+            throw new IllegalArgumentException("No mixin configs were specified and no " + ManifestAttributes.MIXINCONFIGS
+                    + " manifest attribute was found");
+        }
+        
+        System.setProperty("mixin.service", MixinServiceHeadless.class.getName());
+        MixinServiceHeadless.setClassPath(sources);
+        MixinBootstrap.init();
+        Mixins.addConfigurations(configs.toArray(new String[0]));
+        
+        MixinServiceHeadless service = (MixinServiceHeadless)MixinService.getService();
+        service.startDefaultPhase();
+        MixinEnvironment environment = MixinEnvironment.getCurrentEnvironment();
+        if (this.side != null) {
+            environment.setSide(this.side);
+        }
+        IMixinTransformer transformer = service.getTransformer();
+
+        // Configs are selected and prepared when the first class is
+        // transformed, so pass the runner itself through the transformer to
+        // keep that out of the per-class timings. It is never a mixin target.
+        long prepareStart = System.nanoTime();
+        String runnerName = HeadlessRunner.class.getName();
+        try {
+            transformer.transformClass(environment, runnerName, service.getClassBytes(runnerName));
+        } catch (ClassNotFoundException ex) {
+            throw new IOException(ex);
+        }
+        long prepareTime = System.nanoTime() - prepareStart;
+
+        long transformStart = System.nanoTime();
+        List<Result> results = this.transform(transformer, environment, classes);
+        long transformTime = System.nanoTime() - transformStart;
+        
+        int failures = this.report(configs, classes, results, readTime, prepareTime, transformTime);
+        
+        if (environment.getOption(Option.DEBUG_PROFILER)) {
+            Profiler.printAuditSummary();
+        }
+        
+        if (this.output != null) {
+            AotManifest manifest = null;
+            String manifestName = null;
+            if (this.aot) {
+                manifestName = environment.getOptionValue(Option.AOT_MANIFEST);
+                if (manifestName == null || manifestName.isEmpty() || manifestName.indexOf(',') >= 0) {
+                    throw new IllegalArgumentException("--aot requires a single resource name in the mixin.aotManifest property");
+                }
+                manifest = HeadlessRunner.createManifest(results);
+            }
+            int synthetic = HeadlessRunner.write(this.output, inputs, results, transformer, environment, manifestName, manifest);
+            System.out.printf("Wrote %d classes and %d synthetic classes to %s%n", results.size(), synthetic, this.output);
+            if (manifest != null) {
+                System.out.printf("Wrote AOT manifest %s with %d pre-applied classes%n", manifestName, manifest.size());
+            }
+        }
+        
+        return failures;
+    }
+
+    private List<Result> transform(final IMixinTransformer transformer, final MixinEnvironment environment, Map<String, byte[]> classes)
+            throws InterruptedException {
+        List<Callable<Result>> tasks = new ArrayList<Callable<Result>>(classes.size());
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            final String entryName = entry.getKey();
+            final String className = entryName.substring(0, entryName.length() - HeadlessRunner.CLASS_SUFFIX.length()).replace('/', '.');
+            final byte[] classBytes = entry.getValue();
+            tasks.add(new Callable<Result>() {
+                @Override
+                public Result call() {
+                    return HeadlessRunner.transformClass(transformer, environment, className, entryName, classBytes);
+                }
+            });
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Mixin Headless #" + this.count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        
+        try {
+            List<Result> results = new ArrayList<Result>(tasks.size());
+            for (Future<Result> future : executor.invokeAll(tasks)) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException(ex.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    static Result transformClass(IMixinTransformer transformer, MixinEnvironment environment, String className, String entryName,
+            byte[] classBytes) {
+        long allocated = HeadlessRunner.getAllocatedBytes();
+        long start = System.nanoTime();
+        try {
+            byte[] transformed = transformer.transformClass(environment, className, classBytes);
+            long nanos = System.nanoTime() - start;
+            if (allocated >= 0L) {
+                allocated = HeadlessRunner.getAllocatedBytes() - allocated;
+            }
+            boolean modified = transformed != classBytes;
+            int mixinCount = modified ? Mixins.getMixinsForClass(className).size() : 0;
+            return new Result(className, entryName, transformed, modified, mixinCount, nanos, allocated, null);
+        } catch (Throwable th) {
+            return new Result(className, entryName, classBytes, false, 0, System.nanoTime() - start, -1L, th);
+        }
+    }
+    
+    /**
+     * Get the number of bytes allocated by the current thread so far, or -1 if
+     * the JVM cannot report it
+     */
+    private static long getAllocatedBytes() {
+        if (HeadlessRunner.threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)HeadlessRunner.threadBean;
+            if (threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled()) {
+                return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1L;
+    }
+
+    private int report(Set<String> configs, Map<String, byte[]> classes, List<Result> results, long readTime, long prepareTime,
+            long transformTime) {
+        LatencyHistogram latency = new LatencyHistogram();
+        List<Result> targets = new ArrayList<Result>();
+        List<Result> failed = new ArrayList<Result>();
+        int transformed = 0, mixins = 0;
+        long allocated = 0L, targetAllocated = 0L;
+        boolean allocationSupported = true;
+        for (Result result : results) {
+            if (result.transformed) {
+                transformed++;
+            }
+            if (result.isMixin()) {
+                mixins++;
+            } else if (result.isFailed()) {
+                failed.add(result);
+            }
+            if (result.allocated < 0L) {
+                allocationSupported &= result.error != null;
+            } else {
+                allocated += result.allocated;
+            }
+            if (result.isTarget()) {
+                targets.add(result);
+                latency.record(result.nanos);
+                targetAllocated += Math.max(0L, result.allocated);
+            }
+        }
+        
+        long inputBytes = 0L;
+        for (byte[] classBytes : classes.values()) {
+            inputBytes += classBytes.length;
+        }
+        
+        DecimalFormat msFormat = new DecimalFormat("###0.000");
+        DecimalFormat rateFormat = new DecimalFormat("###0.0");
+        double transformSeconds = Math.max(transformTime, 1L) / (HeadlessRunner.NANOS_PER_MS * 1000.0D);
+        
+        PrettyPrinter printer = new PrettyPrinter();
+        printer.hr().add("Headless Mixin Run").hr().add();
+        printer.kv("Configs", "%d", configs.size());
+        printer.kv("Threads", "%d", this.threads);
+        printer.kv("Side", MixinEnvironment.getCurrentEnvironment().getSide()).add();
+        printer.kv("Classes read", "%d (%s MB) in %s ms", classes.size(), rateFormat.format(inputBytes / HeadlessRunner.BYTES_PER_MB),
+                msFormat.format(readTime / HeadlessRunner.NANOS_PER_MS));
+        printer.kv("Preparing configs", "%s ms", msFormat.format(prepareTime / HeadlessRunner.NANOS_PER_MS));
+        printer.kv("Transforming classes", "%s ms", msFormat.format(transformTime / HeadlessRunner.NANOS_PER_MS)).add();
+        printer.kv("Classes transformed", "%d", transformed);
+        printer.kv("Mixin targets", "%d", targets.size());
+        printer.kv("Mixin classes skipped", "%d", mixins);
+        printer.kv("Failures", "%d", failed.size()).add();
+        printer.kv("Throughput", "%s classes/s, %s targets/s", rateFormat.format(results.size() / transformSeconds),
+                rateFormat.format(targets.size() / transformSeconds));
+        if (latency.getCount() > 0) {
+            printer.kv("Target latency", "mean %s ms, P50 %s ms, P90 %s ms, P99 %s ms, max %s ms",
+                    msFormat.format(latency.getTotal() / HeadlessRunner.NANOS_PER_MS / latency.getCount()),
+                    msFormat.format(latency.getPercentile(50.0D) / HeadlessRunner.NANOS_PER_MS),
+                    msFormat.format(latency.getPercentile(90.0D) / HeadlessRunner.NANOS_PER_MS),
+                    msFormat.format(latency.getPercentile(99.0D) / HeadlessRunner.NANOS_PER_MS),
+                    msFormat.format(latency.getMax() / HeadlessRunner.NANOS_PER_MS));
+        }
+        if (allocationSupported) {
+            printer.kv("Allocated", "%s MB, %s KB per target", rateFormat.format(allocated / HeadlessRunner.BYTES_PER_MB),
+                    rateFormat.format(targets.isEmpty() ? 0.0D : targetAllocated / HeadlessRunner.BYTES_PER_KB / targets.size()));
+        } else {
+            printer.kv("Allocated", "not supported by this JVM");
+        }
+        printer.add();
+        
+        HeadlessRunner.printSlowest(printer, targets, this.top, msFormat, rateFormat);
+        
+        if (!failed.isEmpty()) {
+            printer.hr().add("Failures").hr().add();
+            for (Result result : failed.subList(0, Math.min(failed.size(), this.top))) {
+                printer.add("%s: %s", result.className, result.error);
+            }
+            if (failed.size() > this.top) {
+                printer.add("... and %d more", failed.size() - this.top);
+            }
+            printer.add();
+        }
+        
+        printer.print(System.out);
+        return failed.size();
+    }
+
+    private static void printSlowest(PrettyPrinter printer, List<Result> targets, int count, DecimalFormat msFormat, DecimalFormat kbFormat) {
+        if (targets.isEmpty()) {
+            return;
+        }
+        
+        List<Result> sorted = new ArrayList<Result>(targets);
+        Collections.sort(sorted, new Comparator<Result>() {
+            @Override
+            public int compare(Result a, Result b) {
+                return a.nanos < b.nanos ? 1 : a.nanos > b.nanos ? -1 : a.className.compareTo(b.className);
+            }
+        });
+        sorted = sorted.subList(0, Math.min(sorted.size(), count));
+        
+        printer.hr().add("Slowest Targets").hr().add();
+        int longest = 10;
+        for (Result result : sorted) {
+            longest = Math.max(longest, result.className.length());
+        }
+        for (Result result : sorted) {
+            String ms = msFormat.format(result.nanos / HeadlessRunner.NANOS_PER_MS);
+            String kb = result.allocated < 0L ? "-" : kbFormat.format(result.allocated / HeadlessRunner.BYTES_PER_KB);
+            printer.add("%-" + longest + "s %10s ms %4d mixins %10s KB", result.className, ms, result.mixinCount, kb);
+        }
+        printer.add();
+    }
+
+    /**
+     * Create an AOT manifest describing every class which had mixins applied.
+     * Synthetic classes are added when the output is written.
+     */
+    private static AotManifest createManifest(List<Result> results) {
+        AotManifest manifest = new AotManifest();
+        for (Result result : results) {
+            if (!result.isTarget()) {
+                continue;
+            }
+            List<String> mixins = new ArrayList<String>();
+            for (IMixinInfo mixin : Mixins.getMixinsForClass(result.className)) {
+                mixins.add(mixin.getClassName());
+            }
+            ClassNode classNode = new ClassNode();
+            new ClassReader(result.classBytes).accept(classNode, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            manifest.addClass(result.className, mixins, classNode);
+        }
+        return manifest;
+    }
+
+    /**
+     * Write every file from the input sources to the output jar, replacing
+     * classes with their transformed bytecode and adding any synthetic classes
+     * referenced by the transformed classes. If an AOT manifest is supplied,
+     * the synthetic classes are added to it and it is written to the jar last.
+     * 
+     * @return number of synthetic classes written
+     */
+    private static int write(File output, List<ClassSource> inputs, List<Result> results, IMixinTransformer transformer,
+            MixinEnvironment environment, String manifestName, AotManifest aotManifest) throws IOException {
+        Map<String, Result> transformed = new HashMap<String, Result>();
+        for (Result result : results) {
+            transformed.put(result.entryName, result);
+        }
+        
+        Manifest manifest = null;
+        for (ClassSource input : inputs) {
+            if ((manifest = input.getManifest()) != null) {
+                break;
+            }
+        }
+        if (manifest == null) {
+            manifest = new Manifest();
+            manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        }
+        
+        File parent = output.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create output directory " + parent);
+        }
+        
+        Set<String> written = new HashSet<String>();
+        Set<String> references = new LinkedHashSet<String>();
+        JarOutputStream jar = new JarOutputStream(new FileOutputStream(output), manifest);
+        try {
+            written.add(JarFile.MANIFEST_NAME);
+            if (manifestName != null) {
+                written.add(manifestName);
+            }
+            for (ClassSource input : inputs) {
+                for (String entryName : input.getEntries()) {
+                    if (HeadlessRunner.isSignature(entryName) || !written.add(entryName)) {
+                        continue;
+                    }
+                    Result result = transformed.get(entryName);
+                    if (result != null && result.transformed) {
+                        HeadlessRunner.findClassReferences(result.classBytes, references);
+                    }
+                    HeadlessRunner.writeEntry(jar, entryName, result != null ? result.classBytes : input.getBytes(entryName));
+                }
+            }
+            
+            int synthetic = 0;
+            ISyntheticClassRegistry registry = transformer.getExtensions().getSyntheticClassRegistry();
+            for (String reference : references) {
+                String entryName = reference + HeadlessRunner.CLASS_SUFFIX;
+                if (written.contains(entryName) || registry.findSyntheticClass(reference) == null) {
+                    continue;
+                }
+                byte[] classBytes = transformer.generateClass(environment, reference.replace('/', '.'));
+                if (classBytes != null) {
+                    written.add(entryName);
+                    HeadlessRunner.writeEntry(jar, entryName, classBytes);
+                    synthetic++;
+                    if (aotManifest != null) {
+                        aotManifest.addSyntheticClass(reference);
+                    }
+                }
+            }
+            
+            if (aotManifest != null) {
+                StringBuilder json = new StringBuilder();
+                aotManifest.write(json);
+                HeadlessRunner.writeEntry(jar, manifestName, json.toString().getBytes("UTF-8"));
+            }
+            return synthetic;
+        } finally {
+            jar.close();
+        }
+    }
+    
+    private static void writeEntry(JarOutputStream jar, String entryName, byte[] bytes) throws IOException {
+        jar.putNextEntry(new JarEntry(entryName));
+        jar.write(bytes);
+        jar.closeEntry();
+    }
+    
+    /**
+     * Jar signatures are invalidated by transforming classes, so they are not
+     * copied to the output
+     */
+    private static boolean isSignature(String entryName) {
+        if (!entryName.startsWith("META-INF/") || entryName.indexOf('/', 9) > -1) {
+            return false;
+        }
+        String name = entryName.toUpperCase(Locale.ROOT);
+        return name.endsWith(".SF") || name.endsWith(".RSA") || name.endsWith(".DSA") || name.endsWith(".EC");
+    }
+    
+    /**
+     * Collect the names of all classes in the constant pool of a class
+     */
+    private static void findClassReferences(byte[] classBytes, Set<String> references) {
+        ClassReader reader = new ClassReader(classBytes);
+        char[] buf = new char[reader.getMaxStringLength()];
+        for (int index = 1; index < reader.getItemCount(); index++) {
+            int offset = reader.getItem(index);
+            // Second slot of long and double constants has no item
+            if (offset > 0 && reader.readByte(offset - 1) == 7) {
+                String name = reader.readUTF8(offset, buf);
+                if (name != null && name.charAt(0) != '[') {
+                    references.add(name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read every class from the input sources, classes which appear in more
+     * than one source are taken from the first
+     */
+    private static Map<String, byte[]> readClasses(List<ClassSource> inputs) throws IOException {
+        Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+        for (ClassSource input : inputs) {
+            for (String entryName : input.getEntries()) {
+                if (entryName.endsWith(HeadlessRunner.CLASS_SUFFIX) && !entryName.startsWith("META-INF/")
+                        && !entryName.endsWith("module-info.class") && !classes.containsKey(entryName)) {
+                    classes.put(entryName, input.getBytes(entryName));
+                }
+            }
+        }
+        return classes;
+    }
+    
+    private static void findConfigs(List<ClassSource> sources, Set<String> configs) throws IOException {
+        for (ClassSource source : sources) {
+            Manifest manifest = source.getManifest();
+            String attribute = manifest != null ? manifest.getMainAttributes().getValue(ManifestAttributes.MIXINCONFIGS) : null;
+            if (attribute == null) {
+                continue;
+            }
+            for (String config : attribute.split(",")) {
+                if (config.trim().length() > 0) {
+                    configs.add(config.trim());
+                }
+            }
+        }
+    }
+    
+    private static List<ClassSource> open(List<File> files) throws IOException {
+        List<ClassSource> sources = new ArrayList<ClassSource>();
+        try {
+            for (File file : files) {
+                sources.add(ClassSource.of(file));
+            }
+        } catch (IOException ex) {
+            HeadlessRunner.close(sources);
+            throw ex;
+        }
+        return sources;
+    }
+    
+    private static void close(List<ClassSource> sources) {
+        for (ClassSource source : sources) {
+            try {
+                source.close();
+            } catch (IOException ex) {
+                // ignore
+            }
+        }
+    }
+
+}
@@ -0,0 +1,371 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.service.headless;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.spongepowered.asm.launch.platform.container.ContainerHandleVirtual;
+import org.spongepowered.asm.launch.platform.container.IContainerHandle;
+import org.spongepowered.asm.mixin.MixinEnvironment.Phase;
+import org.spongepowered.asm.mixin.transformer.IMixinTransformer;
+import org.spongepowered.asm.mixin.transformer.IMixinTransformerFactory;
+import org.spongepowered.asm.service.IClassBytecodeProvider;
+import org.spongepowered.asm.service.IClassProvider;
+import org.spongepowered.asm.service.IClassTracker;
+import org.spongepowered.asm.service.IMixinAuditTrail;
+import org.spongepowered.asm.service.IMixinInternal;
+import org.spongepowered.asm.service.ITransformerProvider;
+import org.spongepowered.asm.service.MixinServiceAbstract;
+import org.spongepowered.asm.transformers.MixinClassReader;
+import org.spongepowered.asm.util.IConsumer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Mixin service used by the {@link HeadlessRunner}. Classes and resources are
+ * read from the {@link ClassSource class sources} supplied by the runner and
+ * then from the runner's own classpath, so targets are transformed without
+ * ever being loaded by the JVM. The service is only valid once the runner has
+ * supplied its class sources. Subclasses can supply classes from somewhere
+ * else by overriding {@link #findBytes} and {@link #getClassLoader}, as the
+ * benchmark service does.
+ */
+public class MixinServiceHeadless extends MixinServiceAbstract implements IClassProvider, IClassBytecodeProvider {
+    
+    /**
+     * Class sources to read from, set by the runner before the mixin
+     * subsystem starts
+     */
+    private static volatile List<ClassSource> classPath;
+    
+    /**
+     * Class loader over the class sources, created on first request
+     */
+    private ClassLoader classLoader;
+    
+    /**
+     * Environment phase consumer, TEMP
+     */
+    private IConsumer<Phase> phaseConsumer;
+    
+    /**
+     * Transformer factory offered by the mixin subsystem
+     */
+    private IMixinTransformerFactory transformerFactory;
+    
+    /**
+     * Transformer, created on first request
+     */
+    private IMixinTransformer transformer;
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getName()
+     */
+    @Override
+    public String getName() {
+        return "Headless";
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#isValid()
+     */
+    @Override
+    public boolean isValid() {
+        return MixinServiceHeadless.classPath != null;
+    }
+    
+    /**
+     * Set the class sources to read classes and resources from
+     * 
+     * @param sources class sources, searched in order
+     */
+    public static void setClassPath(List<ClassSource> sources) {
+        MixinServiceHeadless.classPath = new ArrayList<ClassSource>(sources);
+    }
+    
+    @Override
+    public void offer(IMixinInternal internal) {
+        if (internal instanceof IMixinTransformerFactory) {
+            this.transformerFactory = (IMixinTransformerFactory)internal;
+        }
+        super.offer(internal);
+    }
+
+    // TEMP
+    @SuppressWarnings("deprecation")
+    @Override
+    public void wire(Phase phase, IConsumer<Phase> phaseConsumer) {
+        super.wire(phase, phaseConsumer);
+        this.phaseConsumer = phaseConsumer;
+    }
+    
+    /**
+     * Move the environment to the {@link Phase#DEFAULT DEFAULT} phase, there
+     * is no game to do this for us
+     */
+    public void startDefaultPhase() {
+        if (this.phaseConsumer == null) {
+            throw new IllegalStateException("Mixin subsystem has not been initialised");
+        }
+        this.phaseConsumer.accept(Phase.DEFAULT);
+    }
+    
+    /**
+     * Get the mixin transformer, creating it if necessary
+     */
+    public synchronized IMixinTransformer getTransformer() {
+        if (this.transformer == null) {
+            if (this.transformerFactory == null) {
+                throw new IllegalStateException("Mixin subsystem has not been initialised");
+            }
+            this.transformer = this.transformerFactory.createTransformer();
+        }
+        return this.transformer;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getClassProvider()
+     */
+    @Override
+    public IClassProvider getClassProvider() {
+        return this;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getBytecodeProvider()
+     */
+    @Override
+    public IClassBytecodeProvider getBytecodeProvider() {
+        return this;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getTransformerProvider()
+     */
+    @Override
+    public ITransformerProvider getTransformerProvider() {
+        return null;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getClassTracker()
+     */
+    @Override
+    public IClassTracker getClassTracker() {
+        return null;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getAuditTrail()
+     */
+    @Override
+    public IMixinAuditTrail getAuditTrail() {
+        return null;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getPlatformAgents()
+     */
+    @Override
+    public Collection<String> getPlatformAgents() {
+        return ImmutableList.<String>of();
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getPrimaryContainer()
+     */
+    @Override
+    public IContainerHandle getPrimaryContainer() {
+        return new ContainerHandleVirtual(this.getName());
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getResourceAsStream(
+     *      java.lang.String)
+     */
+    @Override
+    public InputStream getResourceAsStream(String name) {
+        try {
+            byte[] resource = this.findBytes(name);
+            if (resource != null) {
+                return new ByteArrayInputStream(resource);
+            }
+        } catch (IOException ex) {
+            this.getLogger("mixin").catching(ex);
+        }
+        return this.getClass().getClassLoader().getResourceAsStream(name);
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassProvider#getClassPath()
+     */
+    @Override
+    @Deprecated
+    public URL[] getClassPath() {
+        return new URL[0];
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassProvider#findClass(
+     *      java.lang.String)
+     */
+    @Override
+    public Class<?> findClass(String name) throws ClassNotFoundException {
+        return this.findClass(name, true);
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassProvider#findClass(
+     *      java.lang.String, boolean)
+     */
+    @Override
+    public Class<?> findClass(String name, boolean initialize) throws ClassNotFoundException {
+        return Class.forName(name, initialize, this.getClassLoader());
+    }
+    
+    /**
+     * Get the class loader used to load classes requested by name, which
+     * delegates to the runner's class loader after the class sources
+     * 
+     * @return class loader
+     */
+    protected synchronized ClassLoader getClassLoader() {
+        if (this.classLoader == null) {
+            List<URL> urls = new ArrayList<URL>();
+            for (ClassSource source : this.getSources()) {
+                try {
+                    urls.add(source.getURL());
+                } catch (IOException ex) {
+                    this.getLogger("mixin").catching(ex);
+                }
+            }
+            this.classLoader = new URLClassLoader(urls.toArray(new URL[0]), this.getClass().getClassLoader());
+        }
+        return this.classLoader;
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassProvider#findAgentClass(
+     *      java.lang.String, boolean)
+     */
+    @Override
+    public Class<?> findAgentClass(String name, boolean initialize) throws ClassNotFoundException {
+        return this.findClass(name, initialize);
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassBytecodeProvider#getClassNode(
+     *      java.lang.String)
+     */
+    @Override
+    public ClassNode getClassNode(String name) throws ClassNotFoundException, IOException {
+        return this.getClassNode(name, true, ClassReader.EXPAND_FRAMES);
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassBytecodeProvider#getClassNode(
+     *      java.lang.String, boolean)
+     */
+    @Override
+    public ClassNode getClassNode(String name, boolean runTransformers) throws ClassNotFoundException, IOException {
+        return this.getClassNode(name, runTransformers, ClassReader.EXPAND_FRAMES);
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IClassBytecodeProvider#getClassNode(
+     *      java.lang.String, boolean, int)
+     */
+    @Override
+    public ClassNode getClassNode(String name, boolean runTransformers, int readerFlags) throws ClassNotFoundException, IOException {
+        String className = name.replace('/', '.');
+        ClassNode classNode = new ClassNode();
+        ClassReader classReader = new MixinClassReader(this.getClassBytes(className), className);
+        classReader.accept(classNode, readerFlags);
+        return classNode;
+    }
+    
+    /**
+     * Get the bytecode for the specified class, from the class sources if
+     * present or from the runner's classpath otherwise
+     * 
+     * @param className binary name of the class
+     * @return class bytes
+     * @throws ClassNotFoundException if the class could not be found
+     * @throws IOException if the class could not be read
+     */
+    public byte[] getClassBytes(String className) throws ClassNotFoundException, IOException {
+        String internalName = className.replace('.', '/');
+        byte[] classBytes = this.findBytes(internalName + ".class");
+        if (classBytes != null) {
+            return classBytes;
+        }
+        
+        InputStream stream = this.getClass().getClassLoader().getResourceAsStream(internalName + ".class");
+        if (stream == null) {
+            throw new ClassNotFoundException(className);
+        }
+        try {
+            return ByteStreams.toByteArray(stream);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Read a class or resource from the class sources
+     * 
+     * @param entryName relative name of the class file or resource
+     * @return contents, or null if no class source contains the entry
+     * @throws IOException if the entry could not be read
+     */
+    protected byte[] findBytes(String entryName) throws IOException {
+        for (ClassSource source : this.getSources()) {
+            byte[] bytes = source.getBytes(entryName);
+            if (bytes != null) {
+                return bytes;
+            }
+        }
+        return null;
+    }
+    
+    private List<ClassSource> getSources() {
+        List<ClassSource> sources = MixinServiceHeadless.classPath;
+        if (sources == null) {
+            throw new IllegalStateException("Headless class path has not been set");
+        }
+        return sources;
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util.perf.jfr;
+
+import org.spongepowered.asm.util.perf.Events;
+import org.spongepowered.asm.util.perf.IEventSink;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Event sink which emits JDK Flight Recorder events. Events are only created
+ * while a recording which enables them is running, otherwise {@link
+ * Events#NONE} is returned.
+ */
+public final class JfrEventSink implements IEventSink {
+    
+    public JfrEventSink() {
+        if (!FlightRecorder.isAvailable()) {
+            throw new IllegalStateException("Flight recorder is not available");
+        }
+    }
+
+    @Override
+    public ITimedEvent beginClassTransform(String className) {
+        ClassTransformEvent event = new ClassTransformEvent();
+        if (!event.isEnabled()) {
+            return Events.NONE;
+        }
+        event.target = className;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public ITimedEvent beginMixinPrepare(String mixinClass, String config) {
+        MixinPrepareEvent event = new MixinPrepareEvent();
+        if (!event.isEnabled()) {
+            return Events.NONE;
+        }
+        event.mixin = mixinClass;
+        event.config = config;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public ITimedEvent beginInjectorFind(String mixin, String handler, Object injectionPoints, Object target) {
+        return JfrEventSink.beginInjector(new InjectorFindEvent(), mixin, handler, injectionPoints, target);
+    }
+
+    @Override
+    public ITimedEvent beginInjectorInject(String mixin, String handler, Object injectionPoints, Object target) {
+        return JfrEventSink.beginInjector(new InjectorInjectEvent(), mixin, handler, injectionPoints, target);
+    }
+
+    @Override
+    public ITimedEvent beginClassInfoLoad(String className) {
+        ClassInfoLoadEvent event = new ClassInfoLoadEvent();
+        if (!event.isEnabled()) {
+            return Events.NONE;
+        }
+        event.className = className;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public ITimedEvent beginFrameComputation(String className) {
+        FrameComputationEvent event = new FrameComputationEvent();
+        if (!event.isEnabled()) {
+            return Events.NONE;
+        }
+        event.className = className;
+        event.begin();
+        return event;
+    }
+    
+    private static ITimedEvent beginInjector(InjectorEvent event, String mixin, String handler, Object injectionPoints, Object target) {
+        if (!event.isEnabled()) {
+            return Events.NONE;
+        }
+        event.mixin = mixin;
+        event.handler = handler;
+        event.injectionPoint = String.valueOf(injectionPoints);
+        event.target = String.valueOf(target);
+        event.begin();
+        return event;
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.benchmark;
+
+import java.io.IOException;
+
+import org.objectweb.asm.tree.ClassNode;
+import org.spongepowered.asm.benchmark.corpus.Corpus;
+import org.spongepowered.asm.launch.MixinBootstrap;
+import org.spongepowered.asm.mixin.Mixins;
+import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
+import org.spongepowered.asm.mixin.transformer.IMixinTransformer;
+import org.spongepowered.asm.service.IMixinService;
+import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.service.benchmark.MixinServiceBenchmark;
+
+/**
+ * Bootstraps the mixin subsystem against the benchmark service and corpus.
+ * The environment is shared by all benchmarks in a fork and is created on
+ * first use, after which the benchmark mixins have been applied to every
+ * corpus target once so that configs are selected and prepared.
+ */
+public final class BenchmarkEnvironment {
+    
+    /**
+     * Config which declares the benchmark mixins
+     */
+    public static final String CONFIG = "mixins.benchmark.json";
+    
+    /**
+     * Package containing the benchmark mixins, the mixin classes must not be
+     * referenced directly since they must never be loaded
+     */
+    public static final String MIXIN_PACKAGE = "org.spongepowered.asm.benchmark.mixin.";
+    
+    private static BenchmarkEnvironment instance;
+    
+    private final Corpus corpus;
+    
+    private final MixinServiceBenchmark service;
+    
+    private final IMixinTransformer transformer;
+    
+    private BenchmarkEnvironment() {
+        this.corpus = Corpus.get();
+        
+        MixinBootstrap.init();
+        Mixins.addConfiguration(BenchmarkEnvironment.CONFIG);
+        
+        IMixinService service = MixinService.getService();
+        if (!(service instanceof MixinServiceBenchmark)) {
+            throw new IllegalStateException("Expected the benchmark mixin service but found " + service.getName());
+        }
+        this.service = (MixinServiceBenchmark)service;
+        this.service.startDefaultPhase();
+        this.transformer = this.service.getTransformer();
+        
+        for (String target : this.corpus.getTargetNames()) {
+            this.transform(target);
+        }
+    }
+    
+    /**
+     * Get the shared environment, bootstrapping it on first use
+     */
+    public static synchronized BenchmarkEnvironment get() {
+        if (BenchmarkEnvironment.instance == null) {
+            BenchmarkEnvironment.instance = new BenchmarkEnvironment();
+        }
+        return BenchmarkEnvironment.instance;
+    }
+    
+    public Corpus getCorpus() {
+        return this.corpus;
+    }
+    
+    public MixinServiceBenchmark getService() {
+        return this.service;
+    }
+    
+    /**
+     * Run the mixin transformer over the original bytecode of a corpus class
+     * 
+     * @param internalName internal name of the corpus class
+     * @return transformed bytecode
+     */
+    public byte[] transform(String internalName) {
+        String className = internalName.replace('/', '.');
+        return this.transformer.transformClassBytes(className, className, this.corpus.getClassBytes(internalName));
+    }
+    
+    /**
+     * Read the original (untransformed) tree of a corpus class
+     * 
+     * @param internalName internal name of the corpus class
+     * @param readerFlags ClassReader flags
+     * @return class tree
+     */
+    public ClassNode getClassNode(String internalName, int readerFlags) {
+        try {
+            return this.service.getClassNode(internalName, false, readerFlags);
+        } catch (ClassNotFoundException ex) {
+            throw new IllegalArgumentException(ex);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException(ex);
+        }
+    }
+    
+    /**
+     * Get a benchmark mixin which was applied to the specified target
+     * 
+     * @param target internal name of the target class
+     * @param mixinName simple name of the mixin class
+     * @return mixin info
+     */
+    public IMixinInfo getMixin(String target, String mixinName) {
+        String mixinClassName = BenchmarkEnvironment.MIXIN_PACKAGE + mixinName;
+        for (IMixinInfo mixin : Mixins.getMixinsForClass(target)) {
+            if (mixin.getClassName().equals(mixinClassName)) {
+                return mixin;
+            }
+        }
+        throw new IllegalStateException(mixinClassName + " was not applied to " + target);
+    }
+
+}
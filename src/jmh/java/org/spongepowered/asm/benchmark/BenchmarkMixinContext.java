@@ -0,0 +1,99 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.benchmark;
+
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
+import org.spongepowered.asm.mixin.refmap.IMixinContext;
+import org.spongepowered.asm.mixin.refmap.IReferenceMapper;
+import org.spongepowered.asm.mixin.refmap.ReferenceMapper;
+import org.spongepowered.asm.mixin.transformer.ext.Extensions;
+
+/**
+ * Minimal mixin context for benchmarks which parse injection points directly
+ * rather than through an injector
+ */
+public class BenchmarkMixinContext implements IMixinContext {
+    
+    private final IMixinInfo mixin;
+    
+    private final String targetClassRef;
+
+    public BenchmarkMixinContext(IMixinInfo mixin, String targetClassRef) {
+        this.mixin = mixin;
+        this.targetClassRef = targetClassRef;
+    }
+
+    @Override
+    public IMixinInfo getMixin() {
+        return this.mixin;
+    }
+
+    @Override
+    public Extensions getExtensions() {
+        return null;
+    }
+
+    @Override
+    public String getClassName() {
+        return this.mixin.getClassName();
+    }
+
+    @Override
+    public String getClassRef() {
+        return this.mixin.getClassRef();
+    }
+
+    @Override
+    public String getTargetClassName() {
+        return this.targetClassRef.replace('/', '.');
+    }
+
+    @Override
+    public String getTargetClassRef() {
+        return this.targetClassRef;
+    }
+
+    @Override
+    public IReferenceMapper getReferenceMapper() {
+        return ReferenceMapper.DEFAULT_MAPPER;
+    }
+
+    @Override
+    public boolean getOption(Option option) {
+        return this.mixin.getConfig().getEnvironment().getOption(option);
+    }
+
+    @Override
+    public int getPriority() {
+        return this.mixin.getPriority();
+    }
+    
+    @Override
+    public String toString() {
+        return this.mixin.getClassName() + "->" + this.getTargetClassName();
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.asm.benchmark.corpus.Corpus;
+import org.spongepowered.asm.mixin.transformer.ClassInfo;
+import org.spongepowered.asm.mixin.transformer.ClassInfo.SearchType;
+import org.spongepowered.asm.mixin.transformer.ClassInfo.Traversal;
+
+/**
+ * Cached {@link ClassInfo} lookups and hierarchy queries over the corpus
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClassInfoBenchmark {
+    
+    /**
+     * Number of precomputed lookups, must be a power of two
+     */
+    private static final int LOOKUPS = 1024;
+    
+    private final String[] names = new String[ClassInfoBenchmark.LOOKUPS];
+    
+    private final ClassInfo[] classes = new ClassInfo[ClassInfoBenchmark.LOOKUPS];
+    
+    private final String[] supers = new String[ClassInfoBenchmark.LOOKUPS];
+    
+    private int index;
+    
+    @Setup
+    public void setup() {
+        Corpus corpus = BenchmarkEnvironment.get().getCorpus();
+        List<String> all = corpus.getClassNames();
+        List<String> nodes = corpus.getNodeNames();
+        List<String> interfaces = corpus.getInterfaceNames();
+        Random random = new Random(Corpus.SEED);
+        for (int i = 0; i < ClassInfoBenchmark.LOOKUPS; i++) {
+            this.names[i] = all.get(random.nextInt(all.size()));
+            this.classes[i] = ClassInfo.forName(this.names[i]);
+            this.supers[i] = random.nextBoolean() ? nodes.get(random.nextInt(nodes.size())) : interfaces.get(random.nextInt(interfaces.size()));
+        }
+    }
+    
+    private int next() {
+        return this.index = (this.index + 1) & (ClassInfoBenchmark.LOOKUPS - 1);
+    }
+    
+    @Benchmark
+    public ClassInfo forName() {
+        return ClassInfo.forName(this.names[this.next()]);
+    }
+    
+    @Benchmark
+    public boolean hasSuperClass() {
+        int next = this.next();
+        return this.classes[next].hasSuperClass(this.supers[next], Traversal.ALL, true);
+    }
+    
+    @Benchmark
+    public ClassInfo.Method findMethodInHierarchy() {
+        return this.classes[this.next()].findMethodInHierarchy("value", "(I)I", SearchType.ALL_CLASSES, Traversal.ALL);
+    }
+    
+    @Benchmark
+    public ClassInfo.Method findMissingMethodInHierarchy() {
+        return this.classes[this.next()].findMethodInHierarchy("absent", "()V", SearchType.ALL_CLASSES, Traversal.ALL);
+    }
+
+}
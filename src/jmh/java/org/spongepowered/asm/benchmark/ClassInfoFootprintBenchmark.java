@@ -0,0 +1,126 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.asm.mixin.transformer.ClassInfo;
+
+/**
+ * Heap retained by the {@link ClassInfo} cache after loading the whole corpus
+ * and requesting the frames of every method. The cache is static so each
+ * measurement runs once in a fresh fork, the retained heap is reported in the
+ * auxiliary counters.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(3)
+@State(Scope.Thread)
+public class ClassInfoFootprintBenchmark {
+    
+    /**
+     * Heap usage reported after a benchmark invocation
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        
+        /**
+         * Heap retained by the classes loaded into the cache
+         */
+        public long retainedBytes;
+        
+        /**
+         * Number of classes loaded into the cache
+         */
+        public long classes;
+        
+        /**
+         * Average heap retained per cached class
+         */
+        public long bytesPerClass;
+        
+    }
+    
+    private List<String> names;
+    
+    @Setup
+    public void setup() {
+        this.names = BenchmarkEnvironment.get().getCorpus().getClassNames();
+    }
+    
+    @Benchmark
+    public int loadCorpus(Footprint footprint) {
+        int cachedBefore = ClassInfo.getCacheStats().getSize();
+        long heapBefore = ClassInfoFootprintBenchmark.usedHeap();
+        
+        int frames = 0;
+        for (String name : this.names) {
+            ClassInfo classInfo = ClassInfo.forName(name);
+            if (classInfo == null) {
+                continue;
+            }
+            for (ClassInfo.Method method : classInfo.getMethods()) {
+                List<ClassInfo.FrameData> methodFrames = method.getFrames();
+                frames += methodFrames != null ? methodFrames.size() : 0;
+            }
+        }
+        
+        footprint.retainedBytes = ClassInfoFootprintBenchmark.usedHeap() - heapBefore;
+        footprint.classes = ClassInfo.getCacheStats().getSize() - cachedBefore;
+        footprint.bytesPerClass = footprint.classes > 0 ? footprint.retainedBytes / footprint.classes : 0;
+        return frames;
+    }
+    
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // Collect until usage settles so that garbage from loading is excluded
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            long current = runtime.totalMemory() - runtime.freeMemory();
+            if (current >= used) {
+                break;
+            }
+            used = current;
+        }
+        return used;
+    }
+
+}
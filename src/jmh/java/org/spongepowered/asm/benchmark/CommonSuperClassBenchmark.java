@@ -0,0 +1,104 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.asm.benchmark.corpus.Corpus;
+import org.spongepowered.asm.transformers.MixinClassWriter;
+
+/**
+ * {@link MixinClassWriter#getCommonSuperClass} over pairs of corpus classes,
+ * this is called for every reference type merge during frame computation
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommonSuperClassBenchmark {
+    
+    /**
+     * Exposes the protected method under test
+     */
+    static final class Probe extends MixinClassWriter {
+        
+        Probe() {
+            super(0);
+        }
+        
+        String common(String type1, String type2) {
+            return this.getCommonSuperClass(type1, type2);
+        }
+        
+    }
+    
+    /**
+     * Number of precomputed pairs, must be a power of two
+     */
+    private static final int PAIRS = 1024;
+    
+    private final String[] first = new String[CommonSuperClassBenchmark.PAIRS];
+    
+    private final String[] second = new String[CommonSuperClassBenchmark.PAIRS];
+    
+    private Probe probe;
+    
+    private int index;
+    
+    @Setup
+    public void setup() {
+        Corpus corpus = BenchmarkEnvironment.get().getCorpus();
+        List<String> classes = new ArrayList<String>(corpus.getNodeNames());
+        classes.addAll(corpus.getTargetNames());
+        Random random = new Random(Corpus.SEED);
+        for (int i = 0; i < CommonSuperClassBenchmark.PAIRS; i++) {
+            this.first[i] = classes.get(random.nextInt(classes.size()));
+            this.second[i] = classes.get(random.nextInt(classes.size()));
+        }
+        this.probe = new Probe();
+    }
+    
+    @Benchmark
+    public String getCommonSuperClass() {
+        int next = this.index = (this.index + 1) & (CommonSuperClassBenchmark.PAIRS - 1);
+        return this.probe.common(this.first[next], this.second[next]);
+    }
+
+}
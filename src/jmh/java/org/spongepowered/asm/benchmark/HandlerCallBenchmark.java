@@ -0,0 +1,159 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.CompilerControl;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+import org.spongepowered.asm.mixin.injection.invoke.arg.ArgumentCountException;
+import org.spongepowered.asm.mixin.injection.invoke.arg.ArgumentIndexOutOfBoundsException;
+import org.spongepowered.asm.mixin.injection.invoke.arg.Args;
+
+import com.llamalad7.mixinextras.injector.wrapoperation.Operation;
+
+/**
+ * Runtime cost of the call shapes injectors emit into target methods,
+ * compared with a plain call to the same handler. Handlers are kept out of
+ * line so that only the call shape itself differs between benchmarks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HandlerCallBenchmark {
+    
+    /**
+     * Mirrors the Args subclass generated by ArgsClassGenerator for a
+     * <tt>(II)</tt> descriptor, named without the <tt>$</tt> of generated
+     * classes
+     */
+    static final class ArgsII extends Args {
+        
+        private static final String DESC = "(II)V";
+        
+        ArgsII(int a, int b) {
+            super(new Object[] { Integer.valueOf(a), Integer.valueOf(b) });
+        }
+        
+        @Override
+        public <T> void set(int index, T value) {
+            if (index < 0 || index >= this.values.length) {
+                throw new ArgumentIndexOutOfBoundsException(index);
+            }
+            this.values[index] = value;
+        }
+        
+        @Override
+        public void setAll(Object... values) {
+            if (values.length != this.values.length) {
+                throw new ArgumentCountException(values.length, this.values.length, ArgsII.DESC);
+            }
+            System.arraycopy(values, 0, this.values, 0, values.length);
+        }
+        
+        int getI(int index) {
+            return ((Integer)this.values[index]).intValue();
+        }
+        
+    }
+    
+    private final Operation<Integer> operation = args -> Integer.valueOf(HandlerCallBenchmark.original(((Integer)args[0]).intValue()));
+    
+    private int value = 17;
+    
+    @Benchmark
+    public int direct() {
+        return HandlerCallBenchmark.original(this.value);
+    }
+    
+    @Benchmark
+    public int callbackInfo() {
+        CallbackInfo ci = new CallbackInfo("tick", false);
+        HandlerCallBenchmark.onTick(this.value, ci);
+        return HandlerCallBenchmark.original(this.value);
+    }
+    
+    @Benchmark
+    public int callbackInfoReturnable() {
+        CallbackInfoReturnable<Integer> cir = new CallbackInfoReturnable<Integer>("compute", true, HandlerCallBenchmark.original(this.value));
+        HandlerCallBenchmark.onCompute(this.value, cir);
+        return cir.isCancelled() ? cir.getReturnValueI() : this.value;
+    }
+    
+    @Benchmark
+    public int modifyArgs() {
+        ArgsII args = new ArgsII(this.value, 7);
+        HandlerCallBenchmark.onArgs(args);
+        return Math.max(args.getI(0), args.getI(1));
+    }
+    
+    @Benchmark
+    public int wrapOperation() {
+        return HandlerCallBenchmark.onWrap(this.value, this.operation);
+    }
+    
+    @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+    private static int original(int value) {
+        return value * 31 + 7;
+    }
+    
+    @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+    private static void onTick(int value, CallbackInfo ci) {
+        if (value < 0) {
+            ci.cancel();
+        }
+    }
+    
+    @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+    private static void onCompute(int value, CallbackInfoReturnable<Integer> cir) {
+        if (value >= 0) {
+            cir.setReturnValue(Integer.valueOf(cir.getReturnValueI() + 1));
+        }
+    }
+    
+    @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+    private static void onArgs(Args args) {
+        args.set(1, Integer.valueOf(((Integer)args.get(0)).intValue() + 1));
+    }
+    
+    @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+    private static int onWrap(int value, Operation<Integer> original) {
+        return original.call(Integer.valueOf(value)).intValue() + 1;
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.MethodNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.InjectionPoint;
+import org.spongepowered.asm.mixin.injection.code.InsnListEx;
+import org.spongepowered.asm.mixin.injection.struct.Target;
+import org.spongepowered.asm.mixin.transformer.ClassInfo;
+import org.spongepowered.asm.util.Constants;
+
+/**
+ * {@link InjectionPoint#find} for each built-in injection point, run over the
+ * original instructions of a corpus target method
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InjectionPointBenchmark {
+    
+    private static final String INJECT = "Lorg/spongepowered/asm/mixin/injection/Inject;";
+    
+    private static final String HANDLER_DESC = "(ILorg/spongepowered/asm/mixin/injection/callback/CallbackInfoReturnable;)V";
+    
+    /**
+     * Name of the injection point type to find
+     */
+    @Param({ "HEAD", "RETURN", "TAIL", "INVOKE", "INVOKE_ASSIGN", "INVOKE_STRING", "FIELD", "NEW", "JUMP", "CONSTANT", "CTOR_HEAD" })
+    public String type;
+    
+    private InjectionPoint point;
+    
+    private String desc;
+    
+    private InsnList insns;
+    
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment environment = BenchmarkEnvironment.get();
+        String targetName = environment.getCorpus().getTargetNames().get(0);
+        ClassNode classNode = environment.getClassNode(targetName, ClassReader.EXPAND_FRAMES);
+        
+        String methodName = "CTOR_HEAD".equals(this.type) ? Constants.CTOR : "compute";
+        MethodNode method = null;
+        for (MethodNode candidate : classNode.methods) {
+            if (candidate.name.equals(methodName)) {
+                method = candidate;
+            }
+        }
+        if (method == null) {
+            throw new IllegalStateException("Corpus target " + targetName + " has no method " + methodName);
+        }
+        
+        Target target = Target.of(ClassInfo.forName(targetName), classNode, method);
+        this.desc = method.desc;
+        this.insns = new InsnListEx(target);
+        
+        BenchmarkMixinContext context = new BenchmarkMixinContext(environment.getMixin(targetName, "MixinTargetCallbacks"), targetName);
+        MethodNode handler = new MethodNode(Opcodes.ACC_PRIVATE, "handler", InjectionPointBenchmark.HANDLER_DESC, null, null);
+        AnnotationNode parent = new AnnotationNode(InjectionPointBenchmark.INJECT);
+        
+        List<String> args = Collections.<String>emptyList();
+        String selector = "";
+        int opcode = 0;
+        if ("INVOKE".equals(this.type)) {
+            selector = "L" + targetName + ";mix(I)I";
+        } else if ("INVOKE_ASSIGN".equals(this.type)) {
+            selector = "Ljava/lang/Math;max(II)I";
+        } else if ("INVOKE_STRING".equals(this.type)) {
+            selector = "Ljava/lang/StringBuilder;append(Ljava/lang/String;)Ljava/lang/StringBuilder;";
+            args = Collections.singletonList("ldc=compute");
+        } else if ("FIELD".equals(this.type)) {
+            selector = "L" + targetName + ";counter:I";
+            opcode = Opcodes.GETFIELD;
+        } else if ("NEW".equals(this.type)) {
+            selector = "java/lang/StringBuilder";
+        } else if ("JUMP".equals(this.type)) {
+            opcode = Opcodes.IF_ICMPLE;
+        } else if ("CONSTANT".equals(this.type)) {
+            args = Collections.singletonList("intValue=7");
+        }
+        
+        this.point = InjectionPoint.parse(context, handler, parent, this.type, At.Shift.NONE, 0, args, selector, "", -1, opcode, null,
+                InjectionPoint.Flags.UNSAFE);
+        if (this.point == null) {
+            throw new IllegalStateException("Could not parse injection point " + this.type);
+        }
+    }
+    
+    @Benchmark
+    public List<AbstractInsnNode> find() {
+        List<AbstractInsnNode> nodes = new ArrayList<AbstractInsnNode>();
+        this.point.find(this.desc, this.insns, nodes);
+        return nodes;
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.asm.util.Locals;
+
+/**
+ * {@link Locals#getLocalsAt} at instructions spread through a corpus target
+ * method
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LocalsBenchmark {
+    
+    /**
+     * Number of sampled instructions, must be a power of two
+     */
+    private static final int SAMPLES = 16;
+    
+    /**
+     * Name of the corpus target method to sample
+     */
+    @Param({ "compute", "tick" })
+    public String method;
+    
+    private ClassNode classNode;
+    
+    private MethodNode methodNode;
+    
+    private final AbstractInsnNode[] nodes = new AbstractInsnNode[LocalsBenchmark.SAMPLES];
+    
+    private int index;
+    
+    @Setup
+    public void setup() {
+        BenchmarkEnvironment environment = BenchmarkEnvironment.get();
+        String targetName = environment.getCorpus().getTargetNames().get(0);
+        this.classNode = environment.getClassNode(targetName, ClassReader.EXPAND_FRAMES);
+        for (MethodNode candidate : this.classNode.methods) {
+            if (candidate.name.equals(this.method)) {
+                this.methodNode = candidate;
+            }
+        }
+        
+        List<AbstractInsnNode> opcodes = new ArrayList<AbstractInsnNode>();
+        for (AbstractInsnNode insn : this.methodNode.instructions.toArray()) {
+            if (insn.getOpcode() >= 0) {
+                opcodes.add(insn);
+            }
+        }
+        for (int i = 0; i < LocalsBenchmark.SAMPLES; i++) {
+            this.nodes[i] = opcodes.get((int)((long)i * (opcodes.size() - 1) / (LocalsBenchmark.SAMPLES - 1)));
+        }
+    }
+    
+    @Benchmark
+    public LocalVariableNode[] getLocalsAt() {
+        this.index = (this.index + 1) & (LocalsBenchmark.SAMPLES - 1);
+        return Locals.getLocalsAt(this.classNode, this.methodNode, this.nodes[this.index]);
+    }
+
+}
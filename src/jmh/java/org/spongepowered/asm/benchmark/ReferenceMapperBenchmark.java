@@ -0,0 +1,116 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.asm.benchmark.corpus.Corpus;
+import org.spongepowered.asm.mixin.refmap.ReferenceMapper;
+
+/**
+ * Reading the generated refmap and {@link ReferenceMapper#remap} lookups, a
+ * quarter of which miss
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReferenceMapperBenchmark {
+    
+    /**
+     * Number of precomputed lookups, must be a power of two
+     */
+    private static final int LOOKUPS = 1024;
+    
+    private static final String MIXIN_PREFIX = "org/spongepowered/asm/benchmark/mixin/generated/MixinNode";
+    
+    private final String[] classNames = new String[ReferenceMapperBenchmark.LOOKUPS];
+    
+    private final String[] references = new String[ReferenceMapperBenchmark.LOOKUPS];
+    
+    private byte[] refMap;
+    
+    private ReferenceMapper mapper;
+    
+    private int index;
+    
+    @Setup
+    public void setup() {
+        Corpus corpus = BenchmarkEnvironment.get().getCorpus();
+        this.refMap = corpus.getResource(Corpus.REFMAP_RESOURCE);
+        this.mapper = this.read();
+        
+        List<String> nodes = corpus.getNodeNames();
+        Random random = new Random(Corpus.SEED);
+        for (int i = 0; i < ReferenceMapperBenchmark.LOOKUPS; i++) {
+            int node = random.nextInt(nodes.size());
+            this.classNames[i] = ReferenceMapperBenchmark.MIXIN_PREFIX + node;
+            switch (random.nextInt(4)) {
+                case 0:
+                    this.references[i] = "value";
+                    break;
+                case 1:
+                    this.references[i] = "step" + node;
+                    break;
+                case 2:
+                    this.references[i] = "field";
+                    break;
+                default:
+                    this.references[i] = "missing" + node;
+                    break;
+            }
+        }
+    }
+    
+    @Benchmark
+    public ReferenceMapper read() {
+        return ReferenceMapper.read(new InputStreamReader(new ByteArrayInputStream(this.refMap), StandardCharsets.UTF_8),
+                Corpus.REFMAP_RESOURCE);
+    }
+    
+    @Benchmark
+    public String remap() {
+        int next = this.index = (this.index + 1) & (ReferenceMapperBenchmark.LOOKUPS - 1);
+        return this.mapper.remap(this.classNames[next], this.references[next]);
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.benchmark.corpus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A deterministic set of generated classes which the benchmarks run against.
+ * The corpus contains a pool of interfaces, a deep and wide hierarchy of
+ * <em>node</em> classes with generated method bodies, and a small number of
+ * <em>target</em> classes with a fixed shape which the benchmark mixins are
+ * applied to. Generated classes are never defined in the JVM, they are only
+ * supplied as bytecode by the benchmark service.
+ * 
+ * <p>The corpus is generated from a fixed seed, so every run measures the
+ * same classes. The number of node classes can be changed with the
+ * <tt>mixin.benchmark.corpusSize</tt> system property.</p>
+ */
+public final class Corpus {
+    
+    /**
+     * Package (internal name) of all generated classes
+     */
+    public static final String PACKAGE = "org/spongepowered/asm/benchmark/generated/";
+    
+    /**
+     * Number of target classes, these are named <tt>Target0</tt> to
+     * <tt>Target3</tt> and are referenced by name from the benchmark mixins
+     */
+    public static final int TARGET_COUNT = 4;
+    
+    /**
+     * Seed for the generator
+     */
+    public static final long SEED = 0x4D6978696EL;
+    
+    /**
+     * Default number of node classes
+     */
+    public static final int DEFAULT_SIZE = 512;
+    
+    /**
+     * Mixin counts for which generated config resources are available
+     */
+    static final int[] CONFIG_SIZES = { 8, 64, 512 };
+    
+    /**
+     * Name of the generated refmap resource
+     */
+    public static final String REFMAP_RESOURCE = "benchmark/refmap.json";
+    
+    /**
+     * Shared corpus
+     */
+    private static Corpus instance;
+    
+    /**
+     * Generated class bytes by internal name, in generation order
+     */
+    private final Map<String, byte[]> classes;
+    
+    /**
+     * Generated resources by name
+     */
+    private final Map<String, byte[]> resources;
+    
+    private final List<String> interfaceNames;
+    
+    private final List<String> nodeNames;
+    
+    private final List<String> targetNames;
+
+    Corpus(Map<String, byte[]> classes, Map<String, byte[]> resources, List<String> interfaceNames, List<String> nodeNames,
+            List<String> targetNames) {
+        this.classes = Collections.unmodifiableMap(classes);
+        this.resources = Collections.unmodifiableMap(resources);
+        this.interfaceNames = Collections.unmodifiableList(interfaceNames);
+        this.nodeNames = Collections.unmodifiableList(nodeNames);
+        this.targetNames = Collections.unmodifiableList(targetNames);
+    }
+    
+    /**
+     * Get the shared corpus, generating it on first use
+     */
+    public static synchronized Corpus get() {
+        if (Corpus.instance == null) {
+            int size = Integer.getInteger("mixin.benchmark.corpusSize", Corpus.DEFAULT_SIZE).intValue();
+            Corpus.instance = new CorpusGenerator(Corpus.SEED, size).generate();
+        }
+        return Corpus.instance;
+    }
+    
+    /**
+     * Get the name of the generated config resource which declares the
+     * specified number of mixins
+     * 
+     * @param mixinCount number of mixins, must be one of 8, 64 or 512
+     * @return resource name
+     */
+    public static String getConfigResource(int mixinCount) {
+        return "benchmark/config-" + mixinCount + ".json";
+    }
+    
+    /**
+     * Get the bytecode for a generated class
+     * 
+     * @param internalName internal name of the class
+     * @return class bytes or null if the class is not part of the corpus
+     */
+    public byte[] getClassBytes(String internalName) {
+        return this.classes.get(internalName);
+    }
+    
+    /**
+     * Get a generated resource
+     * 
+     * @param name resource name
+     * @return resource contents or null if the resource was not generated
+     */
+    public byte[] getResource(String name) {
+        return this.resources.get(name);
+    }
+    
+    /**
+     * Get the internal names of all generated classes, in generation order.
+     * Supertypes are always generated before their subtypes.
+     */
+    public List<String> getClassNames() {
+        return Collections.unmodifiableList(new ArrayList<String>(this.classes.keySet()));
+    }
+    
+    /**
+     * Get the internal names of the generated interfaces
+     */
+    public List<String> getInterfaceNames() {
+        return this.interfaceNames;
+    }
+    
+    /**
+     * Get the internal names of the generated node classes
+     */
+    public List<String> getNodeNames() {
+        return this.nodeNames;
+    }
+    
+    /**
+     * Get the internal names of the generated target classes
+     */
+    public List<String> getTargetNames() {
+        return this.targetNames;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Corpus[%d interfaces, %d nodes, %d targets]", this.interfaceNames.size(), this.nodeNames.size(),
+                this.targetNames.size());
+    }
+
+}
@@ -0,0 +1,444 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.benchmark.corpus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Generates the benchmark {@link Corpus}. All choices are made from a single
+ * seeded random source in a fixed order, so the same seed and size always
+ * produce identical bytecode.
+ */
+final class CorpusGenerator {
+    
+    private static final String OBJECT = "java/lang/Object";
+    private static final String STRING_BUILDER = "java/lang/StringBuilder";
+    
+    /**
+     * Number of generated interfaces
+     */
+    private static final int INTERFACE_COUNT = 12;
+    
+    /**
+     * Node superclasses are chosen from this many preceding nodes, which
+     * controls the depth of the generated hierarchy
+     */
+    private static final int PARENT_WINDOW = 32;
+    
+    /**
+     * Class file version of generated classes
+     */
+    private static final int VERSION = Opcodes.V1_8;
+    
+    /**
+     * Class writer which resolves common superclasses from the generated
+     * hierarchy, since generated classes can't be loaded
+     */
+    private final class CorpusClassWriter extends ClassWriter {
+        
+        CorpusClassWriter() {
+            super(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+        }
+        
+        @Override
+        protected String getCommonSuperClass(String type1, String type2) {
+            Set<String> ancestors = new HashSet<String>();
+            for (String type = type1; type != null; type = CorpusGenerator.this.superClasses.get(type)) {
+                ancestors.add(type);
+            }
+            for (String type = type2; type != null; type = CorpusGenerator.this.superClasses.get(type)) {
+                if (ancestors.contains(type)) {
+                    return type;
+                }
+            }
+            return CorpusGenerator.OBJECT;
+        }
+        
+    }
+    
+    private final Random random;
+    
+    private final int size;
+    
+    /**
+     * Superclass of each generated class, interfaces map to Object
+     */
+    private final Map<String, String> superClasses = new HashMap<String, String>();
+    
+    private final Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+    
+    private final Map<String, byte[]> resources = new HashMap<String, byte[]>();
+    
+    CorpusGenerator(long seed, int size) {
+        this.random = new Random(seed);
+        this.size = Math.max(size, 1);
+    }
+    
+    Corpus generate() {
+        List<String> interfaces = new ArrayList<String>();
+        for (int index = 0; index < CorpusGenerator.INTERFACE_COUNT; index++) {
+            String name = Corpus.PACKAGE + "Contract" + index;
+            this.generateInterface(name, index, this.pick(interfaces, 2));
+            interfaces.add(name);
+        }
+        
+        List<String> nodes = new ArrayList<String>();
+        for (int index = 0; index < this.size; index++) {
+            String name = Corpus.PACKAGE + "Node" + index;
+            String superName = index == 0 || this.random.nextInt(8) == 0 ? CorpusGenerator.OBJECT : this.pickParent(nodes);
+            String peer = index == 0 ? null : nodes.get(this.random.nextInt(index));
+            this.generateNode(name, index, superName, this.pick(interfaces, 2), peer);
+            nodes.add(name);
+        }
+        
+        List<String> targets = new ArrayList<String>();
+        for (int index = 0; index < Corpus.TARGET_COUNT; index++) {
+            String name = Corpus.PACKAGE + "Target" + index;
+            this.generateTarget(name, this.pickParent(nodes), nodes.get(this.random.nextInt(nodes.size())));
+            targets.add(name);
+        }
+        
+        for (int mixinCount : Corpus.CONFIG_SIZES) {
+            this.resources.put(Corpus.getConfigResource(mixinCount), this.generateConfig(mixinCount));
+        }
+        this.resources.put(Corpus.REFMAP_RESOURCE, this.generateRefMap(nodes));
+        
+        return new Corpus(this.classes, this.resources, interfaces, nodes, targets);
+    }
+
+    private String pickParent(List<String> nodes) {
+        return nodes.get(nodes.size() - 1 - this.random.nextInt(Math.min(nodes.size(), CorpusGenerator.PARENT_WINDOW)));
+    }
+
+    private String[] pick(List<String> names, int max) {
+        Set<String> picked = new HashSet<String>();
+        int count = names.isEmpty() ? 0 : this.random.nextInt(max + 1);
+        for (int i = 0; i < count; i++) {
+            picked.add(names.get(this.random.nextInt(names.size())));
+        }
+        return picked.toArray(new String[0]);
+    }
+
+    private void generateInterface(String name, int index, String[] interfaces) {
+        this.superClasses.put(name, CorpusGenerator.OBJECT);
+        ClassWriter cw = new CorpusClassWriter();
+        cw.visit(CorpusGenerator.VERSION, Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT | Opcodes.ACC_INTERFACE, name, null, CorpusGenerator.OBJECT,
+                interfaces);
+        cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "contract" + index, "(I)I", null, null).visitEnd();
+        cw.visitEnd();
+        this.classes.put(name, cw.toByteArray());
+    }
+
+    private void generateNode(String name, int index, String superName, String[] interfaces, String peer) {
+        this.superClasses.put(name, superName);
+        ClassWriter cw = new CorpusClassWriter();
+        cw.visit(CorpusGenerator.VERSION, Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT | Opcodes.ACC_SUPER, name, null, superName, interfaces);
+        this.generateCommonMembers(cw, name, superName, peer);
+        
+        MethodVisitor value = cw.visitMethod(Opcodes.ACC_PUBLIC, "value", "(I)I", null, null);
+        value.visitCode();
+        this.generateOps(value, name, peer, 1, 2, 3, 4 + this.random.nextInt(9));
+        value.visitVarInsn(Opcodes.ILOAD, 1);
+        value.visitInsn(Opcodes.IRETURN);
+        value.visitMaxs(0, 0);
+        value.visitEnd();
+        
+        MethodVisitor step = cw.visitMethod(Opcodes.ACC_PUBLIC, "step" + index, "(I)I", null, null);
+        step.visitCode();
+        step.visitVarInsn(Opcodes.ALOAD, 0);
+        step.visitVarInsn(Opcodes.ILOAD, 1);
+        step.visitMethodInsn(Opcodes.INVOKEVIRTUAL, name, "value", "(I)I", false);
+        step.visitInsn(Opcodes.IRETURN);
+        step.visitMaxs(0, 0);
+        step.visitEnd();
+        
+        cw.visitEnd();
+        this.classes.put(name, cw.toByteArray());
+    }
+
+    /**
+     * Target classes have a fixed shape which the benchmark mixins and
+     * injection point benchmarks rely on, padded with generated code
+     */
+    private void generateTarget(String name, String superName, String peer) {
+        this.superClasses.put(name, superName);
+        ClassWriter cw = new CorpusClassWriter();
+        cw.visit(CorpusGenerator.VERSION, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, superName, null);
+        cw.visitField(Opcodes.ACC_PUBLIC, "counter", "I", null, null).visitEnd();
+        this.generateCommonMembers(cw, name, superName, peer);
+        
+        // int compute(int x)
+        MethodVisitor compute = cw.visitMethod(Opcodes.ACC_PUBLIC, "compute", "(I)I", null, null);
+        compute.visitCode();
+        compute.visitVarInsn(Opcodes.ILOAD, 1);
+        compute.visitMethodInsn(Opcodes.INVOKESTATIC, name, "mix", "(I)I", false);
+        compute.visitVarInsn(Opcodes.ISTORE, 2);
+        compute.visitVarInsn(Opcodes.ILOAD, 2);
+        compute.visitIntInsn(Opcodes.BIPUSH, 7);
+        compute.visitInsn(Opcodes.IADD);
+        compute.visitVarInsn(Opcodes.ISTORE, 2);
+        compute.visitVarInsn(Opcodes.ALOAD, 0);
+        compute.visitFieldInsn(Opcodes.GETFIELD, name, "counter", "I");
+        compute.visitVarInsn(Opcodes.ILOAD, 2);
+        compute.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Math", "max", "(II)I", false);
+        compute.visitVarInsn(Opcodes.ISTORE, 2);
+        this.generateOps(compute, name, peer, 2, 3, 4, 16);
+        this.generateStringOp(compute, "compute", 2);
+        Label small = new Label();
+        compute.visitVarInsn(Opcodes.ILOAD, 2);
+        compute.visitIntInsn(Opcodes.BIPUSH, 100);
+        compute.visitJumpInsn(Opcodes.IF_ICMPLE, small);
+        compute.visitVarInsn(Opcodes.ILOAD, 2);
+        compute.visitInsn(Opcodes.IRETURN);
+        compute.visitLabel(small);
+        compute.visitVarInsn(Opcodes.ILOAD, 2);
+        compute.visitInsn(Opcodes.ICONST_1);
+        compute.visitInsn(Opcodes.IADD);
+        compute.visitInsn(Opcodes.IRETURN);
+        compute.visitMaxs(0, 0);
+        compute.visitEnd();
+        
+        // void tick(), which has a local variable table unlike compute
+        MethodVisitor tick = cw.visitMethod(Opcodes.ACC_PUBLIC, "tick", "()V", null, null);
+        Label start = new Label();
+        Label stored = new Label();
+        Label end = new Label();
+        tick.visitCode();
+        tick.visitLabel(start);
+        tick.visitVarInsn(Opcodes.ALOAD, 0);
+        tick.visitVarInsn(Opcodes.ALOAD, 0);
+        tick.visitFieldInsn(Opcodes.GETFIELD, name, "counter", "I");
+        tick.visitMethodInsn(Opcodes.INVOKEVIRTUAL, name, "compute", "(I)I", false);
+        tick.visitVarInsn(Opcodes.ISTORE, 1);
+        tick.visitLabel(stored);
+        tick.visitVarInsn(Opcodes.ALOAD, 0);
+        tick.visitVarInsn(Opcodes.ILOAD, 1);
+        tick.visitFieldInsn(Opcodes.PUTFIELD, name, "counter", "I");
+        tick.visitInsn(Opcodes.RETURN);
+        tick.visitLabel(end);
+        tick.visitLocalVariable("this", "L" + name + ";", null, start, end, 0);
+        tick.visitLocalVariable("value", "I", null, stored, end, 1);
+        tick.visitMaxs(0, 0);
+        tick.visitEnd();
+        
+        cw.visitEnd();
+        this.classes.put(name, cw.toByteArray());
+    }
+
+    /**
+     * Fields, constructor and static helper shared by nodes and targets
+     */
+    private void generateCommonMembers(ClassWriter cw, String name, String superName, String peer) {
+        cw.visitField(Opcodes.ACC_PROTECTED, "field", "I", null, null).visitEnd();
+        if (peer != null) {
+            cw.visitField(Opcodes.ACC_PROTECTED, "peer", "L" + peer + ";", null, null).visitEnd();
+        }
+        
+        MethodVisitor ctor = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        ctor.visitCode();
+        ctor.visitVarInsn(Opcodes.ALOAD, 0);
+        ctor.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+        ctor.visitVarInsn(Opcodes.ALOAD, 0);
+        ctor.visitInsn(Opcodes.ICONST_0);
+        ctor.visitFieldInsn(Opcodes.PUTFIELD, name, "field", "I");
+        ctor.visitInsn(Opcodes.RETURN);
+        ctor.visitMaxs(0, 0);
+        ctor.visitEnd();
+        
+        MethodVisitor mix = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "mix", "(I)I", null, null);
+        mix.visitCode();
+        mix.visitVarInsn(Opcodes.ILOAD, 0);
+        mix.visitIntInsn(Opcodes.BIPUSH, 31);
+        mix.visitInsn(Opcodes.IMUL);
+        mix.visitLdcInsn(Integer.valueOf(this.random.nextInt() | 0x10000));
+        mix.visitInsn(Opcodes.IADD);
+        mix.visitInsn(Opcodes.IRETURN);
+        mix.visitMaxs(0, 0);
+        mix.visitEnd();
+    }
+    
+    /**
+     * Generate a run of random operations on an int local. The operations
+     * cover method calls, field access, constants, allocation, loops and
+     * branches which merge different reference types, so the generated frames
+     * depend on the class hierarchy.
+     */
+    private void generateOps(MethodVisitor mv, String owner, String peer, int intLocal, int refLocal, int loopLocal, int count) {
+        for (int op = 0; op < count; op++) {
+            switch (this.random.nextInt(7)) {
+                case 0:
+                    mv.visitVarInsn(Opcodes.ILOAD, intLocal);
+                    mv.visitMethodInsn(Opcodes.INVOKESTATIC, owner, "mix", "(I)I", false);
+                    mv.visitVarInsn(Opcodes.ISTORE, intLocal);
+                    break;
+                case 1:
+                    mv.visitVarInsn(Opcodes.ALOAD, 0);
+                    mv.visitFieldInsn(Opcodes.GETFIELD, owner, "field", "I");
+                    mv.visitVarInsn(Opcodes.ILOAD, intLocal);
+                    mv.visitInsn(Opcodes.IADD);
+                    mv.visitVarInsn(Opcodes.ISTORE, intLocal);
+                    break;
+                case 2:
+                    mv.visitVarInsn(Opcodes.ALOAD, 0);
+                    mv.visitVarInsn(Opcodes.ILOAD, intLocal);
+                    mv.visitFieldInsn(Opcodes.PUTFIELD, owner, "field", "I");
+                    break;
+                case 3:
+                    this.generateConstantOp(mv, intLocal);
+                    break;
+                case 4:
+                    if (peer == null) {
+                        this.generateConstantOp(mv, intLocal);
+                        break;
+                    }
+                    Label other = new Label();
+                    Label merge = new Label();
+                    mv.visitVarInsn(Opcodes.ILOAD, intLocal);
+                    mv.visitJumpInsn(Opcodes.IFEQ, other);
+                    mv.visitVarInsn(Opcodes.ALOAD, 0);
+                    mv.visitJumpInsn(Opcodes.GOTO, merge);
+                    mv.visitLabel(other);
+                    mv.visitVarInsn(Opcodes.ALOAD, 0);
+                    mv.visitFieldInsn(Opcodes.GETFIELD, owner, "peer", "L" + peer + ";");
+                    mv.visitLabel(merge);
+                    mv.visitVarInsn(Opcodes.ASTORE, refLocal);
+                    mv.visitVarInsn(Opcodes.ALOAD, refLocal);
+                    mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CorpusGenerator.OBJECT, "hashCode", "()I", false);
+                    mv.visitVarInsn(Opcodes.ILOAD, intLocal);
+                    mv.visitInsn(Opcodes.IADD);
+                    mv.visitVarInsn(Opcodes.ISTORE, intLocal);
+                    break;
+                case 5:
+                    Label loop = new Label();
+                    Label exit = new Label();
+                    mv.visitInsn(Opcodes.ICONST_0);
+                    mv.visitVarInsn(Opcodes.ISTORE, loopLocal);
+                    mv.visitLabel(loop);
+                    mv.visitVarInsn(Opcodes.ILOAD, loopLocal);
+                    mv.visitIntInsn(Opcodes.BIPUSH, 2 + this.random.nextInt(16));
+                    mv.visitJumpInsn(Opcodes.IF_ICMPGE, exit);
+                    mv.visitIincInsn(intLocal, 3);
+                    mv.visitIincInsn(loopLocal, 1);
+                    mv.visitJumpInsn(Opcodes.GOTO, loop);
+                    mv.visitLabel(exit);
+                    break;
+                default:
+                    this.generateStringOp(mv, "op" + op, intLocal);
+                    break;
+            }
+        }
+    }
+
+    private void generateConstantOp(MethodVisitor mv, int intLocal) {
+        mv.visitVarInsn(Opcodes.ILOAD, intLocal);
+        mv.visitLdcInsn(Integer.valueOf(this.random.nextInt() | 0x10000));
+        mv.visitInsn(Opcodes.IXOR);
+        mv.visitVarInsn(Opcodes.ISTORE, intLocal);
+    }
+
+    private void generateStringOp(MethodVisitor mv, String constant, int intLocal) {
+        mv.visitTypeInsn(Opcodes.NEW, CorpusGenerator.STRING_BUILDER);
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, CorpusGenerator.STRING_BUILDER, "<init>", "()V", false);
+        mv.visitLdcInsn(constant);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CorpusGenerator.STRING_BUILDER, "append", "(Ljava/lang/String;)Ljava/lang/StringBuilder;", false);
+        mv.visitVarInsn(Opcodes.ILOAD, intLocal);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CorpusGenerator.STRING_BUILDER, "append", "(I)Ljava/lang/StringBuilder;", false);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CorpusGenerator.STRING_BUILDER, "toString", "()Ljava/lang/String;", false);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "length", "()I", false);
+        mv.visitVarInsn(Opcodes.ILOAD, intLocal);
+        mv.visitInsn(Opcodes.IADD);
+        mv.visitVarInsn(Opcodes.ISTORE, intLocal);
+    }
+
+    /**
+     * Generate a config which declares the specified number of mixins, the
+     * mixins themselves do not exist since only loading is measured
+     */
+    private byte[] generateConfig(int mixinCount) {
+        JsonObject config = new JsonObject();
+        config.addProperty("required", Boolean.TRUE);
+        config.addProperty("minVersion", "0.8");
+        config.addProperty("package", "org.spongepowered.asm.benchmark.mixin.generated");
+        config.addProperty("compatibilityLevel", "JAVA_8");
+        config.addProperty("priority", Integer.valueOf(1000));
+        JsonArray mixins = new JsonArray();
+        JsonArray client = new JsonArray();
+        for (int index = 0; index < mixinCount; index++) {
+            (index % 4 == 3 ? client : mixins).add(new JsonPrimitive("MixinNode" + index));
+        }
+        config.add("mixins", mixins);
+        config.add("client", client);
+        JsonObject injectors = new JsonObject();
+        injectors.addProperty("defaultRequire", Integer.valueOf(1));
+        config.add("injectors", injectors);
+        JsonObject overwrites = new JsonObject();
+        overwrites.addProperty("requireAnnotations", Boolean.TRUE);
+        config.add("overwrites", overwrites);
+        return CorpusGenerator.toBytes(config);
+    }
+
+    /**
+     * Generate a refmap with entries for a mixin per node class
+     */
+    private byte[] generateRefMap(List<String> nodes) {
+        JsonObject mappings = new JsonObject();
+        for (int index = 0; index < nodes.size(); index++) {
+            String node = nodes.get(index);
+            JsonObject entries = new JsonObject();
+            entries.addProperty("value", "L" + node + ";value(I)I");
+            entries.addProperty("step" + index, "L" + node + ";step" + index + "(I)I");
+            entries.addProperty("field", "L" + node + ";field:I");
+            entries.addProperty("mix", "L" + node + ";mix(I)I");
+            mappings.add("org/spongepowered/asm/benchmark/mixin/generated/MixinNode" + index, entries);
+        }
+        JsonObject refMap = new JsonObject();
+        refMap.add("mappings", mappings);
+        return CorpusGenerator.toBytes(refMap);
+    }
+
+    private static byte[] toBytes(JsonObject json) {
+        return new GsonBuilder().setPrettyPrinting().create().toJson(json).getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.benchmark.mixin;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Callback injectors, applied to every corpus target class
+ */
+@Mixin(targets = {
+        "org.spongepowered.asm.benchmark.generated.Target0", "org.spongepowered.asm.benchmark.generated.Target1",
+        "org.spongepowered.asm.benchmark.generated.Target2", "org.spongepowered.asm.benchmark.generated.Target3"
+}, remap = false)
+abstract class MixinTargetCallbacks {
+    
+    @Inject(method = "compute", at = @At("HEAD"), cancellable = true)
+    private void onComputeHead(int x, CallbackInfoReturnable<Integer> cir) {
+        if (x < 0) {
+            cir.setReturnValue(Integer.valueOf(0));
+        }
+    }
+    
+    @Inject(method = "compute", at = @At(value = "INVOKE", target = "Ljava/lang/Math;max(II)I", shift = At.Shift.AFTER))
+    private void onComputeMax(int x, CallbackInfoReturnable<Integer> cir) {
+    }
+    
+    @Inject(method = "compute", at = @At("RETURN"))
+    private void onComputeReturn(int x, CallbackInfoReturnable<Integer> cir) {
+    }
+    
+    @Inject(method = "tick", at = @At("TAIL"))
+    private void onTick(CallbackInfo ci) {
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.benchmark.mixin;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Constant;
+import org.spongepowered.asm.mixin.injection.ModifyArg;
+import org.spongepowered.asm.mixin.injection.ModifyConstant;
+import org.spongepowered.asm.mixin.injection.ModifyVariable;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+/**
+ * Redirect and modifier injectors, applied to every corpus target class
+ */
+@Mixin(targets = {
+        "org.spongepowered.asm.benchmark.generated.Target0", "org.spongepowered.asm.benchmark.generated.Target1",
+        "org.spongepowered.asm.benchmark.generated.Target2", "org.spongepowered.asm.benchmark.generated.Target3"
+}, remap = false)
+abstract class MixinTargetModifiers {
+    
+    @Redirect(method = "compute", at = @At(value = "INVOKE", target = "mix(I)I"))
+    private int redirectMix(int x) {
+        return x * 31;
+    }
+    
+    @ModifyArg(method = "compute", at = @At(value = "INVOKE", target = "Ljava/lang/Math;max(II)I"), index = 1)
+    private int modifyMaxArg(int value) {
+        return value + 1;
+    }
+    
+    @ModifyConstant(method = "compute", constant = @Constant(intValue = 7))
+    private int modifySeven(int seven) {
+        return seven * 2;
+    }
+    
+    @ModifyVariable(method = "tick", at = @At("STORE"), ordinal = 0)
+    private int modifyTickValue(int value) {
+        return value & 0xFFFF;
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.service.benchmark;
+
+import java.io.IOException;
+
+import org.spongepowered.asm.benchmark.corpus.Corpus;
+import org.spongepowered.asm.service.headless.MixinServiceHeadless;
+
+/**
+ * Mixin service used by the benchmark suite. Classes are supplied by the
+ * generated {@link Corpus} first and then by the benchmark classpath, so mixin
+ * classes can be compiled normally but their targets never need to exist on
+ * disk or be loaded by the JVM. Everything else is inherited from the headless
+ * service, which is not valid here since no class sources are supplied.
+ */
+public class MixinServiceBenchmark extends MixinServiceHeadless {
+    
+    private static final String CLASS_SUFFIX = ".class";
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#getName()
+     */
+    @Override
+    public String getName() {
+        return "Benchmark";
+    }
+
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.service.IMixinService#isValid()
+     */
+    @Override
+    public boolean isValid() {
+        return true;
+    }
+    
+    /**
+     * Read a generated class or resource from the corpus
+     */
+    @Override
+    protected byte[] findBytes(String entryName) throws IOException {
+        if (entryName.endsWith(MixinServiceBenchmark.CLASS_SUFFIX)) {
+            return Corpus.get().getClassBytes(entryName.substring(0, entryName.length() - MixinServiceBenchmark.CLASS_SUFFIX.length()));
+        }
+        return Corpus.get().getResource(entryName);
+    }
+    
+    /**
+     * Classes requested by name come from the benchmark classpath
+     */
+    @Override
+    protected ClassLoader getClassLoader() {
+        return this.getClass().getClassLoader();
+    }
+
+}
@@ -287,6 +287,14 @@ public final class MixinEnvironment implements ITokenProvider {
          * is only enabled during mixin prepare operations)
          */
         DEBUG_PROFILER(Option.DEBUG_ALL, Inherit.ALLOW_OVERRIDE, "profiler"),
+        
+        /**
+         * Export profiler results to <tt>.mixin.out/profiler</tt> in a
+         * machine-readable form when the audit completes or the VM shuts down.
+         * Takes a comma-separated list of formats, supported formats are
+         * <tt>json</tt> and <tt>csv</tt>.
+         */
+        DEBUG_PROFILER_EXPORT(Option.DEBUG_PROFILER, "export", false),
 
         /**
          * Dumps the bytecode for the target class to disk when mixin
@@ -409,7 +417,19 @@ public final class MixinEnvironment implements ITokenProvider {
          * "default" and "safe"
          */
         INITIALISER_INJECTION_MODE("initialiserInjectionMode", "default"),
-        
+
+        /**
+         * Comma-separated resource names of the manifests written when mixins
+         * are applied at build time. Classes listed in a manifest are
+         * recognised as already transformed and the mixins recorded for them
+         * are not applied again. Disabled unless set, for example with
+         * <tt>-Dmixin.aotManifest=META-INF/mymod.aot.json</tt>. Each manifest
+         * is looked up as a single resource, so jars which are transformed
+         * separately must write their manifests under different names and
+         * every name must be listed.
+         */
+        AOT_MANIFEST("aotManifest", ""),
+
         /**
          * Parent for tunable settings
          */
@@ -421,7 +441,78 @@ public final class MixinEnvironment implements ITokenProvider {
          * with {@link ClassReader#EXPAND_FRAMES} flag which restores the
          * behaviour from versions 0.8.6 and below, newer versions default to 0.
          */
-        CLASSREADER_EXPAND_FRAMES(Option.TUNABLE, Inherit.INDEPENDENT, "classReaderExpandFrames", true, "false");
+        CLASSREADER_EXPAND_FRAMES(Option.TUNABLE, Inherit.INDEPENDENT, "classReaderExpandFrames", true, "false"),
+        
+        /**
+         * Tunable which allows mixins to be applied to several target classes
+         * at once when classes are loaded on multiple threads. By default the
+         * mixin processor handles one class at a time, setting this option to
+         * <tt>true</tt> allows independent targets to be processed in parallel,
+         * targets which share a mixin are still processed one at a time.
+         */
+        CONCURRENT_APPLICATION(Option.TUNABLE, Inherit.INDEPENDENT, "concurrentApplication"),
+        
+        /**
+         * Tunable which enables a persistent index of class metadata, stored
+         * in the .mixin.out directory. Class hierarchy information for classes
+         * seen in a previous launch is read from the index instead of from
+         * the class bytecode. The index is discarded whenever a container or
+         * classpath entry changes, but it cannot detect changes to other
+         * transformers' configuration so it should only be enabled when class
+         * headers are fully determined by the installed containers.
+         */
+        HIERARCHY_INDEX(Option.TUNABLE, Inherit.INDEPENDENT, "hierarchyIndex"),
+        
+        /**
+         * Tunable which enables a persistent cache of transformed classes,
+         * stored in the .mixin.out directory. When a target class, the mixins
+         * applied to it, their configs and the environment options are all
+         * unchanged since a previous launch, the transformed bytecode is read
+         * from the cache instead of applying the mixins again. Targets of
+         * mixins from configs with a plugin, or mixins which contain inner
+         * classes, are always transformed normally.
+         */
+        TRANSFORMED_CLASS_CACHE(Option.TUNABLE, Inherit.INDEPENDENT, "classCache"),
+        
+        /**
+         * When writing transformed classes, maxs and stack map frames are
+         * normally only recomputed for methods which were added or modified
+         * by mixins, and other methods keep the frames they were read with.
+         * Enabling this tunable restores full recomputation for every method
+         * in the class.
+         */
+        COMPUTE_ALL_FRAMES(Option.TUNABLE, Inherit.INDEPENDENT, "computeAllFrames"),
+        
+        /**
+         * Tunable which reads the mixin classes of all selected configs on a
+         * pool of worker threads when configs are prepared. The remainder of
+         * preparation, including calls to config plugins, still happens in
+         * config order on the preparing thread, so the outcome and the order
+         * of any errors are unchanged. Only enable this if the service's
+         * bytecode provider, and any transformers it runs, are thread-safe.
+         */
+        PARALLEL_PREPARE(Option.TUNABLE, Inherit.INDEPENDENT, "parallelPrepare"),
+        
+        /**
+         * Tunable which defers most of the work of preparing each mixin until
+         * a class it targets is first transformed. Only the header of each
+         * mixin class is read when configs are prepared, which is enough to
+         * determine its targets and priority. The full class is read and
+         * validated on demand, so mixins whose targets are never loaded cost
+         * very little. Validation errors in deferred mixins are reported when
+         * the mixin is first needed instead of during preparation.
+         */
+        LAZY_PREPARE(Option.TUNABLE, Inherit.INDEPENDENT, "lazyPrepare"),
+        
+        /**
+         * Tunable which records the order in which mixin targets are
+         * transformed, and on later launches loads the class metadata for the
+         * recorded targets and their hierarchies on background threads ahead
+         * of the classes being requested. Mixins are still applied on the
+         * thread which loads each class. The bytecode provider must be safe
+         * to call from more than one thread.
+         */
+        TARGET_PREFETCH(Option.TUNABLE, Inherit.INDEPENDENT, "targetPrefetch");
         
         /**
          * Type of inheritance for options
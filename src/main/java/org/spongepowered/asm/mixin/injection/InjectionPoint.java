@@ -48,11 +48,13 @@ import org.objectweb.asm.tree.MethodNode;
 import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.asm.mixin.MixinEnvironment.Option;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInjector;
+import org.spongepowered.asm.mixin.injection.code.InsnListEx;
 import org.spongepowered.asm.mixin.injection.modify.AfterStoreLocal;
 import org.spongepowered.asm.mixin.injection.modify.BeforeLoadLocal;
 import org.spongepowered.asm.mixin.injection.points.*;
 import org.spongepowered.asm.mixin.injection.struct.InjectionPointAnnotationContext;
 import org.spongepowered.asm.mixin.injection.struct.InjectionPointData;
+import org.spongepowered.asm.mixin.injection.struct.InsnIndex;
 import org.spongepowered.asm.mixin.injection.throwables.InvalidInjectionException;
 import org.spongepowered.asm.mixin.refmap.IMixinContext;
 import org.spongepowered.asm.mixin.struct.AnnotatedMethodInfo;
@@ -420,6 +422,23 @@ public abstract class InjectionPoint {
      */
     public abstract boolean find(String desc, InsnList insns, Collection<AbstractInsnNode> nodes);
 
+    /**
+     * Get a matcher which locates this injection point incrementally, so that
+     * it can be resolved in the same pass over the target instructions as the
+     * injection points of other injectors. The matcher must produce exactly
+     * the same nodes as {@link #find}, which means subclasses which override
+     * <tt>find</tt> must also override this method. Injection points which
+     * cannot be matched one instruction at a time return null and are
+     * resolved using {@link #find} as normal.
+     * 
+     * @param desc Method descriptor of the target method
+     * @return new matcher or null if this injection point must be resolved
+     *      using {@link #find}
+     */
+    public Matcher getMatcher(String desc) {
+        return null;
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Object#toString()
      */
@@ -443,6 +462,47 @@ public abstract class InjectionPoint {
         }
         return insn;
     }
+    
+    /**
+     * Get the instruction index of the target method for the supplied insn
+     * list, if one is available. Injection points can use the index to visit
+     * only the instructions they are interested in, but the index covers the
+     * whole method so candidates for which <tt>insns.indexOf</tt> returns -1,
+     * because they are outside the slice, must be skipped.
+     * 
+     * @param insns Insn list supplied to {@link #find}
+     * @return the index or null if the insn list is not indexed
+     */
+    protected static InsnIndex getIndex(InsnList insns) {
+        return insns instanceof InsnListEx ? ((InsnListEx)insns).getIndex() : null;
+    }
+
+    /**
+     * Incremental form of {@link InjectionPoint#find}, supplied with each
+     * instruction in the slice in turn and then asked for the matched nodes
+     * once the end of the slice is reached.
+     */
+    public abstract static class Matcher {
+        
+        /**
+         * Inspect the next instruction in the slice
+         * 
+         * @param insn instruction to inspect
+         */
+        public abstract void accept(AbstractInsnNode insn);
+        
+        /**
+         * Called once all instructions in the slice have been supplied to
+         * {@link #accept}. Adds the matched nodes to the supplied collection.
+         * 
+         * @param insns Insn list which was searched
+         * @param nodes Collection of nodes to populate
+         * @return false if the matcher could not resolve the injection point,
+         *      in which case {@link InjectionPoint#find} is used instead
+         */
+        public abstract boolean complete(InsnList insns, Collection<AbstractInsnNode> nodes);
+        
+    }
 
     /**
      * Composite injection point
@@ -611,6 +671,42 @@ public abstract class InjectionPoint {
 
             return nodes.size() > 0;
         }
+        
+        @Override
+        public Matcher getMatcher(String desc) {
+            final Matcher input = this.input.getMatcher(desc);
+            if (input == null) {
+                return null;
+            }
+            
+            return new Matcher() {
+                
+                @Override
+                public void accept(AbstractInsnNode insn) {
+                    input.accept(insn);
+                }
+                
+                @Override
+                public boolean complete(InsnList insns, Collection<AbstractInsnNode> nodes) {
+                    List<AbstractInsnNode> list = new ArrayList<AbstractInsnNode>();
+                    if (!input.complete(insns, list)) {
+                        return false;
+                    }
+                    
+                    for (AbstractInsnNode insn : list) {
+                        int newIndex = insns.indexOf(insn) + Shift.this.shift;
+                        if (newIndex < 0 || newIndex >= insns.size()) {
+                            // Let find() decorate the injector with the details
+                            return false;
+                        }
+                        nodes.add(insns.get(newIndex));
+                    }
+                    
+                    return true;
+                }
+                
+            };
+        }
     }
 
     /**
@@ -285,7 +285,7 @@ public class CallbackInjector extends Injector {
         
         void add(AbstractInsnNode insn, boolean ctorStack, boolean invokeStack, boolean head) {
             if (head) {
-                this.target.insns.insertBefore(this.head, insn);
+                this.target.insertBefore(this.head, insn);
             } else {
                 this.add(insn);
             }
@@ -470,7 +470,7 @@ public class CallbackInjector extends Injector {
         int notebookCompatibility = NotebookUtil.getCompatibility(info);
         String decorationKey = CallbackInjector.LOCALS_KEY + ":" + notebookCompatibility;
         if ((this.localCapture.isCaptureLocals() || this.localCapture.isPrintLocals()) && !node.hasDecoration(decorationKey)) {
-            LocalVariableNode[] locals = Locals.getLocalsAt(this.classNode, target.method, node.getCurrentTarget());
+            LocalVariableNode[] locals = target.getLocalsAt(node.getCurrentTarget());
             for (int j = 0; j < locals.length; j++) {
                 if (locals[j] != null && locals[j].desc != null && locals[j].desc.startsWith("Lorg/spongepowered/asm/mixin/injection/callback/")) {
                     locals[j] = null;
@@ -0,0 +1,165 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.injection.code;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.spongepowered.asm.mixin.injection.InjectionPoint;
+import org.spongepowered.asm.mixin.injection.InjectionPoint.Matcher;
+import org.spongepowered.asm.mixin.injection.struct.Target;
+
+/**
+ * Resolves the injection points of many injectors with a single pass over
+ * each target method. Injection points are added to the batch along with the
+ * {@link InjectorTarget} they will be resolved against, and once every
+ * injector for the target class has been added {@link #resolve} visits each
+ * target method once, supplying every instruction to the {@link Matcher
+ * matchers} whose slice contains it. The matched nodes are stored in the
+ * injector target and consumed when the injector searches for its nodes.
+ * 
+ * <p>Injection points which do not supply a matcher, or whose matcher is
+ * unable to resolve them, are not affected by the batch and are located using
+ * {@link InjectionPoint#find} when the injector is prepared.</p>
+ */
+public final class InjectionPointBatch {
+    
+    /**
+     * An injection point waiting to be resolved
+     */
+    static final class Entry {
+        
+        final InjectorTarget injectorTarget;
+        
+        final InjectionPoint injectionPoint;
+        
+        /**
+         * Slice the injection point is resolved against
+         */
+        final InsnList insns;
+        
+        final Matcher matcher;
+        
+        /**
+         * Bounds of the slice in the target method, inclusive
+         */
+        final int start, end;
+        
+        Entry(InjectorTarget injectorTarget, InjectionPoint injectionPoint, InsnList insns, Matcher matcher, int start, int end) {
+            this.injectorTarget = injectorTarget;
+            this.injectionPoint = injectionPoint;
+            this.insns = insns;
+            this.matcher = matcher;
+            this.start = start;
+            this.end = end;
+        }
+        
+    }
+    
+    /**
+     * Injection points to resolve, grouped by target method
+     */
+    private final Map<Target, List<Entry>> targets = new LinkedHashMap<Target, List<Entry>>();
+    
+    /**
+     * Add an injection point to this batch. Injection points which cannot be
+     * matched incrementally, or whose slice cannot be computed, are ignored
+     * and left to the injector to find.
+     * 
+     * @param injectorTarget target the injection point will be resolved for
+     * @param injectionPoint injection point to add
+     * @return true if the injection point was added to the batch
+     */
+    public boolean add(InjectorTarget injectorTarget, InjectionPoint injectionPoint) {
+        Matcher matcher = injectionPoint.getMatcher(injectorTarget.getDesc());
+        if (matcher == null) {
+            return false;
+        }
+        
+        InsnList insns;
+        try {
+            insns = injectorTarget.getSlice(injectionPoint);
+        } catch (RuntimeException ex) {
+            // Raised again with full context when the injector is prepared
+            return false;
+        }
+        
+        if (insns.size() == 0) {
+            return false;
+        }
+        
+        Target target = injectorTarget.getTarget();
+        List<Entry> entries = this.targets.get(target);
+        if (entries == null) {
+            entries = new ArrayList<Entry>();
+            this.targets.put(target, entries);
+        }
+        
+        entries.add(new Entry(injectorTarget, injectionPoint, insns, matcher, target.indexOf(insns.getFirst()), target.indexOf(insns.getLast())));
+        return true;
+    }
+    
+    /**
+     * Resolve all injection points in this batch and store the results in
+     * their respective injector targets. The batch is empty afterwards.
+     */
+    public void resolve() {
+        for (Map.Entry<Target, List<Entry>> target : this.targets.entrySet()) {
+            InjectionPointBatch.resolve(target.getKey(), target.getValue());
+        }
+        
+        this.targets.clear();
+    }
+
+    private static void resolve(Target target, List<Entry> entries) {
+        Entry[] pending = entries.toArray(new Entry[entries.size()]);
+        int start = Integer.MAX_VALUE, end = -1;
+        for (Entry entry : pending) {
+            start = Math.min(start, entry.start);
+            end = Math.max(end, entry.end);
+        }
+        
+        AbstractInsnNode insn = target.get(start);
+        for (int index = start; index <= end && insn != null; index++, insn = insn.getNext()) {
+            for (int i = 0; i < pending.length; i++) {
+                if (index >= pending[i].start && index <= pending[i].end) {
+                    pending[i].matcher.accept(insn);
+                }
+            }
+        }
+        
+        for (Entry entry : pending) {
+            List<AbstractInsnNode> nodes = new ArrayList<AbstractInsnNode>();
+            if (entry.matcher.complete(entry.insns, nodes)) {
+                entry.injectorTarget.setResolved(entry.injectionPoint, nodes);
+            }
+        }
+    }
+    
+}
@@ -58,6 +58,8 @@ import org.spongepowered.asm.mixin.transformer.ClassInfo.TypeLookup;
 import org.spongepowered.asm.service.MixinService;
 import org.spongepowered.asm.util.Annotations;
 import org.spongepowered.asm.util.Bytecode;
+import org.spongepowered.asm.util.perf.Events;
+import org.spongepowered.asm.util.perf.IEventSink.ITimedEvent;
 import org.spongepowered.asm.util.SignaturePrinter;
 import org.spongepowered.asm.util.Bytecode.DelegateInitialiser;
 
@@ -244,10 +246,13 @@ public abstract class Injector {
     public final List<InjectionNode> find(InjectorTarget injectorTarget, List<InjectionPoint> injectionPoints) {
         this.sanityCheck(injectorTarget.getTarget(), injectionPoints);
 
+        ITimedEvent findEvent = Events.beginInjectorFind(this.info.getMixin().getClassName(), this.info.getMethodName(), injectionPoints,
+                injectorTarget.getTarget());
         List<InjectionNode> myNodes = new ArrayList<InjectionNode>();
         for (TargetNode node : this.findTargetNodes(injectorTarget, injectionPoints)) {
             this.addTargetNode(injectorTarget, myNodes, node.insn, node.nominators);
         }
+        findEvent.complete(myNodes.size(), null);
         return myNodes;
     }
 
@@ -274,6 +279,9 @@ public abstract class Injector {
      * @param nodes selected nodes
      */
     public final void inject(Target target, List<InjectionNode> nodes) {
+        ITimedEvent injectEvent = Events.beginInjectorInject(this.info.getMixin().getClassName(), this.info.getMethodName(),
+                this.info.getInjectionPoints(), target);
+        int injected = 0;
         for (InjectionNode node : nodes) {
             if (node.isRemoved()) {
                 if (this.info.getMixin().getOption(Option.DEBUG_VERBOSE)) {
@@ -282,11 +290,13 @@ public abstract class Injector {
                 continue;
             }
             this.inject(target, node);
+            injected++;
         }
 
         for (InjectionNode node : nodes) {
             this.postInject(target, node);
         }
+        injectEvent.complete(injected, null);
     }
 
     /**
@@ -314,7 +324,13 @@ public abstract class Injector {
                         injectorTarget, injectorTarget.getMergedBy(), injectorTarget.getMergedPriority()));
             }
 
-            if (!this.findTargetNodes(injectorTarget, injectionPoint, nodes)) {
+            List<AbstractInsnNode> resolved = injectorTarget.getResolved(injectionPoint);
+            if (resolved != null) {
+                if (resolved.isEmpty()) {
+                    continue;
+                }
+                nodes.addAll(resolved);
+            } else if (!this.findTargetNodes(injectorTarget, injectionPoint, nodes)) {
                 continue;
             }
 
@@ -25,6 +25,8 @@
 package org.spongepowered.asm.mixin.injection.code;
 
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.objectweb.asm.tree.AbstractInsnNode;
@@ -54,6 +56,12 @@ public class InjectorTarget {
      * Cache of slices
      */
     private final Map<String, InsnListReadOnly> cache = new HashMap<String, InsnListReadOnly>();
+    
+    /**
+     * Nodes for injection points which were resolved ahead of time by an
+     * {@link InjectionPointBatch}
+     */
+    private final Map<InjectionPoint, List<AbstractInsnNode>> resolved = new IdentityHashMap<InjectionPoint, List<AbstractInsnNode>>();
 
     /**
      * Target method data
@@ -215,6 +223,27 @@ public class InjectorTarget {
         return this.getSlice(injectionPoint.getSlice());
     }
     
+    /**
+     * Get the nodes matched by the specified injection point if it was resolved
+     * ahead of time by an {@link InjectionPointBatch}
+     * 
+     * @param injectionPoint injection point to fetch nodes for
+     * @return matched nodes or null if the injection point was not resolved
+     */
+    public List<AbstractInsnNode> getResolved(InjectionPoint injectionPoint) {
+        return this.resolved.get(injectionPoint);
+    }
+    
+    /**
+     * Store the nodes matched by the specified injection point
+     * 
+     * @param injectionPoint injection point which was resolved
+     * @param nodes matched nodes
+     */
+    void setResolved(InjectionPoint injectionPoint, List<AbstractInsnNode> nodes) {
+        this.resolved.put(injectionPoint, nodes);
+    }
+    
     /**
      * Dispose all cached instruction lists
      */
@@ -224,6 +253,7 @@ public class InjectorTarget {
         }
         
         this.cache.clear();
+        this.resolved.clear();
     }
 
 }
@@ -26,6 +26,7 @@ package org.spongepowered.asm.mixin.injection.code;
 
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.spongepowered.asm.mixin.injection.struct.Constructor;
+import org.spongepowered.asm.mixin.injection.struct.InsnIndex;
 import org.spongepowered.asm.mixin.injection.struct.Target;
 import org.spongepowered.asm.mixin.transformer.struct.Initialiser;
 import org.spongepowered.asm.mixin.transformer.struct.Initialiser.InjectionMode;
@@ -51,6 +52,18 @@ public class InsnListEx extends InsnListReadOnly implements IInsnListEx {
     public String toString() {
         return this.target.toString();
     }
+    
+    /**
+     * Get the index of the instructions in the target method. The index always
+     * covers the whole method, so if this list is a slice then candidates from
+     * the index which are not in the slice have an {@link #indexOf} of -1 and
+     * must be skipped.
+     * 
+     * @return instruction index of the target method
+     */
+    public InsnIndex getIndex() {
+        return this.target.getIndex();
+    }
 
     /* (non-Javadoc)
      * @see org.spongepowered.asm.mixin.injection.code.IInsnListEx
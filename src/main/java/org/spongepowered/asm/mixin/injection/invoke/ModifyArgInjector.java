@@ -123,7 +123,7 @@ public class ModifyArgInjector extends InvokeInjector {
             this.injectMultiArgHandler(target, extraLocals, originalArgs, currentArgs, argIndex, insns);
         }
 
-        target.insns.insertBefore(methodNode, insns);
+        target.insertBefore(methodNode, insns);
         Extension extraStack = target.extendStack();
         if (!isStatic) {
             extraStack.add();
@@ -111,7 +111,7 @@ public class ModifyArgsInjector extends InvokeInjector {
         this.pushArgs(extraArgs, insns, extraArgMap, 0, extraArgs.length);
 
         extraStack.apply();
-        target.insns.insertBefore(targetMethod, insns);
+        target.insertBefore(targetMethod, insns);
     }
 
     private boolean verifyTarget(Target target) {
@@ -45,7 +45,6 @@ import org.spongepowered.asm.mixin.injection.struct.Target;
 import org.spongepowered.asm.mixin.injection.struct.Target.Extension;
 import org.spongepowered.asm.mixin.injection.throwables.InvalidInjectionException;
 import org.spongepowered.asm.util.Bytecode;
-import org.spongepowered.asm.util.Locals;
 import org.spongepowered.asm.util.SignaturePrinter;
 
 /**
@@ -178,7 +177,7 @@ public class ModifyConstantInjector extends RedirectInjector {
                     + SignaturePrinter.getTypeName(target.returnType, false));
         } else if (pop.getOpcode() == Opcodes.ISTORE) { // Integer store, attempt to get the relevant local type
             int var = ((VarInsnNode)pop).var;
-            LocalVariableNode localVar = Locals.getLocalVariableAt(target.classNode, target.method, pop, var);
+            LocalVariableNode localVar = target.getLocalVariableAt(pop, var);
 
             // Frankly this will not work in 90% of cases, it basically only works if the variable being assigned is actually
             // a method argument, and is pretty much never going to work for any other type of local variable
@@ -504,8 +504,8 @@ public class RedirectInjector extends InvokeInjector {
         
         if (!this.isStatic) {
             VarInsnNode loadThis = new VarInsnNode(Opcodes.ALOAD, 0);
-            field.target.insns.insert(field.node, loadThis);
-            field.target.insns.insert(loadThis, new InsnNode(Opcodes.SWAP));
+            field.target.insert(field.node, loadThis);
+            field.target.insert(loadThis, new InsnNode(Opcodes.SWAP));
             extraStack.add();
         }
         
@@ -24,8 +24,12 @@
  */
 package org.spongepowered.asm.mixin.injection.invoke.arg;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.spongepowered.asm.logging.ILogger;
 import org.objectweb.asm.ClassVisitor;
@@ -102,7 +106,7 @@ public final class ArgsClassGenerator implements IClassGenerator {
 
         final Type[] args;
         
-        int loaded = 0;
+        volatile int loaded = 0;
 
         ArgsClassInfo(IMixinInfo mixin, String name, String desc) {
             super(mixin, name);
@@ -137,9 +141,16 @@ public final class ArgsClassGenerator implements IClassGenerator {
     private final Map<String, ArgsClassInfo> descToClass = new HashMap<String, ArgsClassInfo>();
     
     /**
-     * Map of class names to generated class infos
+     * Map of class names to generated class infos, read without holding the
+     * generator lock when classes are generated
      */
-    private final Map<String, ArgsClassInfo> nameToClass = new HashMap<String, ArgsClassInfo>();
+    private final Map<String, ArgsClassInfo> nameToClass = new ConcurrentHashMap<String, ArgsClassInfo>();
+    
+    /**
+     * Class names which are already in use, eg. by classes generated ahead of
+     * time, and must be skipped when allocating new names
+     */
+    private final Set<String> reservedNames = new HashSet<String>();
     
     /**
      * Ctor
@@ -158,6 +169,19 @@ public final class ArgsClassGenerator implements IClassGenerator {
     public String getName() {
         return "args";
     }
+    
+    /**
+     * Reserve the specified class names so that they are never allocated to
+     * Args subclasses generated by this generator. Names may be supplied in
+     * either internal or binary format.
+     * 
+     * @param names class names to reserve
+     */
+    public synchronized void reserveNames(Collection<String> names) {
+        for (String name : names) {
+            this.reservedNames.add(name.replace('/', '.'));
+        }
+    }
 
     /**
      * Get (or generate) the class name for the specified descriptor. The class
@@ -171,11 +195,14 @@ public final class ArgsClassGenerator implements IClassGenerator {
      *      debugging only anyway
      * @return name of the Args subclass to use
      */
-    public ISyntheticClassInfo getArgsClass(String desc, IMixinInfo mixin) {
+    public synchronized ISyntheticClassInfo getArgsClass(String desc, IMixinInfo mixin) {
         String voidDesc = Bytecode.changeDescriptorReturnType(desc, "V");
         ArgsClassInfo info = this.descToClass.get(voidDesc);
         if (info == null) {
-            String name = String.format("%s%d", ArgsClassGenerator.CLASS_NAME_BASE, this.nextIndex++);
+            String name;
+            do {
+                name = String.format("%s%d", ArgsClassGenerator.CLASS_NAME_BASE, this.nextIndex++);
+            } while (this.reservedNames.contains(name));
             ArgsClassGenerator.logger.debug("ArgsClassGenerator assigning {} for descriptor {}", name, voidDesc);
             info = new ArgsClassInfo(mixin, name, voidDesc);
             this.descToClass.put(voidDesc, info);
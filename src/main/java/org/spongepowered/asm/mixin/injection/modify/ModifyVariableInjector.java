@@ -215,7 +215,7 @@ public class ModifyVariableInjector extends Injector {
         }
         
         extraStack.apply();
-        target.insns.insertBefore(context.node, context.insns);
+        target.insertBefore(context.node, context.insns);
     }
 
     /**
@@ -27,8 +27,8 @@ package org.spongepowered.asm.mixin.injection.points;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Locale;
 import java.util.Set;
 
@@ -46,6 +46,7 @@ import org.spongepowered.asm.mixin.injection.Constant.Condition;
 import org.spongepowered.asm.mixin.injection.InjectionPoint;
 import org.spongepowered.asm.mixin.injection.InjectionPoint.AtCode;
 import org.spongepowered.asm.mixin.injection.struct.InjectionPointData;
+import org.spongepowered.asm.mixin.injection.struct.InsnIndex;
 import org.spongepowered.asm.mixin.injection.throwables.InvalidInjectionException;
 import org.spongepowered.asm.mixin.refmap.IMixinContext;
 import org.spongepowered.asm.service.MixinService;
@@ -228,9 +229,14 @@ public class BeforeConstant extends InjectionPoint {
 
         this.log("BeforeConstant is searching for constants in method with descriptor {}", desc);
         
-        ListIterator<AbstractInsnNode> iter = insns.iterator();
+        // Conditional expansion depends on the preceding insn, so scan
+        InsnIndex index = this.expand ? null : InjectionPoint.getIndex(insns);
+        Iterator<? extends AbstractInsnNode> iter = index != null ? this.getCandidates(index).iterator() : insns.iterator();
         for (int ordinal = 0, last = 0; iter.hasNext();) {
             AbstractInsnNode insn = iter.next();
+            if (index != null && insns.indexOf(insn) < 0) {
+                continue;
+            }
 
             boolean matchesInsn = this.expand ? this.matchesConditionalInsn(last, insn) : this.matchesConstantInsn(insn);
             if (matchesInsn) {
@@ -251,6 +257,24 @@ public class BeforeConstant extends InjectionPoint {
         return found;
     }
 
+    /**
+     * Get the constant insns from the index which can match this point
+     */
+    private List<AbstractInsnNode> getCandidates(InsnIndex index) {
+        if (this.matchByType != null) {
+            return index.getConstants();
+        }
+        
+        // Only one value is permitted, see validateDiscriminator
+        for (Object value : new Object[] { this.nullValue ? Type.VOID_TYPE : null, this.intValue, this.floatValue, this.longValue,
+                this.doubleValue, this.stringValue, this.typeValue }) {
+            if (value != null) {
+                return index.getConstants(value);
+            }
+        }
+        return index.getConstants();
+    }
+
     private boolean matchesConditionalInsn(int last, AbstractInsnNode insn) {
         for (int conditionalOpcode : this.expandOpcodes) {
             int opcode = insn.getOpcode();
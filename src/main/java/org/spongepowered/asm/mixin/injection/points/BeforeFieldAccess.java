@@ -26,6 +26,7 @@ package org.spongepowered.asm.mixin.injection.points;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
@@ -33,10 +34,13 @@ import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.InsnList;
 import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.InjectionPoint;
 import org.spongepowered.asm.mixin.injection.InjectionPoint.AtCode;
 import org.spongepowered.asm.mixin.injection.Redirect;
 import org.spongepowered.asm.mixin.injection.selectors.ITargetSelector;
 import org.spongepowered.asm.mixin.injection.struct.InjectionPointData;
+import org.spongepowered.asm.mixin.injection.struct.InsnIndex;
+import org.spongepowered.asm.mixin.injection.struct.MemberInfo;
 import org.spongepowered.asm.util.Bytecode;
 
 /**
@@ -152,6 +156,17 @@ public class BeforeFieldAccess extends BeforeInvoke {
         return this.arrOpcode;
     }
 
+    @Override
+    protected List<? extends AbstractInsnNode> getCandidates(InsnList insns, ITargetSelector selector) {
+        // Subclasses may override matchesInsn, so only use the index here
+        InsnIndex index = this.getClass() == BeforeFieldAccess.class ? InjectionPoint.getIndex(insns) : null;
+        if (index == null) {
+            return null;
+        }
+        String name = selector instanceof MemberInfo ? ((MemberInfo)selector).getName() : null;
+        return name != null ? index.getFieldInsns(name) : index.getFieldInsns();
+    }
+
     @Override
     protected boolean matchesInsn(AbstractInsnNode insn) {
         if (insn instanceof FieldInsnNode && (((FieldInsnNode) insn).getOpcode() == this.opcode || this.opcode == -1)) {
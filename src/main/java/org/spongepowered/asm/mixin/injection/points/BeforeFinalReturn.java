@@ -100,4 +100,33 @@ public class BeforeFinalReturn extends InjectionPoint {
         nodes.add(ret);
         return true;
     }
+    
+    @Override
+    public Matcher getMatcher(String desc) {
+        final int returnOpcode = Type.getReturnType(desc).getOpcode(Opcodes.IRETURN);
+        
+        return new Matcher() {
+            
+            private AbstractInsnNode ret;
+            
+            @Override
+            public void accept(AbstractInsnNode insn) {
+                if (insn instanceof InsnNode && insn.getOpcode() == returnOpcode) {
+                    this.ret = insn;
+                }
+            }
+            
+            @Override
+            public boolean complete(InsnList insns, Collection<AbstractInsnNode> nodes) {
+                if (this.ret == null) {
+                    // Let find() raise the error
+                    return false;
+                }
+                
+                nodes.add(this.ret);
+                return true;
+            }
+            
+        };
+    }
 }
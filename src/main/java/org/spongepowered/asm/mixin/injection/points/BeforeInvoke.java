@@ -25,7 +25,8 @@
 package org.spongepowered.asm.mixin.injection.points;
 
 import java.util.Collection;
-import java.util.ListIterator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 
 import org.spongepowered.asm.logging.ILogger;
@@ -43,6 +44,7 @@ import org.spongepowered.asm.mixin.injection.selectors.ITargetSelectorByName;
 import org.spongepowered.asm.mixin.injection.selectors.ITargetSelector.Configure;
 import org.spongepowered.asm.mixin.injection.selectors.throwables.SelectorConstraintException;
 import org.spongepowered.asm.mixin.injection.struct.InjectionPointData;
+import org.spongepowered.asm.mixin.injection.struct.InsnIndex;
 import org.spongepowered.asm.mixin.injection.struct.MemberInfo;
 import org.spongepowered.asm.mixin.refmap.IMixinContext;
 import org.spongepowered.asm.service.MixinService;
@@ -189,9 +191,13 @@ public class BeforeInvoke extends InjectionPoint {
         
         int ordinal = 0, found = 0, matchCount = 0;
         
-        ListIterator<AbstractInsnNode> iter = insns.iterator();
+        List<? extends AbstractInsnNode> candidates = this.getCandidates(insns, target);
+        Iterator<? extends AbstractInsnNode> iter = candidates != null ? candidates.iterator() : insns.iterator();
         while (iter.hasNext()) {
             AbstractInsnNode insn = iter.next();
+            if (candidates != null && insns.indexOf(insn) < 0) {
+                continue;
+            }
 
             if (this.matchesInsn(insn)) {
                 MemberInfo nodeInfo = new MemberInfo(insn);
@@ -215,7 +221,9 @@ public class BeforeInvoke extends InjectionPoint {
                 }
             }
 
-            this.inspectInsn(desc, insns, insn);
+            if (candidates == null) {
+                this.inspectInsn(desc, insns, insn);
+            }
         }
         
         if (searchType == SearchType.PERMISSIVE && found > 1) {
@@ -231,6 +239,32 @@ public class BeforeInvoke extends InjectionPoint {
         return found > 0;
     }
 
+    /**
+     * Get the instructions to consider from the instruction index of the
+     * target, in order. Only instructions which can pass {@link #matchesInsn}
+     * need to be returned. If this method returns null then every instruction
+     * in the list is considered and passed to {@link #inspectInsn}, so
+     * subclasses which override <tt>inspectInsn</tt> must return null.
+     * 
+     * <p>The index is only used by the built-in injection points. Subclasses
+     * which do not override this method scan the whole list, since they may
+     * override {@link #matchesInsn} to accept other instructions.</p>
+     * 
+     * @param insns Insn list being searched
+     * @param selector Selector being matched, after configuration
+     * @return candidate instructions or null to scan the whole list
+     */
+    protected List<? extends AbstractInsnNode> getCandidates(InsnList insns, ITargetSelector selector) {
+        Class<?> type = this.getClass();
+        InsnIndex index = type == BeforeInvoke.class || type == AfterInvoke.class ? InjectionPoint.getIndex(insns) : null;
+        if (index == null) {
+            return null;
+        }
+        // An exact match for a MemberInfo requires the name to be equal
+        String name = selector instanceof MemberInfo ? ((MemberInfo)selector).getName() : null;
+        return name != null ? index.getInvokes(name) : index.getInvokes();
+    }
+
     protected boolean addInsn(InsnList insns, Collection<AbstractInsnNode> nodes, AbstractInsnNode insn) {
         nodes.add(insn);
         return true;
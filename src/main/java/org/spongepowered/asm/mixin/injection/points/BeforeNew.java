@@ -27,7 +27,6 @@ package org.spongepowered.asm.mixin.injection.points;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.ListIterator;
 
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
@@ -41,6 +40,7 @@ import org.spongepowered.asm.mixin.injection.selectors.ITargetSelector;
 import org.spongepowered.asm.mixin.injection.selectors.ITargetSelectorConstructor;
 import org.spongepowered.asm.mixin.injection.selectors.TargetSelector;
 import org.spongepowered.asm.mixin.injection.struct.InjectionPointData;
+import org.spongepowered.asm.mixin.injection.struct.InsnIndex;
 import org.spongepowered.asm.mixin.injection.throwables.InvalidInjectionPointException;
 import org.spongepowered.asm.util.Constants;
 
@@ -144,9 +144,14 @@ public class BeforeNew extends InjectionPoint {
 
         Collection<TypeInsnNode> newNodes = new ArrayList<TypeInsnNode>();
         Collection<AbstractInsnNode> candidates = (Collection<AbstractInsnNode>) (this.desc != null ? newNodes : nodes);
-        ListIterator<AbstractInsnNode> iter = insns.iterator();
+        InsnIndex index = InjectionPoint.getIndex(insns);
+        Iterator<? extends AbstractInsnNode> iter = index != null
+                ? (this.target != null ? index.getNewInsns(this.target) : index.getNewInsns()).iterator() : insns.iterator();
         while (iter.hasNext()) {
             AbstractInsnNode insn = iter.next();
+            if (index != null && insns.indexOf(insn) < 0) {
+                continue;
+            }
 
             if (insn instanceof TypeInsnNode && insn.getOpcode() == Opcodes.NEW && this.matchesOwner((TypeInsnNode) insn)) {
                 if (this.ordinal == -1 || this.ordinal == ordinal) {
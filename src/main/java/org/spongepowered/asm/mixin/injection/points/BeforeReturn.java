@@ -24,7 +24,9 @@
  */
 package org.spongepowered.asm.mixin.injection.points;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.ListIterator;
 
 import org.objectweb.asm.Opcodes;
@@ -114,4 +116,33 @@ public class BeforeReturn extends InjectionPoint {
 
         return found;
     }
+    
+    @Override
+    public Matcher getMatcher(String desc) {
+        final int returnOpcode = Type.getReturnType(desc).getOpcode(Opcodes.IRETURN);
+        final List<AbstractInsnNode> matched = new ArrayList<AbstractInsnNode>();
+        
+        return new Matcher() {
+            
+            private int ordinal = 0;
+            
+            @Override
+            public void accept(AbstractInsnNode insn) {
+                if (insn instanceof InsnNode && insn.getOpcode() == returnOpcode) {
+                    if (BeforeReturn.this.ordinal == -1 || BeforeReturn.this.ordinal == this.ordinal) {
+                        matched.add(insn);
+                    }
+                    
+                    this.ordinal++;
+                }
+            }
+            
+            @Override
+            public boolean complete(InsnList insns, Collection<AbstractInsnNode> nodes) {
+                nodes.addAll(matched);
+                return true;
+            }
+            
+        };
+    }
 }
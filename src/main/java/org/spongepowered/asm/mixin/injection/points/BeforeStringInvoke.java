@@ -25,6 +25,7 @@
 package org.spongepowered.asm.mixin.injection.points;
 
 import java.util.Collection;
+import java.util.List;
 
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.InsnList;
@@ -117,6 +118,12 @@ public class BeforeStringInvoke extends BeforeInvoke {
         return super.find(desc, insns, nodes);
     }
 
+    @Override
+    protected List<? extends AbstractInsnNode> getCandidates(InsnList insns, ITargetSelector selector) {
+        // The preceding LDC must be inspected, so scan every insn
+        return null;
+    }
+
     @Override
     protected void inspectInsn(String desc, InsnList insns, AbstractInsnNode insn) {
         if (insn instanceof LdcInsnNode) {
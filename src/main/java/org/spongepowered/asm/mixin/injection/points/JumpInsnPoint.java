@@ -25,7 +25,7 @@
 package org.spongepowered.asm.mixin.injection.points;
 
 import java.util.Collection;
-import java.util.ListIterator;
+import java.util.Iterator;
 
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
@@ -34,6 +34,7 @@ import org.objectweb.asm.tree.JumpInsnNode;
 import org.spongepowered.asm.mixin.injection.InjectionPoint;
 import org.spongepowered.asm.mixin.injection.InjectionPoint.AtCode;
 import org.spongepowered.asm.mixin.injection.struct.InjectionPointData;
+import org.spongepowered.asm.mixin.injection.struct.InsnIndex;
 
 /**
  * <p>This injection point searches for JUMP opcodes (if, try/catch, continue,
@@ -86,9 +87,14 @@ public class JumpInsnPoint extends InjectionPoint {
         boolean found = false;
         int ordinal = 0;
 
-        ListIterator<AbstractInsnNode> iter = insns.iterator();
+        InsnIndex index = InjectionPoint.getIndex(insns);
+        Iterator<? extends AbstractInsnNode> iter = index != null
+                ? (this.opCode == -1 ? index.getJumps() : index.getJumps(this.opCode)).iterator() : insns.iterator();
         while (iter.hasNext()) {
             AbstractInsnNode insn = iter.next();
+            if (index != null && insns.indexOf(insn) < 0) {
+                continue;
+            }
 
             if (insn instanceof JumpInsnNode && (this.opCode == -1 || insn.getOpcode() == this.opCode)) {
                 if (this.ordinal == -1 || this.ordinal == ordinal) {
@@ -24,6 +24,8 @@
  */
 package org.spongepowered.asm.mixin.injection.selectors;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -103,6 +105,13 @@ public final class MemberMatcher implements ITargetSelector {
      */
     private final String input;
     
+    /**
+     * Matchers which have already been parsed, keyed by input string. The
+     * patterns do not depend on the selector context so parsed matchers can
+     * be shared.
+     */
+    private static final Map<String, MemberMatcher> parsed = new ConcurrentHashMap<String, MemberMatcher>();
+    
     private MemberMatcher(Pattern[] patterns, Exception parseException, String input) {
         this.patterns = patterns;
         this.parseException = parseException;
@@ -117,6 +126,15 @@ public final class MemberMatcher implements ITargetSelector {
      * @return parsed MemberMatcher
      */
     public static MemberMatcher parse(final String input, ISelectorContext context) {
+        MemberMatcher memberMatcher = MemberMatcher.parsed.get(input);
+        if (memberMatcher == null) {
+            memberMatcher = MemberMatcher.parse(input);
+            MemberMatcher.parsed.put(input, memberMatcher);
+        }
+        return memberMatcher;
+    }
+    
+    private static MemberMatcher parse(final String input) {
         Matcher matcher = MemberMatcher.PATTERN.matcher(input);
         Pattern[] patterns = new Pattern[3];
         Exception parseException = null;
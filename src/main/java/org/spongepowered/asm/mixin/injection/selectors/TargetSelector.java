@@ -155,6 +155,23 @@ public final class TargetSelector {
 
             this.annotation = annotation;
             this.mdParseAnnotation = mdParseAnnotation;
+            DynamicSelectorEntry.setAccessible(this.mdParseString);
+            DynamicSelectorEntry.setAccessible(this.mdParseAnnotation);
+        }
+        
+        /**
+         * Suppress access checks on the parse methods up front, since they are
+         * invoked for every dynamic selector which is parsed
+         */
+        private static void setAccessible(Method method) {
+            if (method == null) {
+                return;
+            }
+            try {
+                method.setAccessible(true);
+            } catch (SecurityException ex) {
+                // Fall back to checked invocation
+            }
         }
         
         String getCode() {
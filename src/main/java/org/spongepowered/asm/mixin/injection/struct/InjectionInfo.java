@@ -31,6 +31,7 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -50,6 +51,7 @@ import org.spongepowered.asm.mixin.extensibility.IActivityContext.IActivity;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.InjectionPoint;
 import org.spongepowered.asm.mixin.injection.code.ISliceContext;
+import org.spongepowered.asm.mixin.injection.code.InjectionPointBatch;
 import org.spongepowered.asm.mixin.injection.code.Injector;
 import org.spongepowered.asm.mixin.injection.code.InjectorTarget;
 import org.spongepowered.asm.mixin.injection.code.MethodSlice;
@@ -314,6 +316,12 @@ public abstract class InjectionInfo extends SpecialMethodInfo implements ISliceC
      */
     protected final Map<Target, List<InjectionNode>> targetNodes = new LinkedHashMap<Target, List<InjectionNode>>();
     
+    /**
+     * Injector targets created by {@link #collectInjectionPoints}, consumed
+     * by {@link #prepare}
+     */
+    private final Map<SelectedMethod, InjectorTarget> injectorTargets = new LinkedHashMap<SelectedMethod, InjectorTarget>();
+    
     /**
      * Number of target methods identified by the injection points 
      */
@@ -488,6 +496,25 @@ public abstract class InjectionInfo extends SpecialMethodInfo implements ISliceC
         return injectorOrder != null ? injectorOrder.value() : InjectorOrder.DEFAULT;
     }
     
+    /**
+     * Add the injection points of this injector to the supplied batch, so that
+     * they can be resolved in the same pass over each target method as the
+     * injection points of other injectors. Must be called before
+     * {@link #prepare}.
+     * 
+     * @param batch batch to add injection points to
+     */
+    public void collectInjectionPoints(InjectionPointBatch batch) {
+        for (SelectedMethod targetMethod : this.targets) {
+            Target target = this.mixin.getTargetMethod(targetMethod.getMethod());
+            InjectorTarget injectorTarget = new InjectorTarget(this, target, targetMethod);
+            this.injectorTargets.put(targetMethod, injectorTarget);
+            for (InjectionPoint injectionPoint : this.injectionPoints) {
+                batch.add(injectorTarget, injectionPoint);
+            }
+        }
+    }
+    
     /**
      * Discover injection points
      */
@@ -498,8 +525,11 @@ public abstract class InjectionInfo extends SpecialMethodInfo implements ISliceC
             IActivity activity = this.activities.begin("?");
             for (SelectedMethod targetMethod : this.targets) {
                 activity.next("{ target: %s }", targetMethod);
-                Target target = this.mixin.getTargetMethod(targetMethod.getMethod());
-                InjectorTarget injectorTarget = new InjectorTarget(this, target, targetMethod);
+                InjectorTarget injectorTarget = this.injectorTargets.remove(targetMethod);
+                if (injectorTarget == null) {
+                    injectorTarget = new InjectorTarget(this, this.mixin.getTargetMethod(targetMethod.getMethod()), targetMethod);
+                }
+                Target target = injectorTarget.getTarget();
                 try {
                     this.targetNodes.put(target, this.injector.find(injectorTarget, this.injectionPoints));
                 } catch (SelectorException ex) {
@@ -517,6 +547,11 @@ public abstract class InjectionInfo extends SpecialMethodInfo implements ISliceC
         } catch (Exception ex) {
             throw new InvalidMixinException(this.mixin, "Unexpecteded " + ex.getClass().getSimpleName() + " preparing "
                     + this.getElementDescription(), ex, this.activities);
+        } finally {
+            for (InjectorTarget injectorTarget : this.injectorTargets.values()) {
+                injectorTarget.dispose();
+            }
+            this.injectorTargets.clear();
         }
     }
     
@@ -597,6 +632,15 @@ public abstract class InjectionInfo extends SpecialMethodInfo implements ISliceC
         return this.targets.size();
     }
     
+    /**
+     * Get the injection points parsed for this injector
+     * 
+     * @return read-only view of the injection points
+     */
+    public List<InjectionPoint> getInjectionPoints() {
+        return Collections.<InjectionPoint>unmodifiableList(this.injectionPoints);
+    }
+    
     /**
      * Get the slice descriptors
      */
@@ -0,0 +1,307 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.injection.struct;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+import org.spongepowered.asm.util.Bytecode;
+
+/**
+ * Index of the instructions in a {@link Target} method which are of interest
+ * to the built-in injection points, so that each injection point can visit
+ * only the candidate instructions rather than scanning the whole method. The
+ * index is built on demand by {@link Target#getIndex} and is kept up to date
+ * as injectors modify the method via the target.
+ * 
+ * <p>Method and field instructions are keyed by member name, since this is
+ * the only part of a selector which must always match exactly. Constants are
+ * keyed by value, <tt>NEW</tt> instructions by type and jumps by opcode. All
+ * lists returned by the index are in instruction order, and are read-only
+ * views which must not be retained whilst the method is being modified.</p>
+ */
+public final class InsnIndex {
+    
+    /**
+     * Instructions of the target method
+     */
+    private final InsnList insns;
+    
+    /**
+     * Orders instructions by their position in the method
+     */
+    private final Comparator<AbstractInsnNode> order = new Comparator<AbstractInsnNode>() {
+        @Override
+        public int compare(AbstractInsnNode a, AbstractInsnNode b) {
+            int indexA = InsnIndex.this.insns.indexOf(a), indexB = InsnIndex.this.insns.indexOf(b);
+            return indexA < indexB ? -1 : indexA > indexB ? 1 : 0;
+        }
+    };
+    
+    private final List<MethodInsnNode> invokes = new ArrayList<MethodInsnNode>();
+    
+    private final Map<String, List<MethodInsnNode>> invokesByName = new HashMap<String, List<MethodInsnNode>>();
+    
+    private final List<FieldInsnNode> fieldInsns = new ArrayList<FieldInsnNode>();
+    
+    private final Map<String, List<FieldInsnNode>> fieldInsnsByName = new HashMap<String, List<FieldInsnNode>>();
+    
+    private final List<AbstractInsnNode> constants = new ArrayList<AbstractInsnNode>();
+    
+    private final Map<Object, List<AbstractInsnNode>> constantsByValue = new HashMap<Object, List<AbstractInsnNode>>();
+    
+    private final List<TypeInsnNode> newInsns = new ArrayList<TypeInsnNode>();
+    
+    private final Map<String, List<TypeInsnNode>> newInsnsByType = new HashMap<String, List<TypeInsnNode>>();
+    
+    private final List<JumpInsnNode> jumps = new ArrayList<JumpInsnNode>();
+    
+    private final Map<Integer, List<JumpInsnNode>> jumpsByOpcode = new HashMap<Integer, List<JumpInsnNode>>();
+    
+    /**
+     * Lists which have had instructions added since they were last sorted
+     */
+    private final Set<List<? extends AbstractInsnNode>> unsorted =
+            Collections.<List<? extends AbstractInsnNode>>newSetFromMap(new IdentityHashMap<List<? extends AbstractInsnNode>, Boolean>());
+    
+    /**
+     * Expected size of the instruction list, used to detect modifications
+     * which were not reported to the index
+     */
+    private int size;
+
+    InsnIndex(InsnList insns) {
+        this.insns = insns;
+        for (AbstractInsnNode insn : insns.toArray()) {
+            this.index(insn);
+        }
+        this.unsorted.clear();
+        this.size = insns.size();
+    }
+    
+    /**
+     * Get whether this index still reflects the instruction list, returns
+     * false if the list was modified without notifying the index. As well as
+     * the size of the list, every indexed instruction is checked against the
+     * list so that instructions replaced with {@link InsnList#set} are
+     * detected.
+     */
+    boolean isValid() {
+        return this.size == this.insns.size() && this.contains(this.invokes) && this.contains(this.fieldInsns)
+                && this.contains(this.constants) && this.contains(this.newInsns) && this.contains(this.jumps);
+    }
+    
+    private boolean contains(List<? extends AbstractInsnNode> indexed) {
+        for (AbstractInsnNode insn : indexed) {
+            int pos = this.insns.indexOf(insn);
+            if (pos < 0 || pos >= this.size || this.insns.get(pos) != insn) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Notify the index that the specified instructions were added to the
+     * method
+     * 
+     * @param added instructions which were added
+     */
+    void add(AbstractInsnNode... added) {
+        for (AbstractInsnNode insn : added) {
+            this.index(insn);
+        }
+        this.size += added.length;
+    }
+    
+    /**
+     * Notify the index that the specified instruction was removed from the
+     * method
+     * 
+     * @param removed instruction which was removed
+     */
+    void remove(AbstractInsnNode removed) {
+        if (removed instanceof MethodInsnNode) {
+            InsnIndex.remove(this.invokes, this.invokesByName, ((MethodInsnNode)removed).name, removed);
+        } else if (removed instanceof FieldInsnNode) {
+            InsnIndex.remove(this.fieldInsns, this.fieldInsnsByName, ((FieldInsnNode)removed).name, removed);
+        } else if (removed instanceof JumpInsnNode) {
+            InsnIndex.remove(this.jumps, this.jumpsByOpcode, Integer.valueOf(removed.getOpcode()), removed);
+        } else if (removed instanceof TypeInsnNode && removed.getOpcode() == Opcodes.NEW) {
+            InsnIndex.remove(this.newInsns, this.newInsnsByType, ((TypeInsnNode)removed).desc, removed);
+        }
+        if (Bytecode.isConstant(removed)) {
+            InsnIndex.remove(this.constants, this.constantsByValue, Bytecode.getConstant(removed), removed);
+        }
+        this.size--;
+    }
+    
+    private void index(AbstractInsnNode insn) {
+        if (insn instanceof MethodInsnNode) {
+            MethodInsnNode methodInsn = (MethodInsnNode)insn;
+            this.add(this.invokes, this.invokesByName, methodInsn.name, methodInsn);
+        } else if (insn instanceof FieldInsnNode) {
+            FieldInsnNode fieldInsn = (FieldInsnNode)insn;
+            this.add(this.fieldInsns, this.fieldInsnsByName, fieldInsn.name, fieldInsn);
+        } else if (insn instanceof JumpInsnNode) {
+            this.add(this.jumps, this.jumpsByOpcode, Integer.valueOf(insn.getOpcode()), (JumpInsnNode)insn);
+        } else if (insn instanceof TypeInsnNode && insn.getOpcode() == Opcodes.NEW) {
+            TypeInsnNode typeInsn = (TypeInsnNode)insn;
+            this.add(this.newInsns, this.newInsnsByType, typeInsn.desc, typeInsn);
+        }
+        if (Bytecode.isConstant(insn)) {
+            this.add(this.constants, this.constantsByValue, Bytecode.getConstant(insn), insn);
+        }
+    }
+    
+    private <K, T extends AbstractInsnNode> void add(List<T> all, Map<K, List<T>> byKey, K key, T insn) {
+        all.add(insn);
+        this.unsorted.add(all);
+        if (key != null) {
+            List<T> bucket = byKey.get(key);
+            if (bucket == null) {
+                bucket = new ArrayList<T>();
+                byKey.put(key, bucket);
+            }
+            bucket.add(insn);
+            this.unsorted.add(bucket);
+        }
+    }
+    
+    private static <K, T extends AbstractInsnNode> void remove(List<T> all, Map<K, List<T>> byKey, K key, AbstractInsnNode insn) {
+        all.remove(insn);
+        List<T> bucket = key != null ? byKey.get(key) : null;
+        if (bucket != null) {
+            bucket.remove(insn);
+        }
+    }
+    
+    private <T extends AbstractInsnNode> List<T> sorted(List<T> insns) {
+        if (insns == null) {
+            return Collections.<T>emptyList();
+        }
+        if (this.unsorted.remove(insns)) {
+            Collections.sort(insns, this.order);
+        }
+        return Collections.<T>unmodifiableList(insns);
+    }
+    
+    /**
+     * Get all method invocations in the method
+     */
+    public List<MethodInsnNode> getInvokes() {
+        return this.sorted(this.invokes);
+    }
+    
+    /**
+     * Get all invocations of methods with the specified name
+     * 
+     * @param name method name
+     */
+    public List<MethodInsnNode> getInvokes(String name) {
+        return this.sorted(this.invokesByName.get(name));
+    }
+    
+    /**
+     * Get all field accesses in the method
+     */
+    public List<FieldInsnNode> getFieldInsns() {
+        return this.sorted(this.fieldInsns);
+    }
+    
+    /**
+     * Get all accesses to fields with the specified name
+     * 
+     * @param name field name
+     */
+    public List<FieldInsnNode> getFieldInsns(String name) {
+        return this.sorted(this.fieldInsnsByName.get(name));
+    }
+    
+    /**
+     * Get all constant instructions in the method, as identified by
+     * {@link Bytecode#isConstant}
+     */
+    public List<AbstractInsnNode> getConstants() {
+        return this.sorted(this.constants);
+    }
+    
+    /**
+     * Get all constant instructions with the specified value, as returned by
+     * {@link Bytecode#getConstant}
+     * 
+     * @param value constant value, use {@link org.objectweb.asm.Type#VOID_TYPE}
+     *      for <tt>null</tt> constants
+     */
+    public List<AbstractInsnNode> getConstants(Object value) {
+        return this.sorted(this.constantsByValue.get(value));
+    }
+    
+    /**
+     * Get all <tt>NEW</tt> instructions in the method
+     */
+    public List<TypeInsnNode> getNewInsns() {
+        return this.sorted(this.newInsns);
+    }
+    
+    /**
+     * Get all <tt>NEW</tt> instructions for the specified type
+     * 
+     * @param type internal name of the type
+     */
+    public List<TypeInsnNode> getNewInsns(String type) {
+        return this.sorted(this.newInsnsByType.get(type));
+    }
+    
+    /**
+     * Get all jump instructions in the method
+     */
+    public List<JumpInsnNode> getJumps() {
+        return this.sorted(this.jumps);
+    }
+    
+    /**
+     * Get all jump instructions with the specified opcode
+     * 
+     * @param opcode jump opcode
+     */
+    public List<JumpInsnNode> getJumps(int opcode) {
+        return this.sorted(this.jumpsByOpcode.get(Integer.valueOf(opcode)));
+    }
+
+}
@@ -24,6 +24,9 @@
  */
 package org.spongepowered.asm.mixin.injection.struct;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.FieldInsnNode;
@@ -217,10 +220,49 @@ import com.google.common.base.Strings;
  */
 public final class MemberInfo implements ITargetSelectorRemappable, ITargetSelectorConstructor {
 
+    /**
+     * Normalised selector string, split into name and tail but not yet
+     * remapped. Since the remapped name depends on the context the selector is
+     * parsed in, parsed members are stored per remapped name.
+     */
+    static final class ParsedInput {
+        
+        final String name;
+        
+        final String tail;
+        
+        /**
+         * Parsed members, keyed by remapped name
+         */
+        final Map<String, MemberInfo> members = new ConcurrentHashMap<String, MemberInfo>(4);
+        
+        ParsedInput(String input) {
+            String name = input.replaceAll("\\s", "");
+            String tail = null;
+            
+            int arrowPos = name.indexOf(MemberInfo.ARROW);
+            if (arrowPos > -1) {
+                tail = name.substring(arrowPos + 2);
+                name = name.substring(0, arrowPos);
+            }
+            
+            this.name = name;
+            this.tail = tail;
+        }
+        
+    }
+
     /**
      * Separator for elements in the path
      */
     private static final String ARROW = "->";
+    
+    /**
+     * Selector strings which have already been parsed. The same selectors tend
+     * to appear many times across injectors and configs, and MemberInfo is
+     * immutable so parsed instances can be shared.
+     */
+    private static final Map<String, ParsedInput> parsed = new ConcurrentHashMap<String, ParsedInput>();
 
     /**
      * Member owner in internal form but without L;, can be null
@@ -869,20 +911,28 @@ public final class MemberInfo implements ITargetSelectorRemappable, ITargetSelec
      * @return parsed MemberInfo
      */
     public static MemberInfo parse(final String input, final ISelectorContext context) {
+        if (input == null) {
+            return MemberInfo.parse(input, context != null ? context.remap("") : "", null);
+        }
+        
+        ParsedInput parsed = MemberInfo.parsed.get(input);
+        if (parsed == null) {
+            parsed = new ParsedInput(input);
+            MemberInfo.parsed.put(input, parsed);
+        }
+        
+        String name = context != null ? context.remap(parsed.name) : parsed.name;
+        MemberInfo member = parsed.members.get(name);
+        if (member == null) {
+            member = MemberInfo.parse(input, name, parsed.tail);
+            parsed.members.put(name, member);
+        }
+        return member;
+    }
+    
+    private static MemberInfo parse(final String input, String name, final String tail) {
         String desc = null;
         String owner = null;
-        String name = Strings.nullToEmpty(input).replaceAll("\\s", "");
-        String tail = null;
-
-        int arrowPos = name.indexOf(MemberInfo.ARROW);
-        if (arrowPos > -1) {
-            tail = name.substring(arrowPos + 2);
-            name = name.substring(0, arrowPos);
-        }
-
-        if (context != null) {
-            name = context.remap(name);
-        }
 
         int lastDotPos = name.lastIndexOf('.');
         int semiColonPos = name.indexOf(';');
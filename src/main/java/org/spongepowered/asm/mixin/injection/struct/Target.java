@@ -25,8 +25,10 @@
 package org.spongepowered.asm.mixin.injection.struct;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
@@ -44,6 +46,8 @@ import org.spongepowered.asm.mixin.injection.struct.InjectionNodes.InjectionNode
 import org.spongepowered.asm.mixin.transformer.ClassInfo;
 import org.spongepowered.asm.util.Bytecode;
 import org.spongepowered.asm.util.Constants;
+import org.spongepowered.asm.util.Locals;
+import org.spongepowered.asm.util.Locals.Settings;
 import org.spongepowered.asm.util.Locals.SyntheticLocalVariableNode;
 
 /**
@@ -232,6 +236,29 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
      * Labels for LVT ranges, generated as needed 
      */
     private LabelNode start, end;
+    
+    /**
+     * Locals at each instruction for each set of locals settings, computed on
+     * demand and shared by all injectors working on this target until the
+     * method is modified
+     */
+    private Map<Settings, LocalVariableNode[][]> locals;
+    
+    /**
+     * Instructions at the time the locals were computed, used to detect
+     * modifications which were not made via this target
+     */
+    private AbstractInsnNode[] localsInsns;
+    
+    /**
+     * Size of the LVT and max locals at the time the locals were computed
+     */
+    private int localsLvtSize, localsMaxLocals;
+    
+    /**
+     * Index of instructions in the method, built on demand 
+     */
+    private InsnIndex index;
 
     /**
      * Make a new Target for the supplied method
@@ -594,6 +621,115 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
         return this.toString().compareTo(o.toString());
     }
     
+    /**
+     * Get the locals available at the specified instruction using the default
+     * settings. See {@link Locals#getLocalsAt} for details.
+     * 
+     * @param node instruction in this target
+     * @return A sparse array containing a view of the locals at the specified
+     *      location, callers are free to modify the returned array
+     */
+    public LocalVariableNode[] getLocalsAt(AbstractInsnNode node) {
+        return this.getLocalsAt(node, Settings.DEFAULT);
+    }
+    
+    /**
+     * Get the locals available at the specified instruction. The locals for
+     * the whole method are computed in a single pass the first time they are
+     * requested and are shared by all injectors until the method is modified.
+     * See {@link Locals#getLocalsAt} for details.
+     * 
+     * @param node instruction in this target
+     * @param settings Tunable settings for the locals state machine
+     * @return A sparse array containing a view of the locals at the specified
+     *      location, callers are free to modify the returned array
+     */
+    public LocalVariableNode[] getLocalsAt(AbstractInsnNode node, Settings settings) {
+        // Generating the LVT can insert labels, so do it before taking the index
+        Locals.getLocalVariableTable(this.classNode, this.method);
+        int index = this.insns.indexOf(node);
+        if (index < 0 || index >= this.insns.size() || this.insns.get(index) != node) {
+            // Not in this method, fall back to a walk which doesn't find it
+            return Locals.getLocalsAt(this.classNode, this.method, node, settings);
+        }
+        
+        if (this.locals == null || !this.isLocalsValid(node, index)) {
+            this.locals = new HashMap<Settings, LocalVariableNode[][]>();
+            this.localsInsns = this.insns.toArray();
+            this.localsLvtSize = this.method.localVariables != null ? this.method.localVariables.size() : 0;
+            this.localsMaxLocals = this.method.maxLocals;
+        }
+        
+        LocalVariableNode[][] frames = this.locals.get(settings);
+        if (frames == null) {
+            frames = Locals.getLocalsForMethod(this.classNode, this.method, settings);
+            this.locals.put(settings, frames);
+        }
+        return frames[index].clone();
+    }
+    
+    private boolean isLocalsValid(AbstractInsnNode node, int index) {
+        int lvtSize = this.method.localVariables != null ? this.method.localVariables.size() : 0;
+        return this.localsInsns.length == this.insns.size() && this.localsInsns[index] == node
+                && this.localsLvtSize == lvtSize && this.localsMaxLocals == this.method.maxLocals;
+    }
+    
+    /**
+     * Discard the computed locals, called whenever the method is modified
+     */
+    private void invalidateLocals() {
+        this.locals = null;
+        this.localsInsns = null;
+    }
+    
+    /**
+     * Get the index of the instructions in this target, the index is built
+     * the first time it is requested and is kept up to date as instructions
+     * are added and removed via this target. If the method is modified by
+     * other means then the index is rebuilt.
+     * 
+     * @return instruction index
+     */
+    public InsnIndex getIndex() {
+        if (this.index == null || !this.index.isValid()) {
+            this.index = new InsnIndex(this.insns);
+        }
+        return this.index;
+    }
+    
+    /**
+     * Update cached state after instructions are added to the method
+     */
+    private void added(AbstractInsnNode... added) {
+        this.invalidateLocals();
+        if (this.index != null) {
+            this.index.add(added);
+        }
+    }
+    
+    /**
+     * Update cached state after an instruction is removed from the method
+     */
+    private void removed(AbstractInsnNode insn) {
+        this.invalidateLocals();
+        if (this.index != null) {
+            this.index.remove(insn);
+        }
+    }
+    
+    /**
+     * Attempts to locate the appropriate entry in the local variable table for
+     * the specified local variable index at the specified instruction. See
+     * {@link Locals#getLocalVariableAt} for details.
+     * 
+     * @param node instruction in this target
+     * @param var local variable index
+     * @return local variable at the specified location, or null
+     */
+    public LocalVariableNode getLocalVariableAt(AbstractInsnNode node, int var) {
+        return Locals.getLocalVariableAt(this.classNode, this.method, node, var);
+    }
+    
     /**
      * Return the index of the specified instruction in this instruction list
      * 
@@ -665,7 +801,9 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
      * @param insns Instructions to insert
      */
     public void insert(InjectionNode location, final InsnList insns) {
+        AbstractInsnNode[] added = insns.toArray();
         this.insns.insert(location.getCurrentTarget(), insns);
+        this.added(added);
     }
     
     /**
@@ -676,6 +814,7 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
      */
     public void insert(InjectionNode location, final AbstractInsnNode insn) {
         this.insns.insert(location.getCurrentTarget(), insn);
+        this.added(insn);
     }
     
     /**
@@ -685,7 +824,9 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
      * @param insns Instructions to insert
      */
     public void insert(AbstractInsnNode location, final InsnList insns) {
+        AbstractInsnNode[] added = insns.toArray();
         this.insns.insert(location, insns);
+        this.added(added);
     }
 
     /**
@@ -696,6 +837,7 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
      */
     public void insert(AbstractInsnNode location, final AbstractInsnNode insn) {
         this.insns.insert(location, insn);
+        this.added(insn);
     }
 
     /**
@@ -705,7 +847,9 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
      * @param insns Instructions to insert
      */
     public void insertBefore(InjectionNode location, final InsnList insns) {
+        AbstractInsnNode[] added = insns.toArray();
         this.insns.insertBefore(location.getCurrentTarget(), insns);
+        this.added(added);
     }
 
     /**
@@ -716,6 +860,7 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
      */
     public void insertBefore(InjectionNode location, final AbstractInsnNode insn) {
         this.insns.insertBefore(location.getCurrentTarget(), insn);
+        this.added(insn);
     }
     
     /**
@@ -725,7 +870,9 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
      * @param insns Instructions to insert
      */
     public void insertBefore(AbstractInsnNode location, final InsnList insns) {
+        AbstractInsnNode[] added = insns.toArray();
         this.insns.insertBefore(location, insns);
+        this.added(added);
     }
     
     /**
@@ -736,6 +883,7 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
      */
     public void insertBefore(AbstractInsnNode location, final AbstractInsnNode insn) {
         this.insns.insertBefore(location, insn);
+        this.added(insn);
     }
     
     /**
@@ -748,6 +896,8 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
     public InjectionNode replaceNode(AbstractInsnNode location, AbstractInsnNode insn) {
         this.insns.insertBefore(location, insn);
         this.insns.remove(location);
+        this.added(insn);
+        this.removed(location);
         return this.injectionNodes.replace(location, insn);
     }
     
@@ -760,8 +910,11 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
      * @param insns Instructions to actually insert (must contain champion)
      */
     public InjectionNode replaceNode(AbstractInsnNode location, AbstractInsnNode champion, InsnList insns) {
+        AbstractInsnNode[] added = insns.toArray();
         this.insns.insertBefore(location, insns);
         this.insns.remove(location);
+        this.added(added);
+        this.removed(location);
         return this.injectionNodes.replace(location, champion);
     }
     
@@ -775,8 +928,11 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
      * @param after Instructions to insert after the specified location
      */
     public InjectionNode wrapNode(AbstractInsnNode location, AbstractInsnNode champion, InsnList before, InsnList after) {
+        AbstractInsnNode[] addedBefore = before.toArray(), addedAfter = after.toArray();
         this.insns.insertBefore(location, before);
         this.insns.insert(location, after);
+        this.added(addedBefore);
+        this.added(addedAfter);
         return this.injectionNodes.replace(location, champion);
     }
 
@@ -788,7 +944,9 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
      * @param insns Instructions to replace with
      */
     public InjectionNode replaceNode(AbstractInsnNode location, InsnList insns) {
+        AbstractInsnNode[] added = insns.toArray();
         this.insns.insertBefore(location, insns);
+        this.added(added);
         return this.removeNode(location);
     }
     
@@ -800,6 +958,7 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
      */
     public InjectionNode removeNode(AbstractInsnNode insn) {
         this.insns.remove(insn);
+        this.removed(insn);
         return this.injectionNodes.remove(insn);
     }
 
@@ -824,6 +983,7 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
      * @param to end of range
      */
     public void addLocalVariable(int index, String name, String desc, LabelNode from, LabelNode to) {
+        this.invalidateLocals();
         if (from == null) {
             from = this.getStartLabel();
         }
@@ -852,6 +1012,7 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
     private LabelNode getStartLabel() {
         if (this.start == null) {
             this.insns.insert(this.start = new LabelNode());
+            this.added(this.start);
         }
         return this.start;
     }
@@ -862,6 +1023,7 @@ public class Target implements Comparable<Target>, Iterable<AbstractInsnNode> {
     private LabelNode getEndLabel() {
         if (this.end == null) {
             this.insns.add(this.end = new LabelNode());
+            this.added(this.end);
         }
         return this.end;
     }
@@ -0,0 +1,351 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+import org.spongepowered.asm.mixin.transformer.meta.MixinMerged;
+import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.util.Annotations;
+
+import com.google.common.base.Charsets;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Manifest written when mixins are applied ahead of time at build time,
+ * describing the classes in a jar which already have mixins applied. At
+ * runtime the processor combines the manifests named by {@link
+ * Option#AOT_MANIFEST} to recognise these classes and skip the mixins which
+ * were already applied, whilst replaying the side-effects of application.
+ * 
+ * <p>Each class entry records the mixins which were applied and the number of
+ * members they decorated with {@link MixinMerged}. An incoming class is only
+ * treated as pre-applied if its decorations match the entry, so if the
+ * original class is loaded instead of the pre-applied one, mixins are applied
+ * to it as normal.</p>
+ */
+public final class AotManifest {
+    
+    /**
+     * A class which had mixins applied at build time
+     */
+    public static final class Entry {
+        
+        /**
+         * Mixins applied to the class, in application order
+         */
+        @SerializedName("mixins")
+        private List<String> mixins = new ArrayList<String>();
+        
+        /**
+         * Number of members decorated with {@link MixinMerged}
+         */
+        @SerializedName("merged")
+        private int merged;
+        
+        /**
+         * Session ID of the build which applied the mixins, set when manifests
+         * from several builds are combined
+         */
+        private transient String sessionId;
+        
+        /**
+         * Get the class names of the mixins applied to the class
+         */
+        public List<String> getMixins() {
+            return Collections.<String>unmodifiableList(this.mixins);
+        }
+        
+        /**
+         * Get the number of members decorated with {@link MixinMerged}
+         */
+        public int getMergedCount() {
+            return this.merged;
+        }
+        
+    }
+    
+    /**
+     * Logger
+     */
+    private static final ILogger logger = MixinService.getService().getLogger("mixin");
+    
+    /**
+     * Session ID of the build which applied the mixins, recorded in the merged
+     * member decorations
+     */
+    @SerializedName("sessionId")
+    private String sessionId;
+    
+    /**
+     * Pre-applied classes by internal name
+     */
+    @SerializedName("classes")
+    private Map<String, Entry> classes = new TreeMap<String, Entry>();
+    
+    /**
+     * Internal names of synthetic classes generated at build time
+     */
+    @SerializedName("synthetic")
+    private Set<String> syntheticClasses = new TreeSet<String>();
+    
+    /**
+     * Get the session ID of the build which applied the mixins, null if the
+     * manifest was combined from several builds
+     */
+    public String getSessionId() {
+        return this.sessionId;
+    }
+    
+    /**
+     * Get the entry for the specified class
+     * 
+     * @param className class name
+     * @return entry or null if the class is not listed
+     */
+    public Entry get(String className) {
+        return this.classes.get(className.replace('.', '/'));
+    }
+    
+    /**
+     * Get the number of pre-applied classes
+     */
+    public int size() {
+        return this.classes.size();
+    }
+    
+    /**
+     * Get the internal names of the synthetic classes generated at build time
+     */
+    public Set<String> getSyntheticClasses() {
+        return Collections.<String>unmodifiableSet(this.syntheticClasses);
+    }
+    
+    /**
+     * Add a class which had mixins applied
+     * 
+     * @param className class name
+     * @param mixins class names of the applied mixins, in application order
+     * @param classNode transformed class, method bodies are not required
+     */
+    public void addClass(String className, Collection<String> mixins, ClassNode classNode) {
+        Entry entry = new Entry();
+        entry.mixins.addAll(mixins);
+        for (AnnotationNode merged : AotManifest.getMergedAnnotations(classNode)) {
+            String sessionId = Annotations.<String>getValue(merged, "sessionId");
+            if (sessionId != null) {
+                if (this.sessionId == null) {
+                    this.sessionId = sessionId;
+                } else if (!this.sessionId.equals(sessionId)) {
+                    throw new IllegalArgumentException("Class " + classNode.name + " was transformed in a different session");
+                }
+            }
+            entry.merged++;
+        }
+        this.classes.put(className.replace('.', '/'), entry);
+    }
+    
+    /**
+     * Add a synthetic class which was generated at build time
+     * 
+     * @param className class name
+     */
+    public void addSyntheticClass(String className) {
+        this.syntheticClasses.add(className.replace('.', '/'));
+    }
+    
+    /**
+     * Check whether the supplied class has the {@link MixinMerged} decorations
+     * recorded for it in this manifest
+     * 
+     * @param className class name
+     * @param classNode incoming class, method bodies are not required
+     * @return true if the class is listed and its decorations match
+     */
+    public boolean matches(String className, ClassNode classNode) {
+        Entry entry = this.get(className);
+        if (entry == null) {
+            return false;
+        }
+        
+        int merged = 0;
+        for (AnnotationNode annotation : AotManifest.getMergedAnnotations(classNode)) {
+            String sessionId = Annotations.<String>getValue(annotation, "sessionId");
+            if (!entry.mixins.contains(Annotations.<String>getValue(annotation, "mixin"))
+                    || (sessionId != null && !sessionId.equals(this.getSessionId(entry)))) {
+                return false;
+            }
+            merged++;
+        }
+        return merged == entry.merged;
+    }
+    
+    /**
+     * Move the {@link MixinMerged} decorations written at build time into the
+     * specified session, so that mixins applied to the class at runtime treat
+     * the pre-applied members as their own
+     * 
+     * @param classNode class tree
+     * @param sessionId current session ID
+     */
+    void adopt(ClassNode classNode, String sessionId) {
+        Entry entry = this.get(classNode.name);
+        String buildSessionId = entry != null ? this.getSessionId(entry) : null;
+        for (AnnotationNode annotation : AotManifest.getMergedAnnotations(classNode)) {
+            if (buildSessionId != null && buildSessionId.equals(Annotations.<String>getValue(annotation, "sessionId"))) {
+                Annotations.setValue(annotation, "sessionId", sessionId);
+            }
+        }
+    }
+    
+    private String getSessionId(Entry entry) {
+        return entry.sessionId != null ? entry.sessionId : this.sessionId;
+    }
+    
+    private static List<AnnotationNode> getMergedAnnotations(ClassNode classNode) {
+        List<AnnotationNode> annotations = new ArrayList<AnnotationNode>();
+        for (MethodNode method : classNode.methods) {
+            AnnotationNode merged = Annotations.getVisible(method, MixinMerged.class);
+            if (merged != null) {
+                annotations.add(merged);
+            }
+        }
+        for (FieldNode field : classNode.fields) {
+            AnnotationNode merged = Annotations.getVisible(field, MixinMerged.class);
+            if (merged != null) {
+                annotations.add(merged);
+            }
+        }
+        return annotations;
+    }
+    
+    /**
+     * Write this manifest as JSON
+     * 
+     * @param writer writer to write to
+     */
+    public void write(Appendable writer) {
+        new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(this, writer);
+    }
+    
+    /**
+     * Read a manifest from JSON
+     * 
+     * @param reader reader to read from
+     * @return manifest
+     */
+    public static AotManifest read(Reader reader) {
+        AotManifest manifest = new Gson().fromJson(reader, AotManifest.class);
+        return manifest != null ? manifest : new AotManifest();
+    }
+    
+    /**
+     * Read and combine the manifests named by a value of {@link
+     * Option#AOT_MANIFEST}. Manifests which do not exist are skipped. If a
+     * class is listed by more than one manifest, the first entry is used.
+     * 
+     * @param resourcePaths comma-separated resource names
+     * @return combined manifest, or null if none of the manifests could be
+     *      read
+     */
+    public static AotManifest readAll(String resourcePaths) {
+        AotManifest combined = null;
+        for (String name : resourcePaths.split(",")) {
+            String resourcePath = name.trim();
+            AotManifest manifest = resourcePath.isEmpty() ? null : AotManifest.read(resourcePath);
+            if (manifest != null) {
+                if (combined == null) {
+                    combined = new AotManifest();
+                }
+                combined.addAll(manifest, resourcePath);
+            }
+        }
+        return combined;
+    }
+    
+    private void addAll(AotManifest manifest, String resourcePath) {
+        for (Map.Entry<String, Entry> classEntry : manifest.classes.entrySet()) {
+            Entry entry = classEntry.getValue();
+            entry.sessionId = manifest.sessionId;
+            if (this.classes.containsKey(classEntry.getKey())) {
+                AotManifest.logger.warn("Class {} in AOT manifest {} is already listed by another manifest", classEntry.getKey(), resourcePath);
+                continue;
+            }
+            this.classes.put(classEntry.getKey(), entry);
+        }
+        this.syntheticClasses.addAll(manifest.syntheticClasses);
+    }
+    
+    /**
+     * Read the manifest from the specified resource using the service
+     * 
+     * @param resourcePath resource to read
+     * @return manifest, or null if the resource does not exist or could not be
+     *      read
+     */
+    public static AotManifest read(String resourcePath) {
+        InputStream resource = null;
+        try {
+            resource = MixinService.getService().getResourceAsStream(resourcePath);
+            if (resource == null) {
+                return null;
+            }
+            AotManifest manifest = AotManifest.read(new InputStreamReader(resource, Charsets.UTF_8));
+            AotManifest.logger.info("Loaded AOT manifest {} with {} pre-applied classes", resourcePath, manifest.size());
+            return manifest;
+        } catch (RuntimeException ex) {
+            AotManifest.logger.error("Could not read AOT manifest {}, mixins will be applied at runtime: {}", resourcePath, ex.getMessage());
+        } finally {
+            if (resource != null) {
+                try {
+                    resource.close();
+                } catch (IOException ex) {
+                    // ignore
+                }
+            }
+        }
+        return null;
+    }
+
+}
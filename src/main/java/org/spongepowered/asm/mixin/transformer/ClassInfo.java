@@ -25,6 +25,7 @@
 package org.spongepowered.asm.mixin.transformer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -33,9 +34,15 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.spongepowered.asm.logging.Level;
 import org.spongepowered.asm.logging.ILogger;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.ClassNode;
@@ -47,6 +54,7 @@ import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
 import org.spongepowered.asm.mixin.Mutable;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.Unique;
@@ -62,10 +70,14 @@ import org.spongepowered.asm.util.ClassSignature;
 import org.spongepowered.asm.util.LanguageFeatures;
 import org.spongepowered.asm.util.Locals;
 import org.spongepowered.asm.util.asm.ClassNodeAdapter;
+import org.spongepowered.asm.util.perf.Events;
+import org.spongepowered.asm.util.perf.IEventSink.ITimedEvent;
 import org.spongepowered.asm.util.perf.Profiler;
 import org.spongepowered.asm.util.perf.Profiler.Section;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
@@ -212,6 +224,16 @@ public final class ClassInfo {
     public static class FrameData {
 
         private static final String[] FRAMETYPES = { "NEW", "FULL", "APPEND", "CHOP", "SAME", "SAME1" };
+        
+        /**
+         * Number of ints used to store a frame in a packed frame array
+         */
+        static final int FIELDS = 4;
+        
+        /**
+         * Packed frame array for methods with no frames
+         */
+        static final int[] NONE = new int[0];
 
         /**
          * Frame index
@@ -240,13 +262,6 @@ public final class ClassInfo {
             this.size = size;
         }
 
-        FrameData(int index, FrameNode frameNode, int initialFrameSize) {
-            this.index = index;
-            this.type = frameNode.type;
-            this.locals = frameNode.local != null ? frameNode.local.size() : 0;
-            this.size = Locals.computeFrameSize(frameNode, initialFrameSize);
-        }
-
         /* (non-Javadoc)
          * @see java.lang.Object#toString()
          */
@@ -269,6 +284,12 @@ public final class ClassInfo {
             METHOD,
             FIELD
         }
+        
+        /**
+         * Member names and descriptors are shared between the members of many
+         * classes (overrides, common descriptors), so only keep one copy
+         */
+        private static final Interner<String> strings = Interners.<String>newWeakInterner();
 
         /**
          * Member type
@@ -300,13 +321,13 @@ public final class ClassInfo {
          * Current name of the member, may be different from {@link #memberName}
          * if the member has been renamed
          */
-        private String currentName;
+        private volatile String currentName;
         
         /**
          * Current descriptor of the member, may be different from
          * {@link #memberDesc} if the member has been remapped
          */
-        private String currentDesc;
+        private volatile String currentDesc;
         
         /**
          * True if this member is decorated with {@link Final} 
@@ -336,14 +357,18 @@ public final class ClassInfo {
 
         protected Member(Type type, String name, String desc, int access, boolean injected) {
             this.type = type;
-            this.memberName = name;
-            this.memberDesc = desc;
+            this.memberName = Member.intern(name);
+            this.memberDesc = Member.intern(desc);
             this.isInjected = injected;
-            this.currentName = name;
-            this.currentDesc = desc;
+            this.currentName = this.memberName;
+            this.currentDesc = this.memberDesc;
             this.modifiers = access;
         }
 
+        private static String intern(String value) {
+            return value != null ? Member.strings.intern(value) : null;
+        }
+
         public String getOriginalName() {
             return this.memberName;
         }
@@ -434,12 +459,14 @@ public final class ClassInfo {
          * @return the passed-in argument, for fluency
          */
         public String renameTo(String name) {
-            this.currentName = name;
+            this.currentName = Member.intern(name);
+            this.getOwner().markModified();
             return name;
         }
         
         public String remapTo(String desc) {
-            this.currentDesc = desc;
+            this.currentDesc = Member.intern(desc);
+            this.getOwner().markModified();
             return desc;
         }
 
@@ -480,7 +507,23 @@ public final class ClassInfo {
      */
     public class Method extends Member {
 
-        private final List<FrameData> frames;
+        /**
+         * Frames in this method, packed as {@link FrameData#FIELDS} ints per
+         * frame. Populated later if the owner was read without method bodies
+         */
+        private volatile int[] frames;
+        
+        /**
+         * True if {@link #frames} were not gathered when this method was
+         * created and must be read from the class bytecode
+         */
+        private final boolean deferFrames;
+        
+        /**
+         * Method this method was cloned from, if frames are still deferred
+         * when the clone is made
+         */
+        private final Method framesSource;
         
         private boolean isAccessor;
         
@@ -488,17 +531,26 @@ public final class ClassInfo {
 
         public Method(Member member) {
             super(member);
-            this.frames = member instanceof Method ? ((Method)member).frames : null;
+            Method method = member instanceof Method ? (Method)member : null;
+            this.frames = method != null ? method.frames : null;
+            this.deferFrames = method != null && method.hasDeferredFrames();
+            this.framesSource = this.deferFrames ? method : null;
         }
 
         public Method(MethodNode method) {
             this(method, false);
         }
 
-        @SuppressWarnings("unchecked")
         public Method(MethodNode method, boolean injected) {
+            this(method, injected, true);
+        }
+
+        @SuppressWarnings("unchecked")
+        Method(MethodNode method, boolean injected, boolean hasCode) {
             super(Type.METHOD, method.name, method.desc, method.access, injected);
-            this.frames = this.gatherFrames(method);
+            this.frames = hasCode ? this.gatherFrames(method) : null;
+            this.deferFrames = !hasCode;
+            this.framesSource = null;
             this.setUnique(Annotations.getVisible(method, Unique.class) != null);
             this.isAccessor = Annotations.getSingleVisible(method, Accessor.class, Invoker.class) != null;
             boolean decoratedFinal = Annotations.getVisible(method, Final.class) != null;
@@ -509,33 +561,90 @@ public final class ClassInfo {
         public Method(String name, String desc) {
             super(Type.METHOD, name, desc, Opcodes.ACC_PUBLIC, false);
             this.frames = null;
+            this.deferFrames = false;
+            this.framesSource = null;
         }
 
         public Method(String name, String desc, int access) {
             super(Type.METHOD, name, desc, access, false);
             this.frames = null;
+            this.deferFrames = false;
+            this.framesSource = null;
         }
 
         public Method(String name, String desc, int access, boolean injected) {
             super(Type.METHOD, name, desc, access, injected);
             this.frames = null;
+            this.deferFrames = false;
+            this.framesSource = null;
         }
 
-        private List<FrameData> gatherFrames(MethodNode method) {
-            List<FrameData> frames = new ArrayList<FrameData>();
+        private int[] gatherFrames(MethodNode method) {
+            int count = 0;
             for (Iterator<AbstractInsnNode> iter = method.instructions.iterator(); iter.hasNext();) {
+                if (iter.next() instanceof FrameNode) {
+                    count++;
+                }
+            }
+            if (count == 0) {
+                return FrameData.NONE;
+            }
+            
+            int[] frames = new int[count * FrameData.FIELDS];
+            int initialFrameSize = Bytecode.getFirstNonArgLocalIndex(method);
+            int index = 0, pos = 0;
+            for (Iterator<AbstractInsnNode> iter = method.instructions.iterator(); iter.hasNext(); index++) {
                 AbstractInsnNode insn = iter.next();
                 if (insn instanceof FrameNode) {
-                    frames.add(new FrameData(method.instructions.indexOf(insn), (FrameNode)insn, Bytecode.getFirstNonArgLocalIndex(method)));
+                    FrameNode frameNode = (FrameNode)insn;
+                    frames[pos++] = index;
+                    frames[pos++] = frameNode.type;
+                    frames[pos++] = frameNode.local != null ? frameNode.local.size() : 0;
+                    frames[pos++] = Locals.computeFrameSize(frameNode, initialFrameSize);
                 }
             }
             return frames;
         }
 
+        /**
+         * Get the frames in this method. The frame list is created on each
+         * call from the compact representation held by the method
+         * 
+         * @return frames or null if frame information is not available for
+         *      this method
+         */
         public List<FrameData> getFrames() {
+            int[] frames = this.getPackedFrames();
+            if (frames == null) {
+                return null;
+            }
+            
+            List<FrameData> list = new ArrayList<FrameData>(frames.length / FrameData.FIELDS);
+            for (int pos = 0; pos < frames.length; pos += FrameData.FIELDS) {
+                list.add(new FrameData(frames[pos], frames[pos + 1], frames[pos + 2], frames[pos + 3]));
+            }
+            return list;
+        }
+        
+        private int[] getPackedFrames() {
+            if (this.frames == null && this.deferFrames) {
+                if (this.framesSource != null) {
+                    this.frames = this.framesSource.getPackedFrames();
+                } else {
+                    ClassInfo.this.loadFrames();
+                }
+            }
             return this.frames;
         }
         
+        void setFrames(int[] frames) {
+            this.frames = frames;
+        }
+        
+        boolean hasDeferredFrames() {
+            return this.frames == null && this.deferFrames;
+        }
+        
         @Override
         public ClassInfo getOwner() {
             return ClassInfo.this;
@@ -661,6 +770,300 @@ public final class ClassInfo {
         }
     }
 
+    /**
+     * An entry in the metadata cache. Entries are placed in the cache as soon
+     * as a load begins so that only one thread ever loads a particular class,
+     * other threads requesting the same class wait for the loading thread to
+     * complete the entry. Entries for classes which could not be loaded are
+     * retained with a <tt>null</tt> info so that failed lookups are not
+     * repeated.
+     */
+    static final class CacheEntry {
+        
+        /**
+         * Thread which is loading this entry, null once the entry is complete
+         */
+        private volatile Thread loader;
+        
+        /**
+         * Loaded metadata, null if the load failed
+         */
+        private volatile ClassInfo info;
+        
+        CacheEntry(ClassInfo info) {
+            this.info = info;
+        }
+        
+        CacheEntry(Thread loader) {
+            this.loader = loader;
+        }
+        
+        /**
+         * Get whether this entry is being loaded by the calling thread, this
+         * can only happen if loading a class causes the same class to be
+         * requested again
+         */
+        boolean isLoadingOnCurrentThread() {
+            return this.loader == Thread.currentThread();
+        }
+        
+        synchronized void complete(ClassInfo info) {
+            this.info = info;
+            this.loader = null;
+            this.notifyAll();
+        }
+        
+        /**
+         * Wait for the entry to be completed by the loading thread and return
+         * the loaded metadata
+         */
+        ClassInfo get() {
+            if (this.loader != null) {
+                synchronized (this) {
+                    boolean interrupted = false;
+                    while (this.loader != null) {
+                        try {
+                            this.wait();
+                        } catch (InterruptedException ex) {
+                            interrupted = true;
+                        }
+                    }
+                    if (interrupted) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+            return this.info;
+        }
+        
+    }
+    
+    /**
+     * Memoized results of hierarchy lookups on a class. A table is valid for
+     * the hierarchy stamp it was created with, which changes whenever the
+     * members, interfaces or mixins of the class or of any class it inherits
+     * from change. The stamp is only recomputed when the member generation
+     * has moved on, so unrelated changes cost one pass over the hierarchy and
+     * keep the table. Members which could not be found are stored as {@link
+     * #NOT_FOUND} so that failed lookups are not repeated either.
+     */
+    static final class MemberTable {
+        
+        static final Object NOT_FOUND = new Object();
+        
+        /**
+         * Member generation the stamp was last checked in
+         */
+        volatile int generation;
+        
+        /**
+         * Hierarchy stamp the results were computed for
+         */
+        final long stamp;
+        
+        /**
+         * Results of {@link ClassInfo#findInHierarchy}
+         */
+        final ConcurrentMap<Key, Object> members = new ConcurrentHashMap<Key, Object>();
+        
+        /**
+         * Results of {@link ClassInfo#getInterfaceMethods}, with and without
+         * mixins
+         */
+        volatile Set<Method> interfaceMethods, interfaceMethodsWithMixins;
+        
+        MemberTable(int generation, long stamp) {
+            this.generation = generation;
+            this.stamp = stamp;
+        }
+        
+    }
+    
+    /**
+     * Arguments of a {@link ClassInfo#findInHierarchy} lookup
+     */
+    static final class Key {
+        
+        private final String name, desc;
+        
+        private final SearchType searchType;
+        
+        private final Traversal traversal;
+        
+        private final int flags;
+        
+        private final Type type;
+        
+        private final boolean interfaceMethods;
+        
+        private final int hash;
+        
+        Key(String name, String desc, SearchType searchType, Traversal traversal, int flags, Type type, boolean interfaceMethods) {
+            this.name = name;
+            this.desc = desc;
+            this.searchType = searchType;
+            this.traversal = traversal;
+            this.flags = flags;
+            this.type = type;
+            this.interfaceMethods = interfaceMethods;
+            int hash = name.hashCode() * 31 + (desc != null ? desc.hashCode() : 0);
+            hash = hash * 31 + ((searchType.ordinal() << 8) | (traversal.ordinal() << 4) | (type.ordinal() << 1) | (interfaceMethods ? 1 : 0));
+            this.hash = hash * 31 + flags;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)obj;
+            return this.hash == other.hash && this.flags == other.flags && this.searchType == other.searchType
+                    && this.traversal == other.traversal && this.type == other.type && this.interfaceMethods == other.interfaceMethods
+                    && this.name.equals(other.name) && (this.desc == null ? other.desc == null : this.desc.equals(other.desc));
+        }
+        
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+        
+    }
+    
+    /**
+     * Cached result of a common superclass query
+     */
+    static final class CommonSuperClass {
+        
+        final ClassInfo result;
+        
+        /**
+         * Sum of the hierarchy stamps of both types when the result was
+         * computed, or -1 if the result does not depend on the interfaces of
+         * the classes involved
+         */
+        final long stamp;
+        
+        CommonSuperClass(ClassInfo result, long stamp) {
+            this.result = result;
+            this.stamp = stamp;
+        }
+        
+    }
+    
+    /**
+     * Counters for the metadata cache, a snapshot of the current values can be
+     * obtained from {@link ClassInfo#getCacheStats}.
+     */
+    public static final class CacheStats {
+        
+        /**
+         * Number of lookups which were satisfied by the cache, including
+         * lookups which waited for another thread to complete the load
+         */
+        private final long hits;
+        
+        /**
+         * Number of lookups which had to load the class
+         */
+        private final long misses;
+        
+        /**
+         * Number of misses which were satisfied by the persistent class index
+         */
+        private final long indexHits;
+        
+        /**
+         * Number of lookups which were satisfied by a negative entry
+         */
+        private final long negativeHits;
+
+        /**
+         * Number of classes which could not be loaded
+         */
+        private final long failures;
+        
+        /**
+         * Total time spent loading classes in nanoseconds
+         */
+        private final long loadTime;
+        
+        /**
+         * Number of entries in the cache
+         */
+        private final int size;
+        
+        CacheStats(long hits, long misses, long indexHits, long negativeHits, long failures, long loadTime, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.indexHits = indexHits;
+            this.negativeHits = negativeHits;
+            this.failures = failures;
+            this.loadTime = loadTime;
+            this.size = size;
+        }
+        
+        /**
+         * Get the number of lookups which were satisfied from the cache
+         */
+        public long getHits() {
+            return this.hits;
+        }
+        
+        /**
+         * Get the number of lookups which required the class to be loaded
+         */
+        public long getMisses() {
+            return this.misses;
+        }
+        
+        /**
+         * Get the number of misses which were read from the persistent class
+         * index instead of from class bytecode
+         */
+        public long getIndexHits() {
+            return this.indexHits;
+        }
+        
+        /**
+         * Get the number of lookups which were satisfied by a negative entry
+         * (the class was previously not found)
+         */
+        public long getNegativeHits() {
+            return this.negativeHits;
+        }
+        
+        /**
+         * Get the number of classes which could not be loaded
+         */
+        public long getFailures() {
+            return this.failures;
+        }
+        
+        /**
+         * Get the total time spent loading classes, in nanoseconds
+         */
+        public long getLoadTime() {
+            return this.loadTime;
+        }
+        
+        /**
+         * Get the number of entries (including negative entries) in the cache
+         */
+        public int getSize() {
+            return this.size;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("CacheStats[size=%d, hits=%d, misses=%d, indexHits=%d, negativeHits=%d, failures=%d, loadTime=%.3fms]",
+                    this.size, this.hits, this.misses, this.indexHits, this.negativeHits, this.failures, this.loadTime * 0.000001D);
+        }
+        
+    }
+
     private static final ILogger logger = MixinService.getService().getLogger("mixin");
     
     private static final Profiler profiler = Profiler.getProfiler("meta");
@@ -671,12 +1074,51 @@ public final class ClassInfo {
      * Loading and parsing classes is expensive, so keep a cache of all the
      * information we generate
      */
-    private static final Map<String, ClassInfo> cache = new HashMap<String, ClassInfo>();
+    private static final ConcurrentMap<String, CacheEntry> cache = new ConcurrentHashMap<String, CacheEntry>();
+    
+    /**
+     * Cache counters
+     */
+    private static final AtomicLong cacheHits = new AtomicLong(), cacheMisses = new AtomicLong(), cacheIndexHits = new AtomicLong(),
+            cacheNegativeHits = new AtomicLong(), cacheFailures = new AtomicLong(), cacheLoadTime = new AtomicLong();
 
     private static final ClassInfo OBJECT = new ClassInfo();
+    
+    /**
+     * Incremented whenever the members, interfaces or mixins of any class
+     * change, tells each memoized lookup table to check its hierarchy stamp
+     */
+    private static final AtomicInteger memberGeneration = new AtomicInteger();
+    
+    /**
+     * Incremented when a class which previously could not be resolved is
+     * added, part of every hierarchy stamp since any lookup may have failed
+     * to resolve the class
+     */
+    private static final AtomicInteger resolvedGeneration = new AtomicInteger();
+    
+    /**
+     * Updates {@link #modCount}
+     */
+    private static final AtomicIntegerFieldUpdater<ClassInfo> modCountUpdater =
+            AtomicIntegerFieldUpdater.<ClassInfo>newUpdater(ClassInfo.class, "modCount");
+    
+    /**
+     * Maximum number of entries in the common superclass cache before it is
+     * flushed
+     */
+    private static final int MAX_COMMON_SUPERCLASSES = 16384;
+    
+    /**
+     * Results of common superclass queries, shared by all class writers. Keys
+     * are the two type names, results of interface-aware queries are stored
+     * with the hierarchy stamps of both types because mixins can add
+     * interfaces to a class.
+     */
+    private static final ConcurrentMap<String, CommonSuperClass> commonSuperClasses = new ConcurrentHashMap<String, CommonSuperClass>();
 
     static {
-        ClassInfo.cache.put(ClassInfo.JAVA_LANG_OBJECT, ClassInfo.OBJECT);
+        ClassInfo.cache.put(ClassInfo.JAVA_LANG_OBJECT, new CacheEntry(ClassInfo.OBJECT));
     }
 
     /**
@@ -734,7 +1176,25 @@ public final class ClassInfo {
      * Map of mixin types to corresponding supertypes, to avoid repeated
      * lookups
      */
-    private final Map<ClassInfo, ClassInfo> correspondingTypes = new HashMap<ClassInfo, ClassInfo>();
+    private final Map<ClassInfo, ClassInfo> correspondingTypes = new ConcurrentHashMap<ClassInfo, ClassInfo>();
+    
+    /**
+     * Memoized hierarchy lookups, see {@link MemberTable}
+     */
+    private volatile MemberTable memberTable;
+    
+    /**
+     * Number of changes to the members, interfaces and mixins of this class,
+     * see {@link #markModified}
+     */
+    private volatile int modCount;
+    
+    /**
+     * Superclass chain of this class, starting with <tt>java.lang.Object</tt>
+     * and ending with this class, so that the index of a class in the chain is
+     * its depth. Computed on first use, see {@link #getAncestors}
+     */
+    private volatile ClassInfo[] ancestors;
 
     /**
      * Mixin info if this class is a mixin itself
@@ -776,7 +1236,7 @@ public final class ClassInfo {
     /**
      * Mixins which have been applied this class
      */
-    private Set<MixinInfo> appliedMixins;
+    private volatile Set<MixinInfo> appliedMixins;
     
     /**
      * Declared nest host
@@ -824,32 +1284,36 @@ public final class ClassInfo {
     }
 
     /**
-     * Initialise a ClassInfo from the supplied {@link ClassNode}
+     * Initialise a ClassInfo from the supplied {@link ClassNode}. If the class
+     * node was read without method bodies, frame information for the methods
+     * is supplied later, see {@link #loadFrames}.
      *
      * @param classNode Class node to inspect
+     * @param hasCode false if the class node was read with
+     *      {@link ClassReader#SKIP_CODE}
      */
-    private ClassInfo(ClassNode classNode) {
+    private ClassInfo(ClassNode classNode, boolean hasCode) {
         Section timer = ClassInfo.profiler.begin(Profiler.ROOT, "class.meta");
         try {
             this.name = classNode.name;
             this.superName = classNode.superName != null ? classNode.superName : ClassInfo.JAVA_LANG_OBJECT;
-            this.initialisers = new HashSet<Method>();
-            this.methods = new HashSet<Method>();
-            this.fields = new HashSet<Field>();
+            this.initialisers = ClassInfo.<Method>newConcurrentSet();
+            this.methods = ClassInfo.<Method>newConcurrentSet();
             this.isInterface = ((classNode.access & Opcodes.ACC_INTERFACE) != 0);
-            this.interfaces = new HashSet<String>();
+            this.interfaces = ClassInfo.<String>newConcurrentSet();
             this.isMixin = classNode instanceof MixinClassNode;
             this.mixin = this.isMixin ? ((MixinClassNode)classNode).getMixin() : null;
-            this.mixins = this.isMixin ? Collections.<MixinInfo>emptySet() : new HashSet<MixinInfo>();
+            this.mixins = this.isMixin ? Collections.<MixinInfo>emptySet() : ClassInfo.<MixinInfo>newConcurrentSet();
 
             this.interfaces.addAll(classNode.interfaces);
 
             for (MethodNode method : classNode.methods) {
-                this.addMethod(method, this.isMixin);
+                this.addMethod(method, this.isMixin, hasCode);
             }
 
             boolean isProbablyStatic = true;
             String outerName = classNode.outerClass;
+            List<Field> fields = new ArrayList<Field>(classNode.fields.size());
             for (FieldNode field : classNode.fields) {
                 if ((field.access & Opcodes.ACC_SYNTHETIC) != 0) {
                     if (field.name.startsWith("this$")) {
@@ -863,8 +1327,9 @@ public final class ClassInfo {
                     }
                 }
 
-                this.fields.add(new Field(field, this.isMixin));
+                fields.add(new Field(field, this.isMixin));
             }
+            this.fields = ImmutableSet.<Field>copyOf(fields);
 
             this.isProbablyStatic = isProbablyStatic;
             this.methodMapper = new MethodMapper(MixinEnvironment.getCurrentEnvironment(), this);
@@ -900,19 +1365,118 @@ public final class ClassInfo {
 
     void addInterface(String iface) {
         this.interfaces.add(iface);
+        this.markModified();
         this.getSignature().addInterface(iface);
     }
 
     void addMethod(MethodNode method) {
-        this.addMethod(method, true);
+        this.addMethod(method, true, true);
+        this.markModified();
+    }
+
+    /**
+     * Add interfaces and methods from the supplied transformed class header
+     * which are not already present in this class. Used when the transformed
+     * class was retrieved from the class cache and the mixins which would
+     * normally add these members were not applied.
+     * 
+     * @param classNode header of the transformed class
+     */
+    void addMembers(ClassNode classNode) {
+        for (String iface : classNode.interfaces) {
+            if (!this.interfaces.contains(iface)) {
+                this.addInterface(iface);
+            }
+        }
+        for (MethodNode method : classNode.methods) {
+            if (this.findMethod(method.name, method.desc, ClassInfo.INCLUDE_ALL | ClassInfo.INCLUDE_INITIALISERS) == null) {
+                this.addMethod(method, true, false);
+            }
+        }
+        this.markModified();
     }
 
-    private void addMethod(MethodNode method, boolean injected) {
+    private void addMethod(MethodNode method, boolean injected, boolean hasCode) {
         if (method.name.startsWith("<")) {
-            this.initialisers.add(new Method(method, injected));
+            this.initialisers.add(new Method(method, injected, hasCode));
         } else {
-            this.methods.add(new Method(method, injected));
+            this.methods.add(new Method(method, injected, hasCode));
+        }
+    }
+    
+    /**
+     * Read frame information for all methods whose frames were deferred
+     * because this class was read without method bodies. Requires a second,
+     * full read of the class bytecode but only happens for classes which are
+     * actually inspected at the instruction level.
+     * 
+     * <p>Mixin targets are never read again here, since the read could run
+     * the transformer chain on a class which is being transformed. Their
+     * frames are taken from the class node supplied when the target is
+     * transformed, see {@link #loadFrames(ClassNode)}, and remain unavailable
+     * until then.</p>
+     */
+    synchronized void loadFrames() {
+        List<Method> pending = this.getDeferredFrameMethods();
+        if (pending.isEmpty() || !this.mixins.isEmpty()) {
+            return;
+        }
+        
+        Map<String, MethodNode> methodNodes = new HashMap<String, MethodNode>();
+        try {
+            ClassNode classNode = MixinService.getService().getBytecodeProvider().getClassNode(this.name);
+            for (MethodNode methodNode : classNode.methods) {
+                methodNodes.put(methodNode.name + methodNode.desc, methodNode);
+            }
+        } catch (Exception ex) {
+            ClassInfo.logger.catching(Level.TRACE, ex);
+            ClassInfo.logger.warn("Error reading frames for class: {} ({}: {})", this.name, ex.getClass().getName(), ex.getMessage());
+        }
+        
+        for (Method method : pending) {
+            MethodNode methodNode = methodNodes.get(method.getOriginalName() + method.getOriginalDesc());
+            method.setFrames(methodNode != null ? method.gatherFrames(methodNode) : FrameData.NONE);
+        }
+    }
+    
+    /**
+     * Fill in frame information for methods whose frames were deferred, from
+     * a full class node for this class. Methods which are not present in the
+     * supplied node keep their deferred state.
+     * 
+     * @param classNode class node with method bodies
+     */
+    synchronized void loadFrames(ClassNode classNode) {
+        List<Method> pending = this.getDeferredFrameMethods();
+        if (pending.isEmpty()) {
+            return;
+        }
+        
+        Map<String, MethodNode> methodNodes = new HashMap<String, MethodNode>();
+        for (MethodNode methodNode : classNode.methods) {
+            methodNodes.put(methodNode.name + methodNode.desc, methodNode);
+        }
+        for (Method method : pending) {
+            MethodNode methodNode = methodNodes.get(method.getOriginalName() + method.getOriginalDesc());
+            if (methodNode != null) {
+                method.setFrames(method.gatherFrames(methodNode));
+            }
+        }
+    }
+    
+    private List<Method> getDeferredFrameMethods() {
+        List<Method> pending = new ArrayList<Method>();
+        for (Method method : this.initialisers) {
+            if (method.hasDeferredFrames()) {
+                pending.add(method);
+            }
         }
+        for (Method method : this.methods) {
+            if (method.hasDeferredFrames()) {
+                pending.add(method);
+            }
+        }
+        return pending;
     }
 
     /**
@@ -923,14 +1487,25 @@ public final class ClassInfo {
             throw new IllegalArgumentException("Cannot add target " + this.name + " for " + mixin.getClassName() + " because the target is a mixin");
         }
         this.mixins.add(mixin);
+        this.markModified();
+    }
+    
+    /**
+     * Record a change to the members, interfaces or mixins of this class.
+     * Memoized lookups on this class and on classes which inherit from it are
+     * discarded when they are next used.
+     */
+    void markModified() {
+        ClassInfo.modCountUpdater.incrementAndGet(this);
+        ClassInfo.memberGeneration.incrementAndGet();
     }
     
     /**
      * Add a mixin which has been applied to this class
      */
-    void addAppliedMixin(MixinInfo mixin) {
+    synchronized void addAppliedMixin(MixinInfo mixin) {
         if (this.appliedMixins == null) {
-            this.appliedMixins = new HashSet<MixinInfo>(); 
+            this.appliedMixins = ClassInfo.<MixinInfo>newConcurrentSet(); 
         }
         this.appliedMixins.add(mixin);
     }
@@ -1200,6 +1775,20 @@ public final class ClassInfo {
      * @return read-only view of class methods
      */
     public Set<Method> getInterfaceMethods(boolean includeMixins) {
+        MemberTable table = this.getMemberTable();
+        Set<Method> methods = includeMixins ? table.interfaceMethodsWithMixins : table.interfaceMethods;
+        if (methods == null) {
+            methods = this.findInterfaceMethods(includeMixins);
+            if (includeMixins) {
+                table.interfaceMethodsWithMixins = methods;
+            } else {
+                table.interfaceMethods = methods;
+            }
+        }
+        return methods;
+    }
+    
+    private Set<Method> findInterfaceMethods(boolean includeMixins) {
         Set<Method> methods = new HashSet<Method>();
 
         ClassInfo supClass = this.addMethodsRecursive(methods, includeMixins);
@@ -1487,7 +2076,9 @@ public final class ClassInfo {
         ClassInfo correspondingType = this.correspondingTypes.get(mixin);
         if (correspondingType == null) {
             correspondingType = this.findSuperTypeForMixin(mixin);
-            this.correspondingTypes.put(mixin, correspondingType);
+            if (correspondingType != null) {
+                this.correspondingTypes.put(mixin, correspondingType);
+            }
         }
         return correspondingType;
     }
@@ -1784,6 +2375,69 @@ public final class ClassInfo {
      */
     @SuppressWarnings("unchecked")
     private <M extends Member> M findInHierarchy(String name, String desc, SearchType searchType, Traversal traversal, int flags, Type type) {
+        MemberTable table = this.getMemberTable();
+        Key key = new Key(name, desc, searchType, traversal, flags, type,
+                MixinEnvironment.getCompatibilityLevel().supports(LanguageFeatures.METHODS_IN_INTERFACES));
+        Object member = table.members.get(key);
+        if (member == null) {
+            member = this.resolveInHierarchy(name, desc, searchType, traversal, flags, type);
+            table.members.put(key, member != null ? member : MemberTable.NOT_FOUND);
+        }
+        return member != MemberTable.NOT_FOUND ? (M)member : null;
+    }
+    
+    /**
+     * Get the memoized hierarchy lookups for this class, replacing the table
+     * if the class or anything it inherits from has changed since the table
+     * was created
+     */
+    private MemberTable getMemberTable() {
+        int generation = ClassInfo.memberGeneration.get();
+        MemberTable table = this.memberTable;
+        if (table == null || table.generation != generation) {
+            long stamp = this.getHierarchyStamp();
+            if (table == null || table.stamp != stamp) {
+                this.memberTable = table = new MemberTable(generation, stamp);
+            } else {
+                table.generation = generation;
+            }
+        }
+        return table;
+    }
+    
+    /**
+     * Compute the hierarchy stamp of this class, the sum of the modification
+     * counts of this class and everything the lookups in {@link MemberTable}
+     * can visit: mixins, interfaces and the superclass. The counts only ever
+     * increase so any change produces a different stamp. The stamps of
+     * supertypes come from their own tables, so each class is only visited
+     * once per member generation.
+     */
+    private long getHierarchyStamp() {
+        long stamp = (long)this.modCount + ClassInfo.resolvedGeneration.get();
+        for (MixinInfo mixin : this.mixins) {
+            stamp += mixin.getClassInfo().getMemberTable().stamp;
+        }
+        for (String iface : this.interfaces) {
+            ClassInfo ifaceInfo = ClassInfo.forName(iface);
+            if (ifaceInfo != null) {
+                stamp += ifaceInfo.getMemberTable().stamp;
+            }
+        }
+        ClassInfo superClassInfo = this.getSuperClass();
+        if (superClassInfo != null) {
+            for (ClassInfo superTarget : superClassInfo.getTargets()) {
+                stamp += superTarget.getMemberTable().stamp;
+            }
+        }
+        return stamp;
+    }
+
+    /**
+     * Uncached implementation of {@link #findInHierarchy}
+     */
+    @SuppressWarnings("unchecked")
+    private <M extends Member> M resolveInHierarchy(String name, String desc, SearchType searchType, Traversal traversal, int flags, Type type) {
         if (searchType == SearchType.ALL_CLASSES) {
             M member = this.findMember(name, desc, flags, type);
             if (member != null) {
@@ -1986,25 +2640,62 @@ public final class ClassInfo {
     /**
      * Return a ClassInfo for the supplied {@link ClassNode}. If a ClassInfo for
      * the class was already defined, then the original ClassInfo is returned
-     * from the internal cache. Otherwise a new ClassInfo is created and
+     * from the internal cache, with any frames it was still missing taken
+     * from the supplied node. Otherwise a new ClassInfo is created and
      * returned.
      *
      * @param classNode classNode to get info for
      * @return ClassInfo instance for the supplied classNode
      */
     static ClassInfo fromClassNode(ClassNode classNode) {
-        ClassInfo info = ClassInfo.cache.get(classNode.name);
-        if (info == null) {
-            info = new ClassInfo(classNode);
-            ClassInfo.cache.put(classNode.name, info);
-        }
+        return ClassInfo.fromClassNode(classNode, true);
+    }
 
-        return info;
+    /**
+     * Return a ClassInfo for the supplied class header, read without method
+     * bodies. Frame information for the class's methods is read on demand.
+     *
+     * @param classNode header-only class node
+     * @return ClassInfo instance for the supplied class
+     */
+    static ClassInfo fromClassHeader(ClassNode classNode) {
+        return ClassInfo.fromClassNode(classNode, false);
+    }
+
+    private static ClassInfo fromClassNode(ClassNode classNode, boolean hasCode) {
+        while (true) {
+            CacheEntry entry = ClassInfo.cache.get(classNode.name);
+            if (entry != null && !entry.isLoadingOnCurrentThread()) {
+                ClassInfo info = entry.get();
+                if (info != null) {
+                    ClassInfo.cacheHits.incrementAndGet();
+                    if (hasCode) {
+                        // Metadata read from the class header, take deferred frames from the supplied node
+                        info.loadFrames(classNode);
+                    }
+                    return info;
+                }
+            }
+            
+            // Absent or negative entry, the supplied node takes precedence
+            ClassInfo info = new ClassInfo(classNode, hasCode);
+            CacheEntry newEntry = new CacheEntry(info);
+            if (entry == null ? ClassInfo.cache.putIfAbsent(classNode.name, newEntry) == null
+                    : ClassInfo.cache.replace(classNode.name, entry, newEntry)) {
+                if (entry != null) {
+                    // Lookups which could not resolve this class may have been memoized
+                    ClassInfo.resolvedGeneration.incrementAndGet();
+                    ClassInfo.memberGeneration.incrementAndGet();
+                }
+                return info;
+            }
+        }
     }
 
     /**
      * Return a ClassInfo for the specified class name, fetches the ClassInfo
-     * from the cache where possible.
+     * from the cache where possible. Only one thread will load any given class,
+     * other threads requesting the same class wait for the load to complete.
      *
      * @param className Binary name of the class to look up
      * @return ClassInfo for the specified class name or null if the specified
@@ -2013,25 +2704,97 @@ public final class ClassInfo {
     public static ClassInfo forName(String className) {
         className = className.replace('.', '/');
 
-        ClassInfo info = ClassInfo.cache.get(className);
-        if (info == null) {
-            try {
-                ClassNode classNode = MixinService.getService().getBytecodeProvider().getClassNode(className);
-                info = new ClassInfo(classNode);
-            } catch (Exception ex) {
-                ClassInfo.logger.catching(Level.TRACE, ex);
-                ClassInfo.logger.warn("Error loading class: {} ({}: {})", className, ex.getClass().getName(), ex.getMessage());
-//                ex.printStackTrace();
+        CacheEntry entry = ClassInfo.cache.get(className);
+        if (entry == null) {
+            CacheEntry newEntry = new CacheEntry(Thread.currentThread());
+            entry = ClassInfo.cache.putIfAbsent(className, newEntry);
+            if (entry == null) {
+                ClassInfo.cacheMisses.incrementAndGet();
+                ClassInfo info = null;
+                boolean loaded = false;
+                try {
+                    info = ClassInfo.load(className);
+                    loaded = true;
+                } finally {
+                    if (!loaded) {
+                        // Load threw an Error, release any waiting threads but
+                        // don't keep the failure so the class can be retried
+                        ClassInfo.cache.remove(className, newEntry);
+                    }
+                    
+                    // Entry is completed with null if load failed
+                    newEntry.complete(info);
+                }
+                ClassInfo.logger.trace("Added class metadata for {} to metadata cache", className);
+                return info;
             }
-
-            // Put null in the cache if load failed
-            ClassInfo.cache.put(className, info);
-            ClassInfo.logger.trace("Added class metadata for {} to metadata cache", className);
         }
-
+        
+        if (entry.isLoadingOnCurrentThread()) {
+            // Loading this class has requested the same class, the metadata is
+            // not available yet so load it again without caching
+            return ClassInfo.load(className);
+        }
+        
+        ClassInfo info = entry.get();
+        if (info != null) {
+            ClassInfo.cacheHits.incrementAndGet();
+        } else {
+            ClassInfo.cacheNegativeHits.incrementAndGet();
+        }
         return info;
     }
     
+    private static ClassInfo load(String className) {
+        long start = System.nanoTime();
+        ITimedEvent loadEvent = Events.beginClassInfoLoad(className);
+        try {
+            boolean useIndex = MixinEnvironment.getCurrentEnvironment().getOption(Option.HIERARCHY_INDEX);
+            ClassInfoIndex index = useIndex ? ClassInfoIndex.getInstance() : null;
+            ClassNode classNode = index != null ? index.get(className) : null;
+            String outcome = "loaded";
+            if (classNode == null) {
+                classNode = MixinService.getService().getBytecodeProvider().getClassNode(className, true,
+                        ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG);
+                if (index != null) {
+                    index.put(classNode);
+                }
+            } else {
+                ClassInfo.cacheIndexHits.incrementAndGet();
+                outcome = "indexed";
+            }
+            ClassInfo info = new ClassInfo(classNode, false);
+            loadEvent.complete(0, outcome);
+            return info;
+        } catch (Exception ex) {
+            loadEvent.complete(0, "failed");
+            ClassInfo.cacheFailures.incrementAndGet();
+            ClassInfo.logger.catching(Level.TRACE, ex);
+            ClassInfo.logger.warn("Error loading class: {} ({}: {})", className, ex.getClass().getName(), ex.getMessage());
+//            ex.printStackTrace();
+            return null;
+        } finally {
+            ClassInfo.cacheLoadTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * Member and mixin sets are added to whilst mixins are applied and may be
+     * iterated by other threads at the same time when mixins are applied
+     * concurrently
+     */
+    private static <T> Set<T> newConcurrentSet() {
+        return Collections.<T>newSetFromMap(new ConcurrentHashMap<T, Boolean>());
+    }
+    
+    /**
+     * Get a snapshot of the metadata cache counters
+     */
+    public static CacheStats getCacheStats() {
+        return new CacheStats(ClassInfo.cacheHits.get(), ClassInfo.cacheMisses.get(), ClassInfo.cacheIndexHits.get(),
+                ClassInfo.cacheNegativeHits.get(), ClassInfo.cacheFailures.get(), ClassInfo.cacheLoadTime.get(), ClassInfo.cache.size());
+    }
+    
     /**
      * Return a ClassInfo for the specified type descriptor, fetches the
      * ClassInfo from the cache where possible.
@@ -2085,7 +2848,8 @@ public final class ClassInfo {
      *      class does not have an entry in the cache
      */
     public static ClassInfo fromCache(String className) {
-        return ClassInfo.cache.get(className.replace('.', '/'));
+        CacheEntry entry = ClassInfo.cache.get(className.replace('.', '/'));
+        return entry != null && !entry.isLoadingOnCurrentThread() ? entry.get() : null;
     }
 
     /**
@@ -2203,6 +2967,98 @@ public final class ClassInfo {
     }
 
     private static ClassInfo getCommonSuperClass(ClassInfo type1, ClassInfo type2, boolean includeInterfaces) {
+        String key = (includeInterfaces ? "I;" : "C;") + type1.name + ";" + type2.name;
+        CommonSuperClass cached = ClassInfo.commonSuperClasses.get(key);
+        long stamp = includeInterfaces ? type1.getMemberTable().stamp + type2.getMemberTable().stamp : -1L;
+        if (cached != null && cached.stamp == stamp) {
+            return cached.result;
+        }
+        
+        ClassInfo result = null;
+        if (!includeInterfaces) {
+            result = ClassInfo.getCommonAncestor(type1, type2);
+            if (result == null) {
+                // Incomplete hierarchy, compute the hard way and don't cache
+                return ClassInfo.findCommonSuperClass(type1, type2, includeInterfaces);
+            }
+        } else {
+            result = ClassInfo.findCommonSuperClass(type1, type2, includeInterfaces);
+        }
+        
+        if (ClassInfo.commonSuperClasses.size() >= ClassInfo.MAX_COMMON_SUPERCLASSES) {
+            ClassInfo.commonSuperClasses.clear();
+        }
+        ClassInfo.commonSuperClasses.put(key, new CommonSuperClass(result, stamp));
+        return result;
+    }
+    
+    /**
+     * Find the common superclass of two classes using their ancestor chains.
+     * Gives the same result as {@link #findCommonSuperClass} without
+     * interfaces, but in a single pass over the chains.
+     * 
+     * @param type1 First type
+     * @param type2 Second type
+     * @return common superclass, or null if the chain of either type could
+     *      not be resolved completely or passes through a mixin
+     */
+    private static ClassInfo getCommonAncestor(ClassInfo type1, ClassInfo type2) {
+        ClassInfo[] chain1 = type1.getAncestors();
+        ClassInfo[] chain2 = type2.getAncestors();
+        if (chain1 == null || chain2 == null) {
+            return null;
+        }
+        
+        int depth1 = chain1.length - 1, depth2 = chain2.length - 1;
+        if (depth2 < depth1 && chain1[depth2].equals(type2)) {
+            return type2;
+        } else if (depth1 < depth2 && chain2[depth1].equals(type1)) {
+            return type1;
+        } else if (type1.isInterface() || type2.isInterface()) {
+            return ClassInfo.OBJECT;
+        }
+        
+        // Deepest class present in both chains, excluding the types themselves
+        int depth = 1;
+        int maxDepth = Math.min(depth1, depth2);
+        while (depth < maxDepth && chain1[depth].equals(chain2[depth])) {
+            depth++;
+        }
+        return chain1[depth - 1];
+    }
+    
+    /**
+     * Get the superclass chain of this class, starting with
+     * <tt>java.lang.Object</tt> and ending with this class
+     * 
+     * @return ancestor chain or null if a superclass could not be resolved or
+     *      the chain passes through a mixin
+     */
+    private ClassInfo[] getAncestors() {
+        ClassInfo[] ancestors = this.ancestors;
+        if (ancestors != null) {
+            return ancestors;
+        }
+        
+        if (this.isMixin) {
+            return null;
+        } else if (ClassInfo.JAVA_LANG_OBJECT.equals(this.name)) {
+            ancestors = new ClassInfo[] { this };
+        } else {
+            ClassInfo superClass = this.getSuperClass();
+            ClassInfo[] superAncestors = superClass != null ? superClass.getAncestors() : null;
+            if (superAncestors == null) {
+                return null;
+            }
+            ancestors = Arrays.copyOf(superAncestors, superAncestors.length + 1);
+            ancestors[superAncestors.length] = this;
+        }
+        
+        this.ancestors = ancestors;
+        return ancestors;
+    }
+
+    private static ClassInfo findCommonSuperClass(ClassInfo type1, ClassInfo type2, boolean includeInterfaces) {
         if (type1.hasSuperClass(type2, Traversal.NONE, includeInterfaces)) {
             return type2;
         } else if (type2.hasSuperClass(type1, Traversal.NONE, includeInterfaces)) {
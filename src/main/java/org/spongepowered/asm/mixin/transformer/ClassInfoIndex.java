@@ -0,0 +1,468 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.InnerClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.util.Constants;
+import org.spongepowered.asm.util.asm.ClassNodeAdapter;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Persistent index of class headers which allows {@link ClassInfo} to be built
+ * for classes seen in a previous launch without reading their bytecode. The
+ * index stores the same information as a header-only class read: supertypes,
+ * access flags, inner class and nest attributes, and the names, descriptors,
+ * access flags and visible annotation types of members.
+ * 
+ * <p>The index file is memory-mapped when first used and is only accepted if
+ * its key matches the {@link LaunchFingerprint fingerprint} of the current
+ * launch, so replacing or updating any container discards the index. Headers
+ * which were read during the current launch are merged with the existing
+ * entries and written back when the JVM exits.</p>
+ */
+final class ClassInfoIndex {
+    
+    /**
+     * Index file name, in the mixin output directory
+     */
+    private static final String INDEX_FILE = "hierarchy.idx";
+    
+    /**
+     * File magic, "MXHI"
+     */
+    private static final int MAGIC = 0x4D584849;
+    
+    /**
+     * Index format version, also contributes to the key
+     */
+    private static final int FORMAT_VERSION = 1;
+    
+    /**
+     * Logger
+     */
+    private static final ILogger logger = MixinService.getService().getLogger("mixin");
+    
+    /**
+     * Active index, null until the first call to {@link #getInstance}
+     */
+    private static ClassInfoIndex instance;
+    
+    /**
+     * True once initialisation has been attempted
+     */
+    private static boolean initialised;
+    
+    /**
+     * Index file
+     */
+    private final File file;
+    
+    /**
+     * Key for the current launch
+     */
+    private final byte[] key;
+    
+    /**
+     * Mapped record data from the existing index, empty if the index was
+     * missing or stale
+     */
+    private final ByteBuffer data;
+    
+    /**
+     * Offset and length of each record in {@link #data}, keyed by class name
+     */
+    private final Map<String, long[]> records;
+    
+    /**
+     * Records read during this launch which are not in the existing index
+     */
+    private final ConcurrentMap<String, byte[]> added = new ConcurrentHashMap<String, byte[]>();
+    
+    private ClassInfoIndex(File file, byte[] key, ByteBuffer data, Map<String, long[]> records) {
+        this.file = file;
+        this.key = key;
+        this.data = data;
+        this.records = records;
+    }
+    
+    /**
+     * Get the class header for the specified class from the index, returns
+     * null if the class is not indexed
+     * 
+     * @param className class name
+     * @return header-only class node or null
+     */
+    ClassNode get(String className) {
+        byte[] record = this.added.get(className);
+        if (record == null) {
+            long[] position = this.records.get(className);
+            if (position == null) {
+                return null;
+            }
+            record = new byte[(int)position[1]];
+            ByteBuffer data = this.data.duplicate();
+            data.position((int)position[0]);
+            data.get(record);
+        }
+        
+        try {
+            return ClassInfoIndex.decode(record);
+        } catch (IOException ex) {
+            ClassInfoIndex.logger.debug("Discarding corrupt class index record for {}: {}", className, ex.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Add the supplied header-only class node to the index
+     * 
+     * @param classNode class node to add
+     */
+    void put(ClassNode classNode) {
+        if (classNode.name == null || this.records.containsKey(classNode.name)) {
+            return;
+        }
+        
+        try {
+            this.added.putIfAbsent(classNode.name, ClassInfoIndex.encode(classNode));
+        } catch (IOException ex) {
+            ClassInfoIndex.logger.debug("Could not index class {}: {}", classNode.name, ex.getMessage());
+        }
+    }
+
+    /**
+     * Write the current contents of the index to disk if new records were
+     * added during this launch
+     */
+    synchronized void save() {
+        if (this.added.isEmpty()) {
+            return;
+        }
+        
+        Map<String, byte[]> entries = new HashMap<String, byte[]>();
+        for (Entry<String, long[]> record : this.records.entrySet()) {
+            byte[] bytes = new byte[(int)record.getValue()[1]];
+            ByteBuffer data = this.data.duplicate();
+            data.position((int)record.getValue()[0]);
+            data.get(bytes);
+            entries.put(record.getKey(), bytes);
+        }
+        entries.putAll(this.added);
+        
+        File tempFile = new File(this.file.getParentFile(), this.file.getName() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            this.file.getParentFile().mkdirs();
+            out = new DataOutputStream(new FileOutputStream(tempFile));
+            out.writeInt(ClassInfoIndex.MAGIC);
+            out.writeInt(ClassInfoIndex.FORMAT_VERSION);
+            out.write(this.key);
+            out.writeInt(entries.size());
+            int offset = 0;
+            for (Entry<String, byte[]> entry : entries.entrySet()) {
+                byte[] name = entry.getKey().getBytes(Charsets.UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeInt(offset);
+                out.writeInt(entry.getValue().length);
+                offset += entry.getValue().length;
+            }
+            for (byte[] bytes : entries.values()) {
+                out.write(bytes);
+            }
+            out.close();
+            
+            if ((this.file.exists() && !this.file.delete()) || !tempFile.renameTo(this.file)) {
+                throw new IOException("Could not replace " + this.file);
+            }
+            ClassInfoIndex.logger.debug("Wrote {} entries to class index {}", entries.size(), this.file);
+        } catch (IOException ex) {
+            ClassInfoIndex.logger.debug("Could not write class index {}: {}", this.file, ex.getMessage());
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ex1) {
+                    // ignore
+                }
+            }
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Get the index for the current launch, opening it if necessary
+     */
+    static synchronized ClassInfoIndex getInstance() {
+        if (!ClassInfoIndex.initialised) {
+            ClassInfoIndex.initialised = true;
+            ClassInfoIndex.instance = ClassInfoIndex.open(new File(Constants.DEBUG_OUTPUT_DIR, ClassInfoIndex.INDEX_FILE));
+            if (ClassInfoIndex.instance != null) {
+                final ClassInfoIndex index = ClassInfoIndex.instance;
+                Runtime.getRuntime().addShutdownHook(new Thread("Mixin class index writer") {
+                    @Override
+                    public void run() {
+                        index.save();
+                    }
+                });
+            }
+        }
+        return ClassInfoIndex.instance;
+    }
+
+    private static ClassInfoIndex open(File file) {
+        byte[] key = LaunchFingerprint.get();
+        if (key == null) {
+            ClassInfoIndex.logger.warn("Class index is not available, the launch fingerprint could not be computed");
+            return null;
+        }
+        
+        Map<String, long[]> records = new HashMap<String, long[]>();
+        ByteBuffer data = ByteBuffer.allocate(0);
+        if (file.isFile()) {
+            try {
+                data = ClassInfoIndex.map(file, key, records);
+                if (data == null) {
+                    ClassInfoIndex.logger.debug("Class index {} is stale, it will be rebuilt", file);
+                    data = ByteBuffer.allocate(0);
+                    records.clear();
+                } else {
+                    ClassInfoIndex.logger.debug("Loaded {} entries from class index {}", records.size(), file);
+                }
+            } catch (IOException ex) {
+                ClassInfoIndex.logger.debug("Class index {} could not be read, it will be rebuilt: {}", file, ex.getMessage());
+                data = ByteBuffer.allocate(0);
+                records.clear();
+            }
+        }
+        
+        return new ClassInfoIndex(file, key, data, records);
+    }
+
+    /**
+     * Map the index file and read its directory, returns null if the index
+     * does not match the supplied key
+     */
+    private static ByteBuffer map(File file, byte[] key, Map<String, long[]> records) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 + LaunchFingerprint.LENGTH + 4 || buffer.getInt() != ClassInfoIndex.MAGIC
+                    || buffer.getInt() != ClassInfoIndex.FORMAT_VERSION) {
+                return null;
+            }
+            byte[] fileKey = new byte[LaunchFingerprint.LENGTH];
+            buffer.get(fileKey);
+            if (!Arrays.equals(key, fileKey)) {
+                return null;
+            }
+            
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(name);
+                records.put(new String(name, Charsets.UTF_8), new long[] { buffer.getInt(), buffer.getInt() });
+            }
+            
+            ByteBuffer data = buffer.slice();
+            for (long[] record : records.values()) {
+                if (record[0] < 0 || record[1] < 0 || record[0] + record[1] > data.capacity()) {
+                    throw new IOException("Index directory is corrupt");
+                }
+            }
+            return data;
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static byte[] encode(ClassNode classNode) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(classNode.access);
+        out.writeUTF(classNode.name);
+        ClassInfoIndex.writeString(out, classNode.superName);
+        ClassInfoIndex.writeString(out, classNode.signature);
+        ClassInfoIndex.writeString(out, classNode.outerClass);
+        ClassInfoIndex.writeStrings(out, classNode.interfaces);
+        
+        // Only the entry describing the class itself is used by ClassInfo
+        List<InnerClassNode> innerClasses = new ArrayList<InnerClassNode>();
+        for (InnerClassNode innerClass : classNode.innerClasses) {
+            if (classNode.name.equals(innerClass.name)) {
+                innerClasses.add(innerClass);
+            }
+        }
+        out.writeShort(innerClasses.size());
+        for (InnerClassNode innerClass : innerClasses) {
+            ClassInfoIndex.writeString(out, innerClass.outerName);
+            ClassInfoIndex.writeString(out, innerClass.innerName);
+            out.writeInt(innerClass.access);
+        }
+        
+        ClassInfoIndex.writeString(out, ClassNodeAdapter.getNestHostClass(classNode));
+        ClassInfoIndex.writeStrings(out, ClassNodeAdapter.getNestMembers(classNode));
+        
+        out.writeInt(classNode.fields.size());
+        for (FieldNode field : classNode.fields) {
+            out.writeInt(field.access);
+            out.writeUTF(field.name);
+            out.writeUTF(field.desc);
+            ClassInfoIndex.writeAnnotations(out, field.visibleAnnotations);
+        }
+        
+        out.writeInt(classNode.methods.size());
+        for (MethodNode method : classNode.methods) {
+            out.writeInt(method.access);
+            out.writeUTF(method.name);
+            out.writeUTF(method.desc);
+            ClassInfoIndex.writeAnnotations(out, method.visibleAnnotations);
+        }
+        
+        out.flush();
+        return bytes.toByteArray();
+    }
+    
+    private static ClassNode decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        ClassNode classNode = new ClassNode();
+        classNode.access = in.readInt();
+        classNode.name = in.readUTF();
+        classNode.superName = ClassInfoIndex.readString(in);
+        classNode.signature = ClassInfoIndex.readString(in);
+        classNode.outerClass = ClassInfoIndex.readString(in);
+        classNode.interfaces.addAll(ClassInfoIndex.readStrings(in));
+        
+        for (int count = in.readUnsignedShort(); count > 0; count--) {
+            String outerName = ClassInfoIndex.readString(in);
+            String innerName = ClassInfoIndex.readString(in);
+            classNode.innerClasses.add(new InnerClassNode(classNode.name, outerName, innerName, in.readInt()));
+        }
+        
+        String nestHost = ClassInfoIndex.readString(in);
+        if (nestHost != null) {
+            ClassNodeAdapter.setNestHostClass(classNode, nestHost);
+        }
+        List<String> nestMembers = ClassInfoIndex.readStrings(in);
+        if (nestMembers != null) {
+            ClassNodeAdapter.setNestMembers(classNode, nestMembers);
+        }
+        
+        for (int count = in.readInt(); count > 0; count--) {
+            FieldNode field = new FieldNode(in.readInt(), in.readUTF(), in.readUTF(), null, null);
+            field.visibleAnnotations = ClassInfoIndex.readAnnotations(in);
+            classNode.fields.add(field);
+        }
+        
+        for (int count = in.readInt(); count > 0; count--) {
+            MethodNode method = new MethodNode(in.readInt(), in.readUTF(), in.readUTF(), null, null);
+            method.visibleAnnotations = ClassInfoIndex.readAnnotations(in);
+            classNode.methods.add(method);
+        }
+        
+        return classNode;
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+    
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values != null ? values.size() : -1);
+        if (values != null) {
+            for (String value : values) {
+                out.writeUTF(value);
+            }
+        }
+    }
+    
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(in.readUTF());
+        }
+        return values;
+    }
+    
+    private static void writeAnnotations(DataOutputStream out, List<AnnotationNode> annotations) throws IOException {
+        out.writeShort(annotations != null ? annotations.size() : 0);
+        if (annotations != null) {
+            for (AnnotationNode annotation : annotations) {
+                out.writeUTF(annotation.desc);
+            }
+        }
+    }
+    
+    private static List<AnnotationNode> readAnnotations(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        if (count == 0) {
+            return null;
+        }
+        List<AnnotationNode> annotations = new ArrayList<AnnotationNode>(count);
+        for (int i = 0; i < count; i++) {
+            annotations.add(new AnnotationNode(in.readUTF()));
+        }
+        return annotations;
+    }
+
+}
@@ -25,9 +25,9 @@
 package org.spongepowered.asm.mixin.transformer;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.spongepowered.asm.logging.ILogger;
 import org.objectweb.asm.AnnotationVisitor;
@@ -96,7 +96,7 @@ final class InnerClassGenerator implements IClassGenerator {
         /**
          *  Number of times this inner class has been generated
          */
-        private int loadCounter;
+        private volatile int loadCounter;
 
         InnerClassInfo(IMixinInfo mixin, ClassInfo targetClass, ClassInfo nestHost, String originalName, String name, MixinInfo owner) {
             this.mixin = mixin;
@@ -297,12 +297,12 @@ final class InnerClassGenerator implements IClassGenerator {
      * Mapping of target class context ids to generated inner class names, used
      * so we don't accidentally conform the same class twice.
      */
-    private final Map<String, String> innerClassNames = new HashMap<String, String>();
+    private final Map<String, String> innerClassNames = new ConcurrentHashMap<String, String>();
 
     /**
      * Mapping of generated class names to the respective inner class info
      */
-    private final Map<String, InnerClassInfo> innerClasses = new HashMap<String, InnerClassInfo>();
+    private final Map<String, InnerClassInfo> innerClasses = new ConcurrentHashMap<String, InnerClassInfo>();
     
     /**
      * Coprocessor which handles merging nest members into nest hosts which may
@@ -336,7 +336,7 @@ final class InnerClassGenerator implements IClassGenerator {
      * @param targetClass Target class name
      * @param innerClassName Original inner class name
      */
-    void registerInnerClass(MixinInfo owner, ClassInfo targetClass, String innerClassName) {
+    synchronized void registerInnerClass(MixinInfo owner, ClassInfo targetClass, String innerClassName) {
         String coordinate = String.format("%s:%s:%s", owner, innerClassName, targetClass.getName());
         String uniqueName = this.innerClassNames.get(coordinate);
         if (uniqueName != null) {
@@ -0,0 +1,181 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.io.File;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.spongepowered.asm.launch.MixinBootstrap;
+import org.spongepowered.asm.launch.platform.container.ContainerHandleURI;
+import org.spongepowered.asm.launch.platform.container.IContainerHandle;
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.service.IMixinService;
+import org.spongepowered.asm.service.MixinService;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Digest which identifies the class environment of the current launch, used
+ * to validate data which is persisted between launches. The fingerprint
+ * covers the mixin version, the active service and side, and the path, size
+ * and modification time of every container and classpath entry. Directories
+ * are summarised by the number, total size and newest modification time of
+ * the files they contain.
+ */
+final class LaunchFingerprint {
+    
+    /**
+     * Length of the fingerprint in bytes
+     */
+    static final int LENGTH = 20;
+    
+    /**
+     * Logger
+     */
+    private static final ILogger logger = MixinService.getService().getLogger("mixin");
+
+    /**
+     * Fingerprint, computed on first request
+     */
+    private static byte[] fingerprint;
+    
+    /**
+     * True once computing the fingerprint has been attempted
+     */
+    private static boolean computed;
+    
+    private LaunchFingerprint() {
+    }
+    
+    /**
+     * Get the fingerprint for the current launch, returns null if the
+     * fingerprint could not be computed
+     */
+    static synchronized byte[] get() {
+        if (!LaunchFingerprint.computed) {
+            LaunchFingerprint.computed = true;
+            try {
+                LaunchFingerprint.fingerprint = LaunchFingerprint.compute();
+            } catch (Exception ex) {
+                LaunchFingerprint.logger.debug("Could not compute launch fingerprint: {}", ex.getMessage());
+            }
+        }
+        return LaunchFingerprint.fingerprint;
+    }
+    
+    /**
+     * Get the fingerprint for the current launch as a hex string, returns null
+     * if the fingerprint could not be computed
+     */
+    static String getHex() {
+        byte[] fingerprint = LaunchFingerprint.get();
+        return fingerprint != null ? LaunchFingerprint.toHex(fingerprint) : null;
+    }
+    
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static byte[] compute() throws NoSuchAlgorithmException {
+        IMixinService service = MixinService.getService();
+        Set<String> paths = new TreeSet<String>();
+        LaunchFingerprint.collectPaths(paths, service.getPrimaryContainer());
+        Collection<IContainerHandle> containers = service.getMixinContainers();
+        if (containers != null) {
+            for (IContainerHandle container : containers) {
+                LaunchFingerprint.collectPaths(paths, container);
+            }
+        }
+        String classPath = System.getProperty("java.class.path");
+        if (classPath != null) {
+            for (String path : classPath.split(File.pathSeparator)) {
+                if (path.length() > 0) {
+                    paths.add(new File(path).getAbsolutePath());
+                }
+            }
+        }
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        String header = String.format("%s:%s:%s\n", MixinBootstrap.VERSION, service.getName(), service.getSideName());
+        digest.update(header.getBytes(Charsets.UTF_8));
+        for (String path : paths) {
+            digest.update(LaunchFingerprint.describe(new File(path)).getBytes(Charsets.UTF_8));
+        }
+        return digest.digest();
+    }
+
+    private static void collectPaths(Set<String> paths, IContainerHandle container) {
+        if (container == null) {
+            return;
+        }
+        if (container instanceof ContainerHandleURI) {
+            URI uri = ((ContainerHandleURI)container).getURI();
+            if (uri != null && "file".equals(uri.getScheme())) {
+                paths.add(new File(uri).getAbsolutePath());
+            }
+        }
+        Collection<IContainerHandle> nested = container.getNestedContainers();
+        if (nested != null) {
+            for (IContainerHandle child : nested) {
+                LaunchFingerprint.collectPaths(paths, child);
+            }
+        }
+    }
+    
+    private static String describe(File file) {
+        if (file.isDirectory()) {
+            long[] state = new long[3];
+            LaunchFingerprint.describeTree(file, state);
+            return String.format("%s:d:%d:%d:%d\n", file, state[0], state[1], state[2]);
+        }
+        return String.format("%s:f:%d:%d\n", file, file.length(), file.lastModified());
+    }
+
+    private static void describeTree(File dir, long[] state) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                LaunchFingerprint.describeTree(file, state);
+            } else {
+                state[0]++;
+                state[1] += file.length();
+                state[2] = Math.max(state[2], file.lastModified());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,222 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.util.Constants;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Records the order in which mixin target classes are transformed, and makes
+ * the order recorded by the previous launch available to {@link
+ * TargetClassPrefetcher}. The profile is a plain text file in the mixin output
+ * directory with one target class name per line. It is only a hint, nothing is
+ * trusted from it apart from which classes to read first, so it is not keyed
+ * to the launch.
+ */
+final class LoadOrderProfile {
+    
+    /**
+     * Profile file name, in the mixin output directory
+     */
+    private static final String PROFILE_FILE = "loadorder.txt";
+    
+    /**
+     * First line of the profile, identifies the format
+     */
+    private static final String HEADER = "# Mixin load order profile v2";
+    
+    /**
+     * Maximum number of targets to record
+     */
+    private static final int MAX_ENTRIES = 65536;
+    
+    /**
+     * Logger
+     */
+    private static final ILogger logger = MixinService.getService().getLogger("mixin");
+    
+    /**
+     * Active profile, null until the first call to {@link #getInstance}
+     */
+    private static LoadOrderProfile instance;
+    
+    /**
+     * Profile file
+     */
+    private final File file;
+    
+    /**
+     * Target order recorded by the previous launch
+     */
+    private final List<String> previousOrder;
+    
+    /**
+     * Targets recorded during this launch
+     */
+    private final Set<String> recorded = new HashSet<String>();
+    
+    /**
+     * Targets to write, in the order they were recorded
+     */
+    private final List<String> lines = new ArrayList<String>();
+
+    private LoadOrderProfile(File file, List<String> previousOrder) {
+        this.file = file;
+        this.previousOrder = Collections.<String>unmodifiableList(previousOrder);
+    }
+    
+    /**
+     * Get the target order recorded by the previous launch, empty if there is
+     * no usable profile
+     */
+    List<String> getPreviousOrder() {
+        return this.previousOrder;
+    }
+    
+    /**
+     * Record that mixins were applied to the specified class. Only the first
+     * application of each class is recorded.
+     * 
+     * @param name target class name
+     */
+    synchronized void record(String name) {
+        if (this.lines.size() >= LoadOrderProfile.MAX_ENTRIES || !this.recorded.add(name)) {
+            return;
+        }
+        this.lines.add(name);
+    }
+    
+    /**
+     * Write the targets recorded during this launch to the profile file
+     */
+    synchronized void save() {
+        if (this.lines.isEmpty()) {
+            return;
+        }
+        
+        File tempFile = new File(this.file.getParentFile(), this.file.getName() + ".tmp");
+        Writer writer = null;
+        try {
+            this.file.getParentFile().mkdirs();
+            writer = new OutputStreamWriter(new FileOutputStream(tempFile), Charsets.UTF_8);
+            writer.write(LoadOrderProfile.HEADER);
+            writer.write('\n');
+            for (String line : this.lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+            writer.close();
+            writer = null;
+            
+            if ((this.file.exists() && !this.file.delete()) || !tempFile.renameTo(this.file)) {
+                throw new IOException("Could not replace " + this.file);
+            }
+            LoadOrderProfile.logger.debug("Wrote {} entries to load order profile {}", this.lines.size(), this.file);
+        } catch (IOException ex) {
+            LoadOrderProfile.logger.debug("Could not write load order profile {}: {}", this.file, ex.getMessage());
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ex) {
+                    // ignore
+                }
+            }
+        }
+    }
+    
+    /**
+     * Get the load order profile for this launch, the profile is written when
+     * the JVM exits
+     */
+    static synchronized LoadOrderProfile getInstance() {
+        if (LoadOrderProfile.instance == null) {
+            File file = new File(Constants.DEBUG_OUTPUT_DIR, LoadOrderProfile.PROFILE_FILE);
+            final LoadOrderProfile profile = new LoadOrderProfile(file, LoadOrderProfile.read(file));
+            Runtime.getRuntime().addShutdownHook(new Thread("Mixin load order profile writer") {
+                @Override
+                public void run() {
+                    profile.save();
+                }
+            });
+            LoadOrderProfile.instance = profile;
+        }
+        return LoadOrderProfile.instance;
+    }
+    
+    private static List<String> read(File file) {
+        List<String> order = new ArrayList<String>();
+        if (!file.isFile()) {
+            return order;
+        }
+        
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), Charsets.UTF_8));
+            if (!LoadOrderProfile.HEADER.equals(reader.readLine())) {
+                LoadOrderProfile.logger.debug("Load order profile {} has an unrecognised format, it will be rebuilt", file);
+                return order;
+            }
+            
+            for (String line = reader.readLine(); line != null && order.size() < LoadOrderProfile.MAX_ENTRIES; line = reader.readLine()) {
+                String name = line.trim();
+                if (name.length() > 0) {
+                    order.add(name);
+                }
+            }
+            LoadOrderProfile.logger.debug("Loaded {} entries from load order profile {}", order.size(), file);
+        } catch (IOException ex) {
+            LoadOrderProfile.logger.debug("Load order profile {} could not be read: {}", file, ex.getMessage());
+            order.clear();
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException ex) {
+                    // ignore
+                }
+            }
+        }
+        return order;
+    }
+
+}
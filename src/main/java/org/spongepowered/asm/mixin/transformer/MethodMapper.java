@@ -177,10 +177,13 @@ class MethodMapper {
      * @return unique identifier
      */
     private static String getClassUID(String classRef) {
-        int index = MethodMapper.classes.indexOf(classRef);
-        if (index < 0) {
-            index = MethodMapper.classes.size();
-            MethodMapper.classes.add(classRef);
+        int index;
+        synchronized (MethodMapper.classes) {
+            index = MethodMapper.classes.indexOf(classRef);
+            if (index < 0) {
+                index = MethodMapper.classes.size();
+                MethodMapper.classes.add(classRef);
+            }
         }
         return MethodMapper.finagle(index);
     }
@@ -195,14 +198,18 @@ class MethodMapper {
      */
     private static String getMethodUID(String name, String desc, boolean increment) {
         String descriptor = String.format("%s%s", name, desc);
-        Counter id = MethodMapper.methods.get(descriptor);
-        if (id == null) {
-            id = new Counter();
-            MethodMapper.methods.put(descriptor, id);
-        } else if (increment) {
-            id.value++;
+        int value;
+        synchronized (MethodMapper.methods) {
+            Counter id = MethodMapper.methods.get(descriptor);
+            if (id == null) {
+                id = new Counter();
+                MethodMapper.methods.put(descriptor, id);
+            } else if (increment) {
+                id.value++;
+            }
+            value = id.value;
         }
-        return String.format("%03x", id.value);
+        return String.format("%03x", value);
     }
 
     /**
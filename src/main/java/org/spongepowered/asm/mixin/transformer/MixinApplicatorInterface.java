@@ -120,6 +120,24 @@ class MixinApplicatorInterface extends MixinApplicatorStandard {
         // disabled for interface mixins
     }
     
+    /* (non-Javadoc)
+     * @see org.spongepowered.asm.mixin.transformer.MixinApplicator
+     *      #parseInjections(
+     *      org.spongepowered.asm.mixin.transformer.MixinTargetContext)
+     */
+    @Override
+    protected void parseInjections(MixinTargetContext mixin) {
+        if (Feature.INJECTORS_IN_INTERFACE_MIXINS.isEnabled()) {
+            try {
+                super.parseInjections(mixin);
+            } catch (InvalidInjectionException ex) {
+                String description = ex.getContext() != null ? ex.getContext().toString() : "Injection";
+                throw new InvalidInterfaceMixinException(mixin, description + " is not supported in interface mixin", ex);
+            }
+            return;
+        }
+    }
+    
     /* (non-Javadoc)
      * @see org.spongepowered.asm.mixin.transformer.MixinApplicator
      *      #prepareInjections(
@@ -40,6 +40,7 @@ import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.asm.mixin.MixinEnvironment.Option;
 import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.asm.mixin.extensibility.IActivityContext.IActivity;
+import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
 import org.spongepowered.asm.mixin.gen.Accessor;
 import org.spongepowered.asm.mixin.gen.Invoker;
 import org.spongepowered.asm.mixin.injection.Inject;
@@ -48,6 +49,7 @@ import org.spongepowered.asm.mixin.injection.ModifyArgs;
 import org.spongepowered.asm.mixin.injection.ModifyConstant;
 import org.spongepowered.asm.mixin.injection.ModifyVariable;
 import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.code.InjectionPointBatch;
 import org.spongepowered.asm.mixin.injection.struct.Constructor;
 import org.spongepowered.asm.mixin.throwables.MixinError;
 import org.spongepowered.asm.mixin.transformer.ClassInfo.Field;
@@ -101,7 +103,12 @@ class MixinApplicatorStandard {
         MAIN,
         
         /**
-         * Enumerate injectors and scan for injection points 
+         * Enumerate injectors and parse injection points 
+         */
+        INJECT_PARSE,
+        
+        /**
+         * Scan for injection points of injectors from previous pass 
          */
         INJECT_PREPARE,
         
@@ -194,11 +201,18 @@ class MixinApplicatorStandard {
     final void apply(SortedSet<MixinInfo> mixins) {
         List<MixinTargetContext> mixinContexts = new ArrayList<MixinTargetContext>();
         
+        // Time spent applying each mixin, only recorded when profiling
+        Map<MixinTargetContext, long[]> mixinTimes = Profiler.isActive() ? new IdentityHashMap<MixinTargetContext, long[]>() : null;
+        long start = 0L;
+        
         for (Iterator<MixinInfo> iter = mixins.iterator(); iter.hasNext();) {
             MixinInfo mixin = iter.next();
             try {
                 this.logger.log(mixin.getLoggingLevel(), "Mixing {} from {} into {}", mixin.getName(), mixin.getParent(), this.targetName);
-                mixinContexts.add(mixin.createContextFor(this.context));
+                start = mixinTimes != null ? System.nanoTime() : 0L;
+                MixinTargetContext mixinContext = mixin.createContextFor(this.context);
+                MixinApplicatorStandard.addTime(mixinTimes, mixinContext, start);
+                mixinContexts.add(mixinContext);
                 if (this.auditTrail != null) {
                     this.auditTrail.onApply(this.targetName, mixin.toString());
                 }
@@ -219,7 +233,9 @@ class MixinApplicatorStandard {
             IActivity preApplyActivity = this.activities.begin("Mixin");
             for (MixinTargetContext context : mixinContexts) {
                 preApplyActivity.next(context.toString());
+                start = mixinTimes != null ? System.nanoTime() : 0L;
                 (current = context).preApply(this.targetName, this.targetClass);
+                MixinApplicatorStandard.addTime(mixinTimes, context, start);
             }
             preApplyActivity.end();
             
@@ -234,6 +250,8 @@ class MixinApplicatorStandard {
                     for (MixinTargetContext context : mixinContexts) {
                         context.getInjectorOrders(orders);
                     }
+                } else if (pass == ApplicatorPass.INJECT_PREPARE) {
+                    this.resolveInjectionPoints(mixinContexts);
                 }
             
                 for (Integer injectorOrder : orders) {
@@ -241,7 +259,9 @@ class MixinApplicatorStandard {
                         current = iter.next();
                         applyActivity.next(current.toString());
                         try {
+                            start = mixinTimes != null ? System.nanoTime() : 0L;
                             this.applyMixin(current, pass, injectorOrder.intValue());
+                            MixinApplicatorStandard.addTime(mixinTimes, current, start);
                         } catch (InvalidMixinException ex) {
                             if (current.isRequired()) {
                                 throw ex;
@@ -261,7 +281,9 @@ class MixinApplicatorStandard {
                 current = iter.next();
                 postApplyActivity.next(current.toString());
                 try {
+                    start = mixinTimes != null ? System.nanoTime() : 0L;
                     current.postApply(this.targetName, this.targetClass);
+                    MixinApplicatorStandard.addTime(mixinTimes, current, start);
                 } catch (InvalidMixinException ex) {
                     if (current.isRequired()) {
                         throw ex;
@@ -279,9 +301,28 @@ class MixinApplicatorStandard {
                     this.activities);
         }
 
+        if (mixinTimes != null) {
+            for (MixinTargetContext context : mixinContexts) {
+                long[] time = mixinTimes.get(context);
+                IMixinInfo mixin = context.getMixin();
+                this.profiler.attribute(mixin.getClassName(), mixin.getConfig().getName(), time != null ? time[0] : 0L);
+            }
+        }
+
         this.applySourceMap(this.context);
         this.context.processDebugTasks();
     }
+    
+    private static void addTime(Map<MixinTargetContext, long[]> mixinTimes, MixinTargetContext context, long start) {
+        if (mixinTimes == null) {
+            return;
+        }
+        long[] time = mixinTimes.get(context);
+        if (time == null) {
+            mixinTimes.put(context, time = new long[1]);
+        }
+        time[0] += System.nanoTime() - start;
+    }
 
     /**
      * Apply the mixin described by mixin to the supplied ClassNode
@@ -308,6 +349,11 @@ class MixinApplicatorStandard {
                 this.applyInitialisers(mixin);
                 break;
                 
+            case INJECT_PARSE:
+                activity.next("Parse Injections");
+                this.parseInjections(mixin);
+                break;
+                
             case INJECT_PREPARE:
                 activity.next("Prepare Injections");
                 this.prepareInjections(mixin);
@@ -721,7 +767,32 @@ class MixinApplicatorStandard {
     }
 
     /**
-     * Scan for injector methods and injection points
+     * Scan for injector methods and parse their injection points
+     * 
+     * @param mixin Mixin being scanned
+     */
+    protected void parseInjections(MixinTargetContext mixin) {
+        mixin.parseInjections();
+    }
+    
+    /**
+     * Resolve the injection points of all injectors discovered in the previous
+     * pass which can be matched together, so that each target method is only
+     * visited once instead of once per injection point. Injection points which
+     * are not resolved here are found when their injector is prepared.
+     * 
+     * @param mixinContexts mixins being applied
+     */
+    protected void resolveInjectionPoints(Collection<MixinTargetContext> mixinContexts) {
+        InjectionPointBatch batch = new InjectionPointBatch();
+        for (MixinTargetContext mixin : mixinContexts) {
+            mixin.collectInjectionPoints(batch);
+        }
+        batch.resolve();
+    }
+
+    /**
+     * Scan for injection points
      * 
      * @param mixin Mixin being scanned
      */
@@ -0,0 +1,168 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+import org.spongepowered.asm.service.IClassBytecodeProvider;
+import org.spongepowered.asm.service.IMixinService;
+
+/**
+ * Reads the mixin classes for a set of configs on a pool of worker threads
+ * ahead of config preparation, see {@link Option#PARALLEL_PREPARE}. Only the
+ * bytecode is read in the background: {@link MixinInfo} instances are still
+ * created in config order on the preparing thread, which collects each class
+ * as it reaches it. Failures are rethrown to the preparing thread at the
+ * point the class is collected, so errors are reported in the same order
+ * and in the same way as without prefetching.
+ */
+final class MixinClassPrefetcher {
+    
+    /**
+     * Worker thread factory
+     */
+    static final class WorkerFactory implements ThreadFactory {
+        
+        private final AtomicInteger count = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Mixin Prepare #" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+        
+    }
+    
+    /**
+     * Pending reads, by mixin class name
+     */
+    private final Map<String, Future<ClassNode>> classes = new HashMap<String, Future<ClassNode>>();
+    
+    /**
+     * Worker pool
+     */
+    private final ExecutorService executor;
+    
+    /**
+     * Start reading the mixin classes declared by the supplied configs
+     * 
+     * @param service mixin service
+     * @param configs configs to read mixin classes for
+     */
+    MixinClassPrefetcher(IMixinService service, List<MixinConfig> configs) {
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+        this.executor = Executors.newFixedThreadPool(threads, new WorkerFactory());
+        
+        final IClassBytecodeProvider bytecodeProvider = service.getBytecodeProvider();
+        for (MixinConfig config : configs) {
+            MixinEnvironment environment = config.getEnvironment();
+            final int readerFlags = environment.getOption(Option.LAZY_PREPARE) ? MixinInfo.HEADER_READER_FLAGS
+                    : environment.getOption(Option.CLASSREADER_EXPAND_FRAMES) ? ClassReader.EXPAND_FRAMES : 0;
+            for (final String mixinClass : config.getSelectedMixinClasses()) {
+                if (this.classes.containsKey(mixinClass)) {
+                    continue;
+                }
+                this.classes.put(mixinClass, this.executor.submit(new Callable<ClassNode>() {
+                    @Override
+                    public ClassNode call() throws Exception {
+                        return bytecodeProvider.getClassNode(mixinClass, true, readerFlags);
+                    }
+                }));
+            }
+        }
+        
+        this.executor.shutdown();
+    }
+    
+    /**
+     * Get the class read for the specified mixin, waiting for it if the read
+     * is still in progress. Returns null if the class was not prefetched.
+     * 
+     * @param mixinClass fully qualified mixin class name
+     * @return mixin class node or null if the class was not prefetched
+     * @throws ClassNotFoundException if the read failed because the class was
+     *      not found
+     * @throws IOException if the read failed because of an I/O error
+     */
+    ClassNode get(String mixinClass) throws ClassNotFoundException, IOException {
+        Future<ClassNode> future = this.classes.remove(mixinClass);
+        if (future == null) {
+            return null;
+        }
+        
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof ClassNotFoundException) {
+                throw (ClassNotFoundException)cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Discard any classes which were not collected
+     */
+    void close() {
+        for (Future<ClassNode> future : this.classes.values()) {
+            future.cancel(false);
+        }
+        this.classes.clear();
+    }
+
+}
@@ -60,6 +60,8 @@ import org.spongepowered.asm.service.IMixinService;
 import org.spongepowered.asm.service.MixinService;
 import org.spongepowered.asm.util.CompareUtil;
 import org.spongepowered.asm.util.VersionNumber;
+import org.spongepowered.asm.util.perf.Events;
+import org.spongepowered.asm.util.perf.IEventSink.ITimedEvent;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
@@ -851,19 +853,23 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
      * </p>
      */
     void prepare(Extensions extensions) {
+        this.prepare(extensions, null);
+    }
+    
+    void prepare(Extensions extensions, MixinClassPrefetcher prefetcher) {
         if (this.prepared) {
             return;
         }
         this.prepared = true;
         
-        this.prepareMixins("mixins", this.mixinClasses, false, extensions);
+        this.prepareMixins("mixins", this.mixinClasses, false, extensions, prefetcher);
         
         switch (this.env.getSide()) {
             case CLIENT:
-                this.prepareMixins("client", this.mixinClassesClient, false, extensions);
+                this.prepareMixins("client", this.mixinClassesClient, false, extensions, prefetcher);
                 break;
             case SERVER:
-                this.prepareMixins("server", this.mixinClassesServer, false, extensions);
+                this.prepareMixins("server", this.mixinClassesServer, false, extensions, prefetcher);
                 break;
             case UNKNOWN:
                 //$FALL-THROUGH$
@@ -876,12 +882,18 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
     void postInitialise(Extensions extensions) {
         if (this.plugin != null) {
             List<String> pluginMixins = this.plugin.getMixins();
-            this.prepareMixins("companion plugin", pluginMixins, true, extensions);
+            this.prepareMixins("companion plugin", pluginMixins, true, extensions, null);
         }
         
         for (Iterator<MixinInfo> iter = this.mixins.iterator(); iter.hasNext();) {
             MixinInfo mixin = iter.next();
             try {
+                if (mixin.isDeferred()) {
+                    // The mixin hierarchy must be complete before any mixin
+                    // is applied, everything else waits for initialiseMixin
+                    MixinInheritanceTracker.INSTANCE.onInit(mixin);
+                    continue;
+                }
                 mixin.validate();
                 for (IListener listener : this.listeners) {
                     listener.onInit(mixin);
@@ -898,6 +910,53 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
         }
     }
 
+    /**
+     * Complete initialisation of a mixin whose preparation was deferred, see
+     * {@link Option#LAZY_PREPARE}. The mixin is validated and config listeners
+     * are notified as they would have been in {@link #postInitialise}.
+     * Failures leave the mixin unusable rather than removing it from the
+     * config, since this happens whilst classes are being transformed. As
+     * with eager preparation, failures in a required config are raised and
+     * failures in other configs are only logged.
+     * 
+     * @param mixin mixin to initialise
+     * @return true if the mixin is initialised and can be applied
+     * @throws InvalidMixinException if initialisation failed and this config
+     *      is required
+     */
+    boolean initialiseMixin(MixinInfo mixin) {
+        if (!mixin.isDeferred()) {
+            return !mixin.isFailed();
+        }
+        
+        synchronized (mixin) {
+            if (!mixin.isDeferred()) {
+                return !mixin.isFailed();
+            }
+            
+            try {
+                mixin.initialise();
+                for (IListener listener : this.listeners) {
+                    if (listener != MixinInheritanceTracker.INSTANCE) {
+                        listener.onInit(mixin);
+                    }
+                }
+                return true;
+            } catch (InvalidMixinException ex) {
+                if (this.required) {
+                    throw ex;
+                }
+                this.logger.error(ex.getMixin() + ": " + ex.getMessage(), ex);
+            } catch (Exception ex) {
+                if (this.required) {
+                    throw new InvalidMixinException(mixin, "Error initialising mixin " + mixin + " - " + ex.getClass() + ": " + ex.getMessage(), ex);
+                }
+                this.logger.error(ex.getMessage(), ex);
+            }
+            return false;
+        }
+    }
+
     private void removeMixin(MixinInfo remove) {
         for (List<MixinInfo> mixinsFor : this.mixinMapping.values()) {
             for (Iterator<MixinInfo> iter = mixinsFor.iterator(); iter.hasNext();) {
@@ -908,7 +967,48 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
         }
     }
 
-    private void prepareMixins(String collectionName, List<String> mixinClasses, boolean ignorePlugin, Extensions extensions) {
+    /**
+     * Get the fully qualified names of the mixin classes which this config
+     * will prepare for the current side
+     */
+    List<String> getSelectedMixinClasses() {
+        List<String> selected = new ArrayList<String>();
+        if (Strings.isNullOrEmpty(this.mixinPackage)) {
+            return selected;
+        }
+        
+        List<String> sidedClasses = null;
+        switch (this.env.getSide()) {
+            case CLIENT:
+                sidedClasses = this.mixinClassesClient;
+                break;
+            case SERVER:
+                sidedClasses = this.mixinClassesServer;
+                break;
+            default:
+                break;
+        }
+        
+        List<List<String>> collections = new ArrayList<List<String>>();
+        if (this.mixinClasses != null) {
+            collections.add(this.mixinClasses);
+        }
+        if (sidedClasses != null) {
+            collections.add(sidedClasses);
+        }
+        
+        for (List<String> mixinClasses : collections) {
+            for (String mixinClass : mixinClasses) {
+                if (mixinClass != null) {
+                    selected.add(this.mixinPackage + mixinClass);
+                }
+            }
+        }
+        return selected;
+    }
+
+    private void prepareMixins(String collectionName, List<String> mixinClasses, boolean ignorePlugin, Extensions extensions,
+            MixinClassPrefetcher prefetcher) {
         if (mixinClasses == null) {
             return;
         }
@@ -929,16 +1029,20 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
             }
             
             MixinInfo mixin = null;
+            ITimedEvent prepareEvent = Events.beginMixinPrepare(fqMixinClass, this.name);
             
             try {
-                this.pendingMixins.add(mixin = new MixinInfo(this.service, this, mixinClass, this.plugin, ignorePlugin, extensions));
+                this.pendingMixins.add(mixin = new MixinInfo(this.service, this, mixinClass, this.plugin, ignorePlugin, extensions, prefetcher));
                 MixinConfig.globalMixinList.add(fqMixinClass);
+                prepareEvent.complete(0, mixin.isDeferred() ? "deferred" : "prepared");
             } catch (InvalidMixinException ex) {
+                prepareEvent.complete(0, "failed");
                 if (this.required) {
                     throw ex;
                 }
                 this.logger.error(ex.getMessage(), ex);
             } catch (Exception ex) {
+                prepareEvent.complete(0, "failed");
                 if (this.required) {
                     throw new InvalidMixinException(mixin, "Error initialising mixin " + mixin + " - " + ex.getClass() + ": " + ex.getMessage(), ex);
                 }
@@ -1019,6 +1123,14 @@ final class MixinConfig implements Comparable<MixinConfig>, IMixinConfig {
         return this.name;
     }
     
+    /**
+     * Get the name of the reference map resource for this config, available
+     * once the config is selected
+     */
+    String getRefMapperConfig() {
+        return this.refMapperConfig;
+    }
+    
     /* (non-Javadoc)
      * @see org.spongepowered.asm.mixin.extensibility.IMixinConfig#getSource()
      */
@@ -139,6 +139,21 @@ abstract class MixinCoprocessor implements IListener {
     public void onInit(MixinInfo mixin) {
     }
     
+    /**
+     * Get whether this coprocessor may act on the specified class in either
+     * {@link #process} or {@link #postProcess}. Neither method is called for
+     * classes which the coprocessor does not handle, and classes which no
+     * coprocessor handles and which are not mixin targets can be passed
+     * through without being parsed. Coprocessors which cannot determine their
+     * interest from the class name alone should return true.
+     * 
+     * @param className Name of the target class
+     * @return true if this coprocessor may transform or passthrough the class
+     */
+    boolean handlesClass(String className) {
+        return true;
+    }
+    
     /**
      * Process the supplied class. If the class is transformed, or should be
      * passed through (rather than treated as a mixin target) then this is
@@ -155,10 +170,10 @@ abstract class MixinCoprocessor implements IListener {
 
     /**
      * Perform postprocessing actions on the supplied class. This is called for
-     * all classes. For passthrough classes and classes which are not mixin 
-     * targets this is called immediately after {@link #process} is completed
-     * for all coprocessors. For mixin targets this is called after mixins are
-     * applied.
+     * all classes which this coprocessor {@link #handlesClass handles}. For
+     * passthrough classes and classes which are not mixin targets this is
+     * called immediately after {@link #process} is completed for all
+     * coprocessors. For mixin targets this is called after mixins are applied.
      * 
      * @param className Name of the target class
      * @param classNode Classnode of the target class
@@ -24,8 +24,8 @@
  */
 package org.spongepowered.asm.mixin.transformer;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
@@ -63,7 +63,7 @@ class MixinCoprocessorAccessor extends MixinCoprocessor {
     /**
      * Accessor mixins
      */
-    private final Map<String, MixinInfo> accessorMixins = new HashMap<String, MixinInfo>();
+    private final Map<String, MixinInfo> accessorMixins = new ConcurrentHashMap<String, MixinInfo>();
     
     MixinCoprocessorAccessor(String sessionId) {
         this.sessionId = sessionId;
@@ -85,6 +85,11 @@ class MixinCoprocessorAccessor extends MixinCoprocessor {
         this.accessorMixins.put(mixin.getClassName(), mixin);
     }
 
+    @Override
+    boolean handlesClass(String className) {
+        return this.accessorMixins.containsKey(className);
+    }
+
     @Override
     ProcessResult process(String className, ClassNode classNode) {
         if (!MixinEnvironment.getCompatibilityLevel().supports(LanguageFeatures.METHODS_IN_INTERFACES)
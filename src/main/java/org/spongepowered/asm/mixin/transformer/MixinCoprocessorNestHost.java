@@ -25,12 +25,12 @@
 package org.spongepowered.asm.mixin.transformer;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.objectweb.asm.tree.ClassNode;
 import org.spongepowered.asm.mixin.MixinEnvironment;
@@ -56,7 +56,7 @@ class MixinCoprocessorNestHost extends MixinCoprocessor {
     /**
      * Classes which are nest hosts with new members injected by mixins 
      */
-    private final Map<String, Set<String>> nestHosts = new HashMap<String, Set<String>>();
+    private final ConcurrentMap<String, Set<String>> nestHosts = new ConcurrentHashMap<String, Set<String>>();
 
     MixinCoprocessorNestHost() {
     }
@@ -64,7 +64,11 @@ class MixinCoprocessorNestHost extends MixinCoprocessor {
     void registerNestMember(String hostName, String memberName) {
         Set<String> nestMembers = this.nestHosts.get(hostName);
         if (nestMembers == null) {
-            this.nestHosts.put(hostName, nestMembers = new HashSet<String>());
+            Set<String> newMembers = Collections.<String>newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+            nestMembers = this.nestHosts.putIfAbsent(hostName, newMembers);
+            if (nestMembers == null) {
+                nestMembers = newMembers;
+            }
         }
         nestMembers.add(memberName);
     }
@@ -74,13 +78,18 @@ class MixinCoprocessorNestHost extends MixinCoprocessor {
         return "nesthost";
     }
 
+    @Override
+    boolean handlesClass(String className) {
+        return this.nestHosts.containsKey(className);
+    }
+
     @Override
     boolean postProcess(String className, ClassNode classNode) {
-        if (!this.nestHosts.containsKey(className)) {
+        Set<String> newMembers = this.nestHosts.get(className);
+        if (newMembers == null) {
             return false;
         }
         
-        Set<String> newMembers = this.nestHosts.get(className);
         if (!MixinEnvironment.getCompatibilityLevel().supports(LanguageFeatures.NESTING) || newMembers.isEmpty()) {
             return false;
         }
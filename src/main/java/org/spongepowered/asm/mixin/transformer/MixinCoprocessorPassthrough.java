@@ -24,8 +24,9 @@
  */
 package org.spongepowered.asm.mixin.transformer;
 
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.objectweb.asm.tree.ClassNode;
 
@@ -38,7 +39,7 @@ class MixinCoprocessorPassthrough extends MixinCoprocessor {
     /**
      * Loadable classes within mixin packages
      */
-    private final Set<String> loadable = new HashSet<String>();
+    private final Set<String> loadable = Collections.<String>newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     MixinCoprocessorPassthrough() {
     }
@@ -59,6 +60,11 @@ class MixinCoprocessorPassthrough extends MixinCoprocessor {
         this.loadable.add(className);
     }
     
+    @Override
+    boolean handlesClass(String className) {
+        return this.loadable.contains(className);
+    }
+    
     @Override
     ProcessResult process(String className, ClassNode classNode) {
         return this.loadable.contains(className) ? ProcessResult.PASSTHROUGH_NONE : ProcessResult.NONE;
@@ -24,8 +24,9 @@
  */
 package org.spongepowered.asm.mixin.transformer;
 
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
@@ -47,7 +48,7 @@ class MixinCoprocessorSyntheticInner extends MixinCoprocessor {
     /**
      * Synthetic inner classes in mixins
      */
-    private final Set<String> syntheticInnerClasses = new HashSet<String>();
+    private final Set<String> syntheticInnerClasses = Collections.<String>newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     MixinCoprocessorSyntheticInner() {
     }
@@ -68,6 +69,14 @@ class MixinCoprocessorSyntheticInner extends MixinCoprocessor {
         this.syntheticInnerClasses.add(className);
     }
 
+    /**
+     * Only synthetic inner classes of mixins are handled
+     */
+    @Override
+    boolean handlesClass(String className) {
+        return this.syntheticInnerClasses.contains(className);
+    }
+
     /**
      * "Pass through" a synthetic inner class. Transforms package-private
      * members in the class into public so that they are accessible from their
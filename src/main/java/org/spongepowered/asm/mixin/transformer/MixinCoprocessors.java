@@ -24,7 +24,7 @@
  */
 package org.spongepowered.asm.mixin.transformer;
 
-import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.objectweb.asm.tree.ClassNode;
 import org.spongepowered.asm.mixin.transformer.MixinCoprocessor.ProcessResult;
@@ -32,9 +32,11 @@ import org.spongepowered.asm.util.perf.Profiler;
 import org.spongepowered.asm.util.perf.Profiler.Section;
 
 /**
- * Convenience list of coprocessors
+ * Convenience list of coprocessors. Coprocessors are registered once when the
+ * processor is created but are iterated for every class, potentially from many
+ * threads at once, so the list is copy-on-write.
  */
-class MixinCoprocessors extends ArrayList<MixinCoprocessor> {
+class MixinCoprocessors extends CopyOnWriteArrayList<MixinCoprocessor> {
 
     private static final long serialVersionUID = 1L;
     
@@ -47,6 +49,21 @@ class MixinCoprocessors extends ArrayList<MixinCoprocessor> {
         this.profiler = Profiler.getProfiler("mixin");
     }
 
+    /**
+     * Get whether any registered coprocessor may act on the specified class
+     * 
+     * @param className Name of the target class
+     * @return true if at least one coprocessor handles the class
+     */
+    boolean handlesClass(String className) {
+        for (MixinCoprocessor coprocessor : this) {
+            if (coprocessor.handlesClass(className)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Process the supplied class using all registered coprocessors. If the
      * class is transformed, or should be passed through (rather than treated as
@@ -61,7 +78,9 @@ class MixinCoprocessors extends ArrayList<MixinCoprocessor> {
         Section timer = this.profiler.begin("coprocessor");
         ProcessResult result = ProcessResult.NONE;
         for (MixinCoprocessor coprocessor : this) {
-            result = coprocessor.process(className, classNode).with(result);
+            if (coprocessor.handlesClass(className)) {
+                result = coprocessor.process(className, classNode).with(result);
+            }
         }
         timer.end();
         return result;
@@ -79,7 +98,9 @@ class MixinCoprocessors extends ArrayList<MixinCoprocessor> {
         Section timer = this.profiler.begin("coprocessor");
         boolean transformed = false;
         for (MixinCoprocessor coprocessor : this) {
-            transformed |= coprocessor.postProcess(className, classNode);
+            if (coprocessor.handlesClass(className)) {
+                transformed |= coprocessor.postProcess(className, classNode);
+            }
         }
         timer.end();
         return transformed;
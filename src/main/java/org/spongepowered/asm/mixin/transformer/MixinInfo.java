@@ -30,12 +30,16 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.spongepowered.asm.logging.Level;
 import org.spongepowered.asm.logging.ILogger;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
@@ -74,6 +78,8 @@ import org.spongepowered.asm.util.CompareUtil;
 import org.spongepowered.asm.util.LanguageFeatures;
 import org.spongepowered.asm.util.asm.ASM;
 import org.spongepowered.asm.util.asm.MethodNodeEx;
+import org.spongepowered.asm.util.perf.Events;
+import org.spongepowered.asm.util.perf.IEventSink.ITimedEvent;
 import org.spongepowered.asm.util.perf.Profiler;
 import org.spongepowered.asm.util.perf.Profiler.Section;
 
@@ -187,6 +193,24 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
             return method;
         }
         
+        /**
+         * Create a deep copy of this class node. Methods which were renamed
+         * keep their original names in the copy.
+         */
+        MixinClassNode copy() {
+            final Iterator<MixinMethodNode> originals = this.mixinMethods.iterator();
+            final MixinClassNode copy = new MixinClassNode(MixinInfo.this);
+            this.accept(new ClassVisitor(ASM.API_VERSION, copy) {
+                @Override
+                public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+                    MethodNode method = (MethodNode)super.visitMethod(access, originals.next().getOriginalName(), desc, signature, exceptions);
+                    method.name = name;
+                    return method;
+                }
+            });
+            return copy;
+        }
+        
     }
 
     /**
@@ -241,6 +265,18 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
          * application
          */
         protected MixinClassNode validationClassNode;
+        
+        /**
+         * Prepared tree which is copied for each target, retained until a
+         * context has been created for every target of the mixin or until it
+         * is evicted from {@link MixinInfo#preparedStates}
+         */
+        private volatile MixinClassNode preparedClassNode;
+        
+        /**
+         * Number of copies taken from the prepared tree 
+         */
+        private int preparedCopies;
 
         State(ClassNode classNode) {
             this(classNode, null);
@@ -311,6 +347,37 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
             return mixinClassNode;
         }
 
+        /**
+         * Gets a new tree which has already been through the preparation
+         * phase of the mixin preprocessor. The prepared tree is cached and
+         * copied for subsequent targets so that mixins with many targets
+         * are only prepared once.
+         * 
+         * @param type Mixin Type
+         * @return Prepared tree representing the bytecode
+         */
+        synchronized MixinClassNode createPreparedClassNode(SubType type) {
+            int targetCount = MixinInfo.this.getTargets().size();
+            MixinClassNode prepared = this.preparedClassNode;
+            if (prepared == null) {
+                prepared = this.createClassNode(ClassReader.EXPAND_FRAMES);
+                type.createPreProcessor(prepared).prepare(MixinInfo.this.getExtensions());
+                if (targetCount < 2) {
+                    return prepared;
+                }
+                this.preparedClassNode = prepared;
+                this.preparedCopies = 0;
+            }
+            
+            if (++this.preparedCopies >= targetCount) {
+                this.preparedClassNode = null;
+                MixinInfo.releasePrepared(this);
+            } else {
+                MixinInfo.retainPrepared(this);
+            }
+            return prepared.copy();
+        }
+
         /**
          * Performs pre-flight checks on the mixin
          * 
@@ -733,6 +800,39 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      */
     static int mixinOrder = 0;
     
+    /**
+     * Reader flags used to read only the class header of mixins whose
+     * preparation is deferred
+     */
+    static final int HEADER_READER_FLAGS = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+    
+    /**
+     * Maximum number of mixins which retain a prepared tree at once
+     */
+    private static final int MAX_PREPARED_STATES = 32;
+    
+    /**
+     * Mixin states which are retaining a prepared tree, in access order. A
+     * prepared tree is normally released once every target of the mixin has
+     * been loaded, but targets may never be loaded so the number of retained
+     * trees is bounded and the least recently used tree is discarded. A mixin
+     * whose tree was discarded is simply prepared again for its next target.
+     */
+    private static final Map<State, Boolean> preparedStates = new LinkedHashMap<State, Boolean>(16, 0.75F, true) {
+        
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<State, Boolean> eldest) {
+            if (this.size() > MixinInfo.MAX_PREPARED_STATES) {
+                eldest.getKey().preparedClassNode = null;
+                return true;
+            }
+            return false;
+        }
+        
+    };
+    
     /**
      * Logger
      */
@@ -833,6 +933,18 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      * Holds the current validated state
      */
     private transient State state;
+    
+    /**
+     * True if reading the full mixin class and validating it has been
+     * deferred until the mixin is first needed, see
+     * {@link Option#LAZY_PREPARE}
+     */
+    private transient volatile boolean deferred;
+    
+    /**
+     * True if deferred initialisation of this mixin failed
+     */
+    private transient volatile boolean failed;
 
     /**
      * Internal ctor, called by {@link MixinConfig}
@@ -842,8 +954,10 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      * @param plugin mixin config companion plugin handle
      * @param ignorePlugin true to prevent the plugin from filtering targets of
      *      this mixin
+     * @param prefetcher prefetched mixin classes, can be null
      */
-    MixinInfo(IMixinService service, MixinConfig parent, String name, PluginHandle plugin, boolean ignorePlugin, Extensions extensions) {
+    MixinInfo(IMixinService service, MixinConfig parent, String name, PluginHandle plugin, boolean ignorePlugin, Extensions extensions,
+            MixinClassPrefetcher prefetcher) {
         this.service = service;
         this.parent = parent;
         this.name = name;
@@ -853,11 +967,26 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
         this.strict = parent.getEnvironment().getOption(Option.DEBUG_TARGETS);
         this.extensions = extensions;
         
+        // In lazy mode only the class header is read here, the full class is
+        // read and validated when the mixin is first needed
+        boolean lazy = parent.getEnvironment().getOption(Option.LAZY_PREPARE);
+        MixinClassNode header = null;
+        
         // Read the class bytes and transform
         try {
-            ClassNode mixinClassNode = this.loadMixinClass(this.className);
-            this.pendingState = new State(mixinClassNode);
-            this.info = this.pendingState.getClassInfo();
+            if (lazy) {
+                ClassNode mixinClassNode = this.loadMixinClass(this.className, prefetcher, MixinInfo.HEADER_READER_FLAGS);
+                header = new MixinClassNode(this);
+                mixinClassNode.accept(header);
+                this.info = ClassInfo.fromClassHeader(header);
+                this.deferred = true;
+            } else {
+                int readerFlags = parent.getEnvironment().getOption(Option.CLASSREADER_EXPAND_FRAMES) ? ClassReader.EXPAND_FRAMES : 0;
+                ClassNode mixinClassNode = this.loadMixinClass(this.className, prefetcher, readerFlags);
+                this.pendingState = new State(mixinClassNode);
+                this.info = this.pendingState.getClassInfo();
+                header = this.pendingState.getValidationClassNode();
+            }
             this.type = SubType.getTypeFor(this);
         } catch (InvalidMixinException ex) {
             throw ex;
@@ -877,9 +1006,9 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
         
         // Read the class bytes and transform
         try {
-            this.priority = this.readPriority(this.pendingState.getClassNode());
-            this.virtual = this.readPseudo(this.pendingState.getValidationClassNode());
-            this.declaredTargets = this.readDeclaredTargets(this.pendingState.getValidationClassNode(), ignorePlugin);
+            this.priority = this.readPriority(lazy ? header : this.pendingState.getClassNode());
+            this.virtual = this.readPseudo(header);
+            this.declaredTargets = this.readDeclaredTargets(header, ignorePlugin);
         } catch (InvalidMixinException ex) {
             throw ex;
         } catch (Exception ex) {
@@ -1085,7 +1214,61 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      * the mixin is initialising for the first time. Should never return null.
      */
     private State getState() {
-        return this.state != null ? this.state : this.pendingState;
+        // The initialising thread holds the lock and uses the pending state
+        if (this.deferred && !Thread.holdsLock(this)) {
+            this.parent.initialiseMixin(this);
+        }
+        State state = this.state != null ? this.state : this.pendingState;
+        if (state == null && this.failed) {
+            throw new InvalidMixinException(this, "Deferred initialisation of " + this + " failed");
+        }
+        return state;
+    }
+
+    /**
+     * Get whether reading and validating the full mixin class has been
+     * deferred and not yet carried out
+     */
+    boolean isDeferred() {
+        return this.deferred;
+    }
+    
+    /**
+     * Get whether deferred initialisation of this mixin failed, in which case
+     * the mixin cannot be applied
+     */
+    boolean isFailed() {
+        return this.failed;
+    }
+    
+    /**
+     * Read the full mixin class and validate it, if this was deferred when
+     * the mixin was prepared. Callers should use {@link
+     * MixinConfig#initialiseMixin} which also notifies the config listeners.
+     */
+    synchronized void initialise() {
+        if (!this.deferred) {
+            return;
+        }
+        
+        boolean success = false;
+        ITimedEvent prepareEvent = Events.beginMixinPrepare(this.className, this.parent.getName());
+        try {
+            try {
+                int readerFlags = this.parent.getEnvironment().getOption(Option.CLASSREADER_EXPAND_FRAMES) ? ClassReader.EXPAND_FRAMES : 0;
+                this.pendingState = new State(this.loadMixinClass(this.className, null, readerFlags), this.info);
+            } catch (InvalidMixinException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new InvalidMixinException(this, ex.getMessage(), ex);
+            }
+            this.validate();
+            success = true;
+        } finally {
+            this.failed = !success;
+            this.deferred = false;
+            prepareEvent.complete(0, success ? "initialised" : "failed");
+        }
     }
 
     /**
@@ -1277,6 +1460,18 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
         return this.extensions;
     }
 
+    private static void retainPrepared(State state) {
+        synchronized (MixinInfo.preparedStates) {
+            MixinInfo.preparedStates.put(state, Boolean.TRUE);
+        }
+    }
+    
+    private static void releasePrepared(State state) {
+        synchronized (MixinInfo.preparedStates) {
+            MixinInfo.preparedStates.remove(state);
+        }
+    }
+
     /**
      * Get a new mixin target context object for the specified target
      * 
@@ -1284,9 +1479,9 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      * @return new context
      */
     MixinTargetContext createContextFor(TargetClassContext target) {
-        MixinClassNode classNode = this.getClassNode(ClassReader.EXPAND_FRAMES);
         Section preTimer = this.profiler.begin("pre");
-        MixinTargetContext context = this.type.createPreProcessor(classNode).prepare(this.extensions).createContextFor(target);
+        MixinClassNode classNode = this.getState().createPreparedClassNode(this.type);
+        MixinTargetContext context = this.type.createPreProcessor(classNode).createContextFor(target);
         preTimer.end();
         return context;
     }
@@ -1295,10 +1490,13 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      * Load the mixin class bytes
      * 
      * @param mixinClassName mixin class name
+     * @param prefetcher prefetched mixin classes, can be null
+     * @param readerFlags flags to read the class with if it was not
+     *      prefetched
      * @return mixin bytecode
      * @throws ClassNotFoundException if the mixin bytes could not be found
      */
-    private ClassNode loadMixinClass(String mixinClassName) throws ClassNotFoundException {
+    private ClassNode loadMixinClass(String mixinClassName, MixinClassPrefetcher prefetcher, int readerFlags) throws ClassNotFoundException {
         ClassNode classNode = null;
 
         try {
@@ -1309,8 +1507,12 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
                     this.logger.error("Classloader restrictions [{}] encountered loading {}, name: {}", restrictions, this, mixinClassName);
                 }
             }
-            int readerFlags = this.parent.getEnvironment().getOption(Option.CLASSREADER_EXPAND_FRAMES) ? ClassReader.EXPAND_FRAMES : 0;
-            classNode = this.service.getBytecodeProvider().getClassNode(mixinClassName, true, readerFlags);
+            if (prefetcher != null) {
+                classNode = prefetcher.get(mixinClassName);
+            }
+            if (classNode == null) {
+                classNode = this.service.getBytecodeProvider().getClassNode(mixinClassName, true, readerFlags);
+            }
         } catch (ClassNotFoundException ex) {
             throw new ClassNotFoundException(String.format("The specified mixin '%s' was not found", mixinClassName));
         } catch (IOException ex) {
@@ -1327,6 +1529,9 @@ class MixinInfo implements Comparable<MixinInfo>, IMixinInfo {
      * @param classNode New bytecode
      */
     void reloadMixin(ClassNode classNode) {
+        if (this.deferred) {
+            this.parent.initialiseMixin(this);
+        }
         if (this.pendingState != null) {
             throw new IllegalStateException("Cannot reload mixin while it is initialising");
         }
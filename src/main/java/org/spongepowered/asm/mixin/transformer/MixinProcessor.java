@@ -24,13 +24,23 @@
  */
 package org.spongepowered.asm.mixin.transformer;
 
+import java.io.File;
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.spongepowered.asm.logging.Level;
 import org.spongepowered.asm.logging.ILogger;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.AnnotationNode;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.asm.mixin.MixinEnvironment.Option;
@@ -51,8 +61,10 @@ import org.spongepowered.asm.mixin.transformer.MixinConfig.IListener;
 import org.spongepowered.asm.mixin.transformer.MixinCoprocessor.ProcessResult;
 import org.spongepowered.asm.mixin.transformer.MixinInfo.Variant;
 import org.spongepowered.asm.mixin.transformer.ext.Extensions;
+import org.spongepowered.asm.mixin.transformer.ext.IExtension;
 import org.spongepowered.asm.mixin.transformer.ext.IHotSwap;
 import org.spongepowered.asm.mixin.transformer.ext.extensions.ExtensionClassExporter;
+import org.spongepowered.asm.mixin.transformer.ext.extensions.ExtensionLVTCleaner;
 import org.spongepowered.asm.mixin.transformer.meta.MixinMerged;
 import org.spongepowered.asm.mixin.transformer.throwables.IllegalClassLoadError;
 import org.spongepowered.asm.mixin.transformer.throwables.InvalidMixinException;
@@ -61,17 +73,64 @@ import org.spongepowered.asm.mixin.transformer.throwables.ReEntrantTransformerEr
 import org.spongepowered.asm.service.IMixinAuditTrail;
 import org.spongepowered.asm.service.IMixinService;
 import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.transformers.MixinClassReader;
 import org.spongepowered.asm.util.Annotations;
+import org.spongepowered.asm.util.Constants;
 import org.spongepowered.asm.util.PrettyPrinter;
 import org.spongepowered.asm.util.ReEntranceLock;
+import org.spongepowered.asm.util.perf.Events;
+import org.spongepowered.asm.util.perf.IEventSink.ITimedEvent;
 import org.spongepowered.asm.util.perf.Profiler;
 import org.spongepowered.asm.util.perf.Profiler.Section;
 
+import com.google.common.base.Predicates;
+import com.google.common.collect.Iterators;
+
 /**
  * Heart of the Mixin pipeline 
  */
 class MixinProcessor {
 
+    /**
+     * Read-only view of the targets of every config apart from one, passed to
+     * config plugins. Membership is derived from the number of configs which
+     * target each class, so the union does not have to be built for each
+     * plugin
+     */
+    static final class OtherTargets extends AbstractSet<String> {
+        
+        private final Map<String, Integer> targetCounts;
+        
+        private final Set<String> ownTargets;
+        
+        private int size = -1;
+        
+        OtherTargets(Map<String, Integer> targetCounts, Set<String> ownTargets) {
+            this.targetCounts = targetCounts;
+            this.ownTargets = ownTargets;
+        }
+        
+        @Override
+        public boolean contains(Object target) {
+            Integer count = this.targetCounts.get(target);
+            return count != null && count.intValue() > (this.ownTargets.contains(target) ? 1 : 0);
+        }
+        
+        @Override
+        public Iterator<String> iterator() {
+            return Iterators.filter(this.targetCounts.keySet().iterator(), Predicates.in(this));
+        }
+        
+        @Override
+        public int size() {
+            if (this.size < 0) {
+                this.size = Iterators.size(this.iterator());
+            }
+            return this.size;
+        }
+        
+    }
+
     /**
      * Phase during which an error occurred, delegates to functionality in
      * available handler
@@ -159,11 +218,42 @@ class MixinProcessor {
      */
     private final List<MixinConfig> pendingConfigs = new ArrayList<MixinConfig>();
     
+    /**
+     * Routing index for the selected configs, rebuilt whenever configs are
+     * prepared or mixins are reloaded
+     */
+    private volatile MixinTargetIndex targetIndex = MixinTargetIndex.EMPTY;
+    
     /**
      * Re-entrance detector
      */
     private final ReEntranceLock lock;
     
+    /**
+     * Guards the config lists, held for reading whilst classes are processed
+     * and for writing whilst configs are selected, prepared or reloaded
+     */
+    private final ReadWriteLock configLock = new ReentrantReadWriteLock();
+    
+    /**
+     * True if mixins can be applied to multiple target classes concurrently,
+     * see {@link Option#CONCURRENT_APPLICATION}
+     */
+    private final boolean concurrent;
+    
+    /**
+     * Locks for target classes which are having mixins applied, only used in
+     * concurrent mode
+     */
+    private final ConcurrentMap<String, Lock> targetLocks = new ConcurrentHashMap<String, Lock>();
+    
+    /**
+     * Locks for mixins which are being applied, only used in concurrent mode.
+     * Mixins are always locked in their natural order after the target lock
+     * is acquired, so that two targets sharing a mixin cannot deadlock
+     */
+    private final ConcurrentMap<String, Lock> mixinLocks = new ConcurrentHashMap<String, Lock>();
+    
     /**
      * Session ID, used as a check when parsing {@link MixinMerged} annotations
      * to prevent them being applied at compile time by people trying to
@@ -195,11 +285,28 @@ class MixinProcessor {
      * Audit trail (if available); 
      */
     private final IMixinAuditTrail auditTrail;
+    
+    /**
+     * Transformed class cache, null unless enabled with
+     * {@link Option#TRANSFORMED_CLASS_CACHE}
+     */
+    private final TransformedClassCache classCache;
+    
+    /**
+     * Load order profile, recorded if target prefetch is enabled
+     */
+    private final LoadOrderProfile loadOrder;
+    
+    /**
+     * Manifest of classes which had mixins applied at build time, null if
+     * there is no manifest
+     */
+    private final AotManifest aotManifest;
 
     /**
      * Current environment 
      */
-    private MixinEnvironment currentEnvironment;
+    private volatile MixinEnvironment currentEnvironment;
 
     /**
      * Logging level for verbose messages 
@@ -207,20 +314,22 @@ class MixinProcessor {
     private Level verboseLoggingLevel = Level.DEBUG;
 
     /**
-     * Handling an error state, do not process further mixins
+     * Thread which is handling an error state, do not process further mixins
+     * on this thread until the error is handled
      */
-    private boolean errorState = false;
+    private volatile Thread errorState;
     
     /**
      * Number of classes transformed in the current phase
      */
-    private int transformedCount = 0;
+    private final AtomicInteger transformedCount = new AtomicInteger();
 
     /**
      * ctor 
      */
     MixinProcessor(MixinEnvironment environment, Extensions extensions, IHotSwap hotSwapper, MixinCoprocessorNestHost nestHostCoprocessor) {
         this.lock = this.service.getReEntranceLock();
+        this.concurrent = environment.getOption(Option.CONCURRENT_APPLICATION);
         
         this.extensions = extensions;
         this.hotSwapper = hotSwapper;
@@ -232,6 +341,38 @@ class MixinProcessor {
         
         this.profiler = Profiler.getProfiler("mixin");
         this.auditTrail = this.service.getAuditTrail();
+        
+        // Hot-swapping needs to see every target class, so it bypasses the cache
+        boolean useCache = environment.getOption(Option.TRANSFORMED_CLASS_CACHE) && hotSwapper == null;
+        this.classCache = useCache ? TransformedClassCache.open() : null;
+        this.loadOrder = environment.getOption(Option.TARGET_PREFETCH) ? LoadOrderProfile.getInstance() : null;
+        
+        // Hot-swapping needs to reapply mixins to the original class
+        String aotManifest = environment.getOptionValue(Option.AOT_MANIFEST);
+        this.aotManifest = aotManifest != null && !aotManifest.isEmpty() && hotSwapper == null ? AotManifest.readAll(aotManifest) : null;
+        
+        final String profilerExport = environment.getOptionValue(Option.DEBUG_PROFILER_EXPORT);
+        if (profilerExport != null && !profilerExport.isEmpty()) {
+            Runtime.getRuntime().addShutdownHook(new Thread("Mixin profiler export") {
+                @Override
+                public void run() {
+                    Profiler.exportAuditSummary(MixinProcessor.getProfilerExportDir(), profilerExport);
+                }
+            });
+        }
+    }
+    
+    static File getProfilerExportDir() {
+        return new File(Constants.DEBUG_OUTPUT_DIR, "profiler");
+    }
+    
+    /**
+     * Get the manifest of classes which had mixins applied at build time
+     * 
+     * @return manifest or null if there is no manifest
+     */
+    AotManifest getAotManifest() {
+        return this.aotManifest;
     }
 
     /**
@@ -266,24 +407,340 @@ class MixinProcessor {
         
         if (environment.getOption(Option.DEBUG_PROFILER)) {
             Profiler.printAuditSummary();
+            Profiler.exportAuditSummary(MixinProcessor.getProfilerExportDir(), environment.getOptionValue(Option.DEBUG_PROFILER_EXPORT));
+            auditLogger.info("Class metadata {}", ClassInfo.getCacheStats());
+            if (this.classCache != null) {
+                auditLogger.info("Transformed classes {}", this.classCache);
+            }
         }
     }
 
-    synchronized boolean applyMixins(MixinEnvironment environment, String name, ClassNode targetClassNode) {
-        if (name == null || this.errorState) {
+    boolean applyMixins(MixinEnvironment environment, String name, ClassNode targetClassNode) {
+        return this.applyMixins(environment, name, targetClassNode, null, null);
+    }
+
+    /**
+     * Apply mixins to the supplied class
+     * 
+     * @param environment current environment
+     * @param name class name
+     * @param targetClassNode class tree
+     * @param cacheEntry class cache entry from {@link #getCachedClass}, the
+     *      entry is discarded if mixins cannot be applied cleanly
+     * @param modifiedMethods if not null, receives the methods which were
+     *      added or modified and need their frames recomputed. If the class was
+     *      transformed in a way which cannot be tracked, all methods are added
+     * @return true if the class was transformed
+     */
+    boolean applyMixins(MixinEnvironment environment, String name, ClassNode targetClassNode, TransformedClassCache.Entry cacheEntry,
+            Set<MethodNode> modifiedMethods) {
+        if (this.concurrent) {
+            return this.processClass(environment, name, targetClassNode, cacheEntry, modifiedMethods);
+        }
+        
+        synchronized (this) {
+            return this.processClass(environment, name, targetClassNode, cacheEntry, modifiedMethods);
+        }
+    }
+
+    /**
+     * Determine from its name alone whether the specified class needs to be
+     * parsed and passed to {@link #applyMixins}. Returns false only if the
+     * class is not a mixin target, is not in a mixin package and is not of
+     * interest to any coprocessor, in which case it would be passed through
+     * unchanged.
+     * 
+     * @param environment current environment
+     * @param name class name
+     * @return true if the class must be parsed and processed
+     */
+    boolean requiresProcessing(MixinEnvironment environment, String name) {
+        if (name == null || this.errorState == Thread.currentThread()) {
+            return false;
+        }
+        
+        if (this.lock.getDepth() > 0) {
+            // Leave re-entrant checks to processClass
+            return true;
+        }
+        
+        // Selection may load classes, so the lock must be held to detect it
+        this.lock.push();
+        try {
+            this.checkSelect(environment);
+        } catch (Exception ex) {
+            throw new MixinException(ex);
+        } finally {
+            this.lock.pop();
+        }
+        
+        Lock readLock = this.configLock.readLock();
+        readLock.lock();
+        try {
+            MixinTargetIndex index = this.targetIndex;
+            return index.getMixinsFor(name) != null || index.getPackageOwner(name) != null || this.coprocessors.handlesClass(name);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Look up the transformed bytecode for the specified class in the class
+     * cache. If the lookup hits, the side-effects of applying the mixins are
+     * replayed and the returned entry holds the transformed bytecode. If the
+     * lookup misses, the entry should be passed to {@link #applyMixins} and
+     * the transformed bytecode stored in it afterwards.
+     * 
+     * @param environment current environment
+     * @param name class name
+     * @param classBytes incoming class bytes
+     * @return cache entry, or null if the class cannot use the cache
+     */
+    TransformedClassCache.Entry getCachedClass(MixinEnvironment environment, String name, byte[] classBytes) {
+        if (this.classCache == null || name == null || classBytes == null || this.errorState == Thread.currentThread()
+                || this.lock.getDepth() > 0 || this.isSelectRequired(environment) || !this.canUseClassCache() || this.isPreApplied(name)) {
+            return null;
+        }
+        
+        if (this.concurrent) {
+            return this.getCachedClass(environment, name, classBytes, this.classCache);
+        }
+        
+        synchronized (this) {
+            return this.getCachedClass(environment, name, classBytes, this.classCache);
+        }
+    }
+
+    private TransformedClassCache.Entry getCachedClass(MixinEnvironment environment, String name, byte[] classBytes, TransformedClassCache cache) {
+        Section cacheTimer = this.profiler.begin("cache");
+        ITimedEvent transformEvent = Events.beginClassTransform(name);
+        Lock readLock = this.configLock.readLock();
+        readLock.lock();
+        try {
+            SortedSet<MixinInfo> mixins = this.getMixinsFor(environment, name);
+            if (mixins == null || !TransformedClassCache.isCacheable(mixins)) {
+                return null;
+            }
+            
+            TransformedClassCache.Entry entry = cache.get(environment, name, classBytes, mixins);
+            if (entry == null || !entry.isHit()) {
+                return entry;
+            }
+
+            this.lock.push();
+            List<Lock> applyLocks = this.acquireApplyLocks(name, mixins);
+            try {
+                this.applyCachedClass(environment, name, classBytes, entry.getBytes(), mixins);
+            } finally {
+                MixinProcessor.releaseLocks(applyLocks);
+                this.lock.pop();
+            }
+            transformEvent.complete(mixins.size(), "cached");
+            return entry;
+        } catch (MixinTransformerError er) {
+            throw er;
+        } catch (Throwable th) {
+            throw new MixinTransformerError("An unexpected critical error was encountered applying cached class " + name, th);
+        } finally {
+            readLock.unlock();
+            cacheTimer.end();
+        }
+    }
+    
+    /**
+     * Replay the side-effects of applying the supplied mixins to a class whose
+     * transformed bytecode was retrieved from the cache: the class metadata
+     * gains the members added by the mixins, the audit trail and the mixins
+     * are notified of application, and the class is exported if required.
+     */
+    private void applyCachedClass(MixinEnvironment environment, String name, byte[] classBytes, byte[] transformedBytes,
+            SortedSet<MixinInfo> mixins) throws Exception {
+        ClassNode transformedHeader = TransformedClassCache.readHeader(name, transformedBytes);
+        ClassInfo targetInfo = ClassInfo.fromClassHeader(TransformedClassCache.readHeader(name, classBytes));
+        targetInfo.addMembers(transformedHeader);
+        
+        for (MixinInfo mixin : mixins) {
+            if (this.auditTrail != null) {
+                this.auditTrail.onApply(name, mixin.toString());
+            }
+            // Mixins from configs with plugins are never cached, so there is no
+            // plugin to receive the target class here
+            mixin.postApply(name, null);
+        }
+
+        if (environment.getOption(Option.DEBUG_EXPORT)) {
+            ClassNode classNode = new ClassNode();
+            new MixinClassReader(transformedBytes, name).accept(classNode, ClassReader.EXPAND_FRAMES);
+            this.extensions.export(environment, name, false, classNode);
+        }
+        
+        this.transformedCount.incrementAndGet();
+        if (this.loadOrder != null) {
+            this.loadOrder.record(name);
+        }
+    }
+    
+    /**
+     * Get whether the specified class is listed in the AOT manifest
+     */
+    private boolean isPreApplied(String name) {
+        return this.aotManifest != null && this.aotManifest.get(name) != null;
+    }
+    
+    /**
+     * Check whether the supplied class had every mixin which targets it
+     * applied at build time. If so, the side-effects of application are
+     * replayed and the class can be used as it is. Classes which also need
+     * mixins applied at runtime, or which coprocessors are interested in, are
+     * left to {@link #applyMixins}, which only applies the remaining mixins.
+     * 
+     * @param environment current environment
+     * @param name class name
+     * @param classBytes incoming class bytes
+     * @return true if all mixins for the class were pre-applied
+     */
+    boolean acceptPreApplied(MixinEnvironment environment, String name, byte[] classBytes) {
+        if (classBytes == null || !this.isPreApplied(name) || this.errorState == Thread.currentThread() || this.lock.getDepth() > 0
+                || this.isSelectRequired(environment) || this.coprocessors.handlesClass(name)) {
+            return false;
+        }
+        
+        Section aotTimer = this.profiler.begin("aot");
+        Lock readLock = this.configLock.readLock();
+        readLock.lock();
+        try {
+            SortedSet<MixinInfo> mixins = this.getMixinsFor(environment, name);
+            if (mixins == null) {
+                return false;
+            }
+            
+            ClassNode header = TransformedClassCache.readHeader(name, classBytes);
+            if (!this.aotManifest.matches(name, header) || this.getPreApplied(name, mixins).size() != mixins.size()) {
+                return false;
+            }
+            
+            ITimedEvent transformEvent = Events.beginClassTransform(name);
+            this.lock.push();
+            List<Lock> applyLocks = this.acquireApplyLocks(name, mixins);
+            try {
+                ClassInfo.fromClassHeader(header);
+                this.replayPreApplied(name, header, mixins);
+            } finally {
+                MixinProcessor.releaseLocks(applyLocks);
+                this.lock.pop();
+            }
+            transformEvent.complete(mixins.size(), "preapplied");
+            return true;
+        } catch (MixinTransformerError er) {
+            throw er;
+        } catch (Throwable th) {
+            throw new MixinTransformerError("An unexpected critical error was encountered accepting pre-applied class " + name, th);
+        } finally {
+            readLock.unlock();
+            aotTimer.end();
+        }
+    }
+    
+    /**
+     * Replay application of the mixins which were applied to the supplied
+     * class at build time, and get the mixins which still need to be applied.
+     * The caller must have checked that the class matches the AOT manifest.
+     * 
+     * @param name class name
+     * @param targetClassNode class tree
+     * @param mixins all mixins for the class
+     * @return remaining mixins, or null if every mixin was pre-applied
+     */
+    private SortedSet<MixinInfo> applyPreApplied(String name, ClassNode targetClassNode, SortedSet<MixinInfo> mixins) throws Exception {
+        SortedSet<MixinInfo> preApplied = this.getPreApplied(name, mixins);
+        if (preApplied.isEmpty()) {
+            return mixins;
+        }
+        
+        List<Lock> applyLocks = this.acquireApplyLocks(name, preApplied);
+        try {
+            ClassInfo.fromClassNode(targetClassNode);
+            this.replayPreApplied(name, targetClassNode, preApplied);
+        } finally {
+            MixinProcessor.releaseLocks(applyLocks);
+        }
+        
+        if (preApplied.size() == mixins.size()) {
+            return null;
+        }
+        
+        // Mixins applied now must see the pre-applied members as merged in
+        // this session, or overwrites of them are rejected
+        this.aotManifest.adopt(targetClassNode, this.sessionId);
+        SortedSet<MixinInfo> remaining = new TreeSet<MixinInfo>(mixins);
+        remaining.removeAll(preApplied);
+        return remaining;
+    }
+    
+    private SortedSet<MixinInfo> getPreApplied(String name, SortedSet<MixinInfo> mixins) {
+        List<String> applied = this.aotManifest.get(name).getMixins();
+        SortedSet<MixinInfo> preApplied = new TreeSet<MixinInfo>();
+        for (MixinInfo mixin : mixins) {
+            if (applied.contains(mixin.getClassName())) {
+                preApplied.add(mixin);
+            }
+        }
+        return preApplied;
+    }
+    
+    /**
+     * Replay the side-effects of applying mixins to a class which had them
+     * applied at build time. The class metadata already describes the members
+     * added by the mixins, so only the audit trail and the mixins are notified
+     * of application, which also records the mixins in the class metadata.
+     */
+    private void replayPreApplied(String name, ClassNode classNode, SortedSet<MixinInfo> mixins) throws Exception {
+        for (MixinInfo mixin : mixins) {
+            if (this.auditTrail != null) {
+                this.auditTrail.onApply(name, mixin.toString());
+            }
+            mixin.postApply(name, classNode);
+        }
+        
+        this.transformedCount.incrementAndGet();
+        if (this.loadOrder != null) {
+            this.loadOrder.record(name);
+        }
+    }
+    
+    /**
+     * The cache can only be used if no extensions need to inspect the target
+     * class context during application
+     */
+    private boolean canUseClassCache() {
+        for (IExtension extension : this.extensions.getActiveExtensions()) {
+            if (!(extension instanceof ExtensionClassExporter) && !(extension instanceof ExtensionLVTCleaner)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean processClass(MixinEnvironment environment, String name, ClassNode targetClassNode, TransformedClassCache.Entry cacheEntry,
+            Set<MethodNode> modifiedMethods) {
+        if (name == null || this.errorState == Thread.currentThread()) {
             return false;
         }
         
         boolean locked = this.lock.push().check();
         Section mixinTimer = this.profiler.begin("mixin");
+        ITimedEvent transformEvent = Events.beginClassTransform(name);
+        Lock readLock = this.configLock.readLock();
 
         if (locked) {
-            for (MixinConfig config : this.pendingConfigs) {
-                if (config.hasPendingMixinsFor(name)) {
-                    ReEntrantTransformerError error = new ReEntrantTransformerError("Re-entrance error.");
-                    MixinProcessor.logger.warn("Re-entrance detected during prepare phase, this will cause serious problems.", error);
-                    throw error;
-                }
+            readLock.lock();
+            try {
+                this.checkPending(name);
+            } catch (ReEntrantTransformerError error) {
+                readLock.unlock();
+                this.lock.pop();
+                mixinTimer.end();
+                throw error;
             }
         } else {
             try {
@@ -293,37 +750,33 @@ class MixinProcessor {
                 mixinTimer.end();
                 throw new MixinException(ex);
             }
+            readLock.lock();
         }
         
         boolean transformed = false;
+        boolean coprocessed = false;
+        Set<MethodNode> mixinModifiedMethods = null;
+        int mixinCount = 0;
+        String outcome = null;
         
         try {
             ProcessResult result = this.coprocessors.process(name, targetClassNode);
-            transformed |= result.isTransformed();
+            coprocessed |= result.isTransformed();
+            transformed |= coprocessed;
             
             if (result.isPassthrough()) {
-                for (MixinCoprocessor coprocessor : this.coprocessors) {
-                    transformed |= coprocessor.postProcess(name, targetClassNode);
-                }
+                coprocessed |= this.coprocessors.postProcess(name, targetClassNode);
+                transformed |= coprocessed;
                 if (this.auditTrail != null) {
                     this.auditTrail.onPostProcess(name);
                 }
                 this.extensions.export(environment, name, false, targetClassNode);
+                outcome = "passthrough";
                 return transformed;
             }
 
-            MixinConfig packageOwnedByConfig = null;
+            MixinConfig packageOwnedByConfig = this.targetIndex.getPackageOwner(name);
             
-            for (MixinConfig config : this.configs) {
-                if (config.packageMatch(name)) {
-                    int packageLen = packageOwnedByConfig != null ? packageOwnedByConfig.getMixinPackage().length() : 0;
-                    if (config.getMixinPackage().length() > packageLen) {
-                        packageOwnedByConfig = config;
-                    }
-                    continue;
-                }
-            }                
-
             if (packageOwnedByConfig != null) {
                 // AMS - Temp passthrough for injection points and dynamic selectors. Moving to service in 0.9
                 ClassInfo targetInfo = ClassInfo.fromClassNode(targetClassNode);
@@ -334,15 +787,12 @@ class MixinProcessor {
                 throw new IllegalClassLoadError(this.getInvalidClassError(name, targetClassNode, packageOwnedByConfig));
             }
 
-            SortedSet<MixinInfo> mixins = null;
-            for (MixinConfig config : this.configs) {
-                if (config.hasMixinsFor(name)) {
-                    if (mixins == null) {
-                        mixins = new TreeSet<MixinInfo>();
-                    }
-                    
-                    // Get and sort mixins for the class
-                    mixins.addAll(config.getMixinsFor(name));
+            SortedSet<MixinInfo> mixins = this.getMixinsFor(environment, name);
+            if (mixins != null && this.isPreApplied(name) && this.aotManifest.matches(name, targetClassNode)) {
+                mixinCount = mixins.size();
+                mixins = this.applyPreApplied(name, targetClassNode, mixins);
+                if (mixins == null) {
+                    outcome = "preapplied";
                 }
             }
             
@@ -358,44 +808,179 @@ class MixinProcessor {
                     this.hotSwapper.registerTargetClass(name, targetClassNode);
                 }
 
+                mixinCount = mixins.size();
+                List<Lock> applyLocks = this.acquireApplyLocks(name, mixins);
                 try {
                     TargetClassContext context = new TargetClassContext(environment, this.extensions, this.sessionId, name, targetClassNode, mixins);
                     context.applyMixins();
+                    mixinModifiedMethods = context.getModifiedMethods();
                     
-                    transformed |= this.coprocessors.postProcess(name, targetClassNode);
+                    coprocessed |= this.coprocessors.postProcess(name, targetClassNode);
+                    transformed |= coprocessed;
 
                     if (context.isExported()) {
                         this.extensions.export(environment, context.getClassName(), context.isExportForced(), context.getClassNode());
                     }
                     
                     for (InvalidMixinException suppressed : context.getSuppressedExceptions()) {
+                        MixinProcessor.discard(cacheEntry);
                         this.handleMixinApplyError(context.getClassName(), suppressed, environment);
                     }
 
-                    this.transformedCount++;
+                    this.transformedCount.incrementAndGet();
                     transformed = true;
+                    outcome = "transformed";
+                    if (this.loadOrder != null) {
+                        this.loadOrder.record(name);
+                    }
                 } catch (InvalidMixinException th) {
+                    outcome = "failed";
+                    MixinProcessor.discard(cacheEntry);
                     this.dumpClassOnFailure(name, targetClassNode, environment);
                     this.handleMixinApplyError(name, th, environment);
+                } finally {
+                    MixinProcessor.releaseLocks(applyLocks);
                 }
             } else {
                 // No mixins, but still need to run postProcess stage of coprocessors
                 if (this.coprocessors.postProcess(name, targetClassNode)) {
+                    coprocessed = true;
                     transformed = true;
                     this.extensions.export(environment, name, false, targetClassNode);
                 }
             }
         } catch (MixinTransformerError er) {
+            outcome = "failed";
+            MixinProcessor.discard(cacheEntry);
             throw er;
         } catch (Throwable th) {
+            outcome = "failed";
+            MixinProcessor.discard(cacheEntry);
             this.dumpClassOnFailure(name, targetClassNode, environment);
             throw new MixinTransformerError("An unexpected critical error was encountered", th);
         } finally {
+            readLock.unlock();
             this.lock.pop();
             mixinTimer.end();
+            transformEvent.complete(mixinCount, outcome != null ? outcome : transformed ? "postprocessed" : "unchanged");
+        }
+        
+        if (modifiedMethods != null && transformed) {
+            // Coprocessors don't report what they changed, so the whole class
+            // has to be considered modified if any of them did anything
+            if (coprocessed || mixinModifiedMethods == null) {
+                modifiedMethods.addAll(targetClassNode.methods);
+            } else {
+                modifiedMethods.addAll(mixinModifiedMethods);
+            }
         }
         return transformed;
     }
+    
+    /**
+     * Get the mixins from all configs which target the specified class, sorted
+     * into application order. Deferred mixins are initialised here, failures
+     * are handled in the same way as failures during eager preparation.
+     * 
+     * @param environment current environment
+     * @param name class name
+     * @return sorted mixins or null if there are no mixins for the class
+     */
+    private SortedSet<MixinInfo> getMixinsFor(MixinEnvironment environment, String name) {
+        SortedSet<MixinInfo> mixins = this.targetIndex.getMixinsFor(name);
+        if (mixins == null) {
+            return null;
+        }
+        
+        // Complete any deferred mixins, and drop those which failed
+        SortedSet<MixinInfo> initialised = mixins;
+        for (MixinInfo mixin : mixins) {
+            boolean success = false;
+            try {
+                success = mixin.getParent().initialiseMixin(mixin);
+            } catch (InvalidMixinException ex) {
+                this.handleMixinPrepareError(mixin.getParent(), ex, environment);
+            }
+            if (!success) {
+                if (initialised == mixins) {
+                    initialised = new TreeSet<MixinInfo>(mixins);
+                }
+                initialised.remove(mixin);
+            }
+        }
+        return initialised != mixins && initialised.isEmpty() ? null : initialised;
+    }
+    
+    private static void discard(TransformedClassCache.Entry cacheEntry) {
+        if (cacheEntry != null) {
+            cacheEntry.discard();
+        }
+    }
+    
+    /**
+     * Check whether the supplied class is a target of a mixin which is still
+     * being prepared, this is only called when re-entrance is detected
+     * 
+     * @param name Class name
+     */
+    private void checkPending(String name) {
+        for (MixinConfig config : this.pendingConfigs) {
+            if (config.hasPendingMixinsFor(name)) {
+                ReEntrantTransformerError error = new ReEntrantTransformerError("Re-entrance error.");
+                MixinProcessor.logger.warn("Re-entrance detected during prepare phase, this will cause serious problems.", error);
+                throw error;
+            }
+        }
+    }
+    
+    /**
+     * In concurrent mode, acquire the lock for the target class followed by
+     * the locks for each mixin being applied in order. Targets which do not
+     * share any mixins can therefore be processed in parallel, whilst the
+     * shared mixin state is only ever touched by one thread at a time. When
+     * not in concurrent mode, the processor itself is already held and this
+     * method does nothing.
+     * 
+     * @param name Target class name
+     * @param mixins Mixins being applied, in application order
+     * @return Acquired locks, to be passed to {@link #releaseLocks}
+     */
+    private List<Lock> acquireApplyLocks(String name, SortedSet<MixinInfo> mixins) {
+        if (!this.concurrent) {
+            return Collections.<Lock>emptyList();
+        }
+        
+        List<Lock> locks = new ArrayList<Lock>(mixins.size() + 1);
+        try {
+            locks.add(MixinProcessor.acquireLock(this.targetLocks, name));
+            for (MixinInfo mixin : mixins) {
+                locks.add(MixinProcessor.acquireLock(this.mixinLocks, mixin.getClassName()));
+            }
+        } catch (RuntimeException ex) {
+            MixinProcessor.releaseLocks(locks);
+            throw ex;
+        }
+        return locks;
+    }
+    
+    private static Lock acquireLock(ConcurrentMap<String, Lock> locks, String key) {
+        Lock lock = locks.get(key);
+        if (lock == null) {
+            Lock newLock = new ReentrantLock();
+            lock = locks.putIfAbsent(key, newLock);
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+        lock.lock();
+        return lock;
+    }
+    
+    private static void releaseLocks(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
 
     private String getInvalidClassError(String name, ClassNode targetClassNode, MixinConfig ownedByConfig) {
         if (ownedByConfig.getClasses().contains(name)) {
@@ -427,28 +1012,47 @@ class MixinProcessor {
             throw new MixinApplyError("Cannot reload mixin if re-entrant lock entered");
         }
         List<String> targets = new ArrayList<String>();
-        for (MixinConfig config : this.configs) {
-            targets.addAll(config.reloadMixin(mixinClass, classNode));
+        Lock writeLock = this.configLock.writeLock();
+        writeLock.lock();
+        try {
+            for (MixinConfig config : this.configs) {
+                targets.addAll(config.reloadMixin(mixinClass, classNode));
+            }
+            
+            // Reloading can change mixin priorities, so re-sort the index
+            this.targetIndex = new MixinTargetIndex(this.configs);
+        } finally {
+            writeLock.unlock();
         }
         return targets;
     }
 
     private void checkSelect(MixinEnvironment environment) {
-        if (this.currentEnvironment != environment) {
-            this.select(environment);
+        if (!this.isSelectRequired(environment)) {
             return;
         }
         
-        int unvisitedCount = Mixins.getUnvisitedCount();
-        if (unvisitedCount > 0 && this.transformedCount == 0) {
-            this.select(environment);
+        Lock writeLock = this.configLock.writeLock();
+        writeLock.lock();
+        try {
+            // Another thread may have completed selection whilst we waited
+            if (this.isSelectRequired(environment)) {
+                this.select(environment);
+            }
+        } finally {
+            writeLock.unlock();
         }
     }
+    
+    private boolean isSelectRequired(MixinEnvironment environment) {
+        return this.currentEnvironment != environment || (this.transformedCount.get() == 0 && Mixins.getUnvisitedCount() > 0);
+    }
 
     private void select(MixinEnvironment environment) {
         this.verboseLoggingLevel = (environment.getOption(Option.DEBUG_VERBOSE)) ? Level.INFO : Level.DEBUG;
-        if (this.transformedCount > 0) {
-            MixinProcessor.logger.log(this.verboseLoggingLevel, "Ending {}, applied {} mixins", this.currentEnvironment, this.transformedCount);
+        int transformedCount = this.transformedCount.get();
+        if (transformedCount > 0) {
+            MixinProcessor.logger.log(this.verboseLoggingLevel, "Ending {}, applied {} mixins", this.currentEnvironment, transformedCount);
         }
         String action = this.currentEnvironment == environment ? "Checking for additional" : "Preparing";
         MixinProcessor.logger.log(this.verboseLoggingLevel, "{} mixins for {}", action, environment);
@@ -461,7 +1065,7 @@ class MixinProcessor {
         this.extensions.select(environment);
         int totalMixins = this.prepareConfigs(environment, this.extensions);
         this.currentEnvironment = environment;
-        this.transformedCount = 0;
+        this.transformedCount.set(0);
 
         prepareTimer.end();
         
@@ -534,33 +1138,48 @@ class MixinProcessor {
             }
         }
         
-        for (MixinConfig config : this.pendingConfigs) {
-            try {
-                MixinProcessor.logger.log(this.verboseLoggingLevel, "Preparing {} ({})", config, config.getDeclaredMixinCount());
-                config.prepare(extensions);
-                totalMixins += config.getMixinCount();
-            } catch (InvalidMixinException ex) {
-                this.handleMixinPrepareError(config, ex, environment);
-            } catch (Exception ex) {
-                String message = ex.getMessage();
-                MixinProcessor.logger.error("Error encountered whilst initialising mixin config '" + config.getName() + "': " + message, ex);
+        MixinClassPrefetcher prefetcher = environment.getOption(Option.PARALLEL_PREPARE)
+                ? new MixinClassPrefetcher(this.service, this.pendingConfigs) : null;
+        try {
+            for (MixinConfig config : this.pendingConfigs) {
+                try {
+                    MixinProcessor.logger.log(this.verboseLoggingLevel, "Preparing {} ({})", config, config.getDeclaredMixinCount());
+                    config.prepare(extensions, prefetcher);
+                    totalMixins += config.getMixinCount();
+                } catch (InvalidMixinException ex) {
+                    this.handleMixinPrepareError(config, ex, environment);
+                } catch (Exception ex) {
+                    String message = ex.getMessage();
+                    MixinProcessor.logger.error("Error encountered whilst initialising mixin config '" + config.getName() + "': " + message, ex);
+                }
+            }
+        } finally {
+            if (prefetcher != null) {
+                prefetcher.close();
             }
         }
         
+        // Count the configs targetting each class once, rather than building
+        // the union of the other configs' targets separately for each plugin
+        Map<String, Integer> targetCounts = null;
         for (MixinConfig config : this.pendingConfigs) {
             IMixinConfigPlugin plugin = config.getPlugin();
             if (plugin == null) {
                 continue;
             }
             
-            Set<String> otherTargets = new HashSet<String>();
-            for (MixinConfig otherConfig : this.pendingConfigs) {
-                if (!otherConfig.equals(config)) {
-                    otherTargets.addAll(otherConfig.getTargets());
-                }
+            if (targetCounts == null) {
+                targetCounts = MixinProcessor.countTargets(this.pendingConfigs);
             }
             
-            plugin.acceptTargets(config.getTargetsSet(), Collections.<String>unmodifiableSet(otherTargets));
+            Set<String> targets = config.getTargetsSet();
+            int targetCount = targets.size();
+            plugin.acceptTargets(targets, new OtherTargets(targetCounts, new HashSet<String>(targets)));
+            
+            // Plugins can remove their own targets, in which case recount
+            if (targets.size() != targetCount) {
+                targetCounts = null;
+            }
         }
 
         for (MixinConfig config : this.pendingConfigs) {
@@ -577,10 +1196,23 @@ class MixinProcessor {
         this.configs.addAll(this.pendingConfigs);
         Collections.sort(this.configs);
         this.pendingConfigs.clear();
+        this.targetIndex = new MixinTargetIndex(this.configs);
+        MixinProcessor.logger.log(this.verboseLoggingLevel, "Built mixin target index: {}", this.targetIndex);
         
         return totalMixins;
     }
 
+    private static Map<String, Integer> countTargets(List<MixinConfig> configs) {
+        Map<String, Integer> targetCounts = new HashMap<String, Integer>();
+        for (MixinConfig config : configs) {
+            for (String target : config.getTargets()) {
+                Integer count = targetCounts.get(target);
+                targetCounts.put(target, Integer.valueOf(count != null ? count.intValue() + 1 : 1));
+            }
+        }
+        return targetCounts;
+    }
+
     private void handleMixinPrepareError(MixinConfig config, InvalidMixinException ex, MixinEnvironment environment) throws MixinPrepareError {
         this.handleMixinError(config.getName(), ex, environment, ErrorPhase.PREPARE);
     }
@@ -590,7 +1222,7 @@ class MixinProcessor {
     }
 
     private void handleMixinError(String context, InvalidMixinException ex, MixinEnvironment environment, ErrorPhase errorPhase) throws Error {
-        this.errorState = true;
+        this.errorState = Thread.currentThread();
         
         IMixinInfo mixin = ex.getMixin();
         
@@ -631,7 +1263,7 @@ class MixinProcessor {
         
         MixinProcessor.logger.log(action.logLevel, errorPhase.getLogMessage(context, ex, mixin), ex);
         
-        this.errorState = false;
+        this.errorState = null;
 
         if (action == ErrorAction.ERROR) {
             throw new MixinApplyError(errorPhase.getErrorMessage(mixin, config, phase), ex);
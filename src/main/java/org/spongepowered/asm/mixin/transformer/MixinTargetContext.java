@@ -44,6 +44,7 @@ import org.spongepowered.asm.mixin.extensibility.IActivityContext.IActivity;
 import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
 import org.spongepowered.asm.mixin.gen.AccessorInfo;
 import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.code.InjectionPointBatch;
 import org.spongepowered.asm.mixin.injection.struct.Constructor;
 import org.spongepowered.asm.mixin.injection.struct.InjectionInfo;
 import org.spongepowered.asm.mixin.injection.struct.InjectorGroupInfo;
@@ -1379,18 +1380,18 @@ public class MixinTargetContext extends ClassContext implements IMixinContext {
     }
     
     /**
-     * Scans the target class for injector methods and prepares discovered
+     * Scans the target class for injector methods and parses discovered
      * injectors
      */
-    void prepareInjections() {
+    void parseInjections() {
         this.activities.clear();
         
         try {
             this.injectors.clear();
 
-            IActivity prepareActivity = this.activities.begin("?");
+            IActivity parseActivity = this.activities.begin("?");
             for (MethodNode method : this.mergedMethods) {
-                prepareActivity.next("%s%s", method.name, method.desc);
+                parseActivity.next("%s%s", method.name, method.desc);
                 IActivity methodActivity = this.activities.begin("Parse");
                 InjectionInfo injectInfo = InjectionInfo.parse(this, method);
                 if (injectInfo == null) {
@@ -1399,8 +1400,6 @@ public class MixinTargetContext extends ClassContext implements IMixinContext {
                 
                 methodActivity.next("Validate");
                 if (injectInfo.isValid()) {
-                    methodActivity.next("Prepare");
-                    injectInfo.prepare();
                     this.injectors.add(injectInfo);
                 }
                 
@@ -1408,6 +1407,43 @@ public class MixinTargetContext extends ClassContext implements IMixinContext {
                 method.visibleAnnotations.remove(injectInfo.getAnnotationNode());
                 methodActivity.end();
             }
+            parseActivity.end();
+        } catch (InvalidMixinException ex) {
+            ex.prepend(this.activities);
+            throw ex;
+        } catch (Exception ex) {
+            throw new InvalidMixinException(this, "Unexpecteded " + ex.getClass().getSimpleName() + " whilst transforming the mixin class:", ex,
+                    this.activities);
+        }
+    }
+    
+    /**
+     * Add the injection points of injectors discovered in the
+     * {@link #parseInjections()} pass to the supplied batch
+     * 
+     * @param batch batch to add injection points to
+     */
+    void collectInjectionPoints(InjectionPointBatch batch) {
+        for (InjectionInfo injectInfo : this.injectors) {
+            injectInfo.collectInjectionPoints(batch);
+        }
+    }
+    
+    /**
+     * Prepares injectors discovered in the {@link #parseInjections()} pass
+     */
+    void prepareInjections() {
+        this.activities.clear();
+        
+        try {
+            IActivity prepareActivity = this.activities.begin("?");
+            for (InjectionInfo injectInfo : this.injectors) {
+                MethodNode method = injectInfo.getMethod();
+                prepareActivity.next("%s%s", method.name, method.desc);
+                IActivity methodActivity = this.activities.begin("Prepare");
+                injectInfo.prepare();
+                methodActivity.end();
+            }
             prepareActivity.end();
         } catch (InvalidMixinException ex) {
             ex.prepend(this.activities);
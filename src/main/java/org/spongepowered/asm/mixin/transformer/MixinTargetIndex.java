@@ -0,0 +1,172 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Immutable routing index built from the selected mixin configs, used by the
+ * processor to look up the mixins for a class and the config which owns its
+ * package without scanning every config. The index is rebuilt whenever the
+ * set of configs or the mixins they contain changes.
+ */
+final class MixinTargetIndex {
+    
+    /**
+     * Node in the mixin package trie, each node represents one segment of a
+     * package name
+     */
+    static final class PackageNode {
+        
+        /**
+         * Child segments
+         */
+        final Map<String, PackageNode> children = new HashMap<String, PackageNode>();
+        
+        /**
+         * Config which declares this package as its mixin package, if any
+         */
+        MixinConfig owner;
+        
+    }
+    
+    /**
+     * Empty index 
+     */
+    static final MixinTargetIndex EMPTY = new MixinTargetIndex(Collections.<MixinConfig>emptyList());
+    
+    /**
+     * Sorted mixins for each target class
+     */
+    private final Map<String, SortedSet<MixinInfo>> targets = new HashMap<String, SortedSet<MixinInfo>>();
+    
+    /**
+     * Root of the mixin package trie
+     */
+    private final PackageNode packages = new PackageNode();
+    
+    /**
+     * Total number of mixins in the indexed configs
+     */
+    private final int mixinCount;
+
+    /**
+     * Build a new index from the supplied configs, which must be in their
+     * natural order
+     * 
+     * @param configs configs to index
+     */
+    MixinTargetIndex(List<MixinConfig> configs) {
+        Map<String, List<MixinInfo>> mixinsByTarget = new HashMap<String, List<MixinInfo>>();
+        int mixinCount = 0;
+        for (MixinConfig config : configs) {
+            this.addPackage(config);
+            for (String target : config.getTargets()) {
+                List<MixinInfo> mixins = mixinsByTarget.get(target);
+                if (mixins == null) {
+                    mixins = new ArrayList<MixinInfo>();
+                    mixinsByTarget.put(target, mixins);
+                }
+                mixins.addAll(config.getMixinsFor(target));
+            }
+            mixinCount += config.getMixinCount();
+        }
+        
+        for (Map.Entry<String, List<MixinInfo>> entry : mixinsByTarget.entrySet()) {
+            this.targets.put(entry.getKey(), Collections.<MixinInfo>unmodifiableSortedSet(new TreeSet<MixinInfo>(entry.getValue())));
+        }
+        this.mixinCount = mixinCount;
+    }
+    
+    private void addPackage(MixinConfig config) {
+        String mixinPackage = config.getMixinPackage();
+        if (mixinPackage.length() == 0) {
+            return;
+        }
+        
+        PackageNode node = this.packages;
+        int start = 0;
+        for (int pos = mixinPackage.indexOf('.'); pos > -1; pos = mixinPackage.indexOf('.', start)) {
+            String segment = mixinPackage.substring(start, pos);
+            PackageNode child = node.children.get(segment);
+            if (child == null) {
+                child = new PackageNode();
+                node.children.put(segment, child);
+            }
+            node = child;
+            start = pos + 1;
+        }
+        
+        // Configs are indexed in order, so the first config to claim a package
+        // owns it. Packages always end with a separator so start is the length
+        if (start == mixinPackage.length() && node.owner == null) {
+            node.owner = config;
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%d targets of %d mixins", this.targets.size(), this.mixinCount);
+    }
+    
+    /**
+     * Get the sorted mixins which target the specified class
+     * 
+     * @param className target class name
+     * @return unmodifiable sorted set of mixins or null if the class is not
+     *      targetted by any config
+     */
+    SortedSet<MixinInfo> getMixinsFor(String className) {
+        return this.targets.get(className);
+    }
+    
+    /**
+     * Get the config with the longest mixin package which contains the
+     * specified class
+     * 
+     * @param className class name to check
+     * @return owning config or null if the class is not in a mixin package
+     */
+    MixinConfig getPackageOwner(String className) {
+        MixinConfig owner = null;
+        PackageNode node = this.packages;
+        int start = 0;
+        for (int pos = className.indexOf('.'); pos > -1 && node != null; pos = className.indexOf('.', start)) {
+            node = node.children.get(className.substring(start, pos));
+            if (node != null && node.owner != null) {
+                owner = node.owner;
+            }
+            start = pos + 1;
+        }
+        return owner;
+    }
+
+}
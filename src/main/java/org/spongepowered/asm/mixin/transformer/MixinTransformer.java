@@ -25,12 +25,17 @@
 package org.spongepowered.asm.mixin.transformer;
 
 import java.lang.reflect.Constructor;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
 import org.spongepowered.asm.launch.MixinInitialisationError;
 import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+import org.spongepowered.asm.mixin.MixinEnvironment.Phase;
+import org.spongepowered.asm.mixin.injection.invoke.arg.ArgsClassGenerator;
 import org.spongepowered.asm.mixin.throwables.MixinException;
 import org.spongepowered.asm.mixin.transformer.ext.Extensions;
 import org.spongepowered.asm.mixin.transformer.ext.IExtensionRegistry;
@@ -92,6 +97,16 @@ final class MixinTransformer extends TreeTransformer implements IMixinTransforme
      * Class generator 
      */
     private final MixinClassGenerator generator;
+    
+    /**
+     * True if targets from the load order profile should be prefetched
+     */
+    private final boolean prefetch;
+    
+    /**
+     * Target prefetcher, created when the default phase is reached
+     */
+    private volatile TargetClassPrefetcher prefetcher;
 
     MixinTransformer() {
         MixinEnvironment environment = MixinEnvironment.getCurrentEnvironment();
@@ -112,8 +127,16 @@ final class MixinTransformer extends TreeTransformer implements IMixinTransforme
 
         this.processor = new MixinProcessor(environment, this.extensions, this.hotSwapper, this.nestHostCoprocessor);
         this.generator = new MixinClassGenerator(environment, this.extensions);
+        this.prefetch = environment.getOption(Option.TARGET_PREFETCH);
         
         DefaultExtensions.create(environment, this.extensions, this.syntheticClassRegistry, this.nestHostCoprocessor);
+        
+        // Args classes generated at build time are already on the classpath,
+        // so their names must not be reused for classes generated at runtime
+        AotManifest aotManifest = this.processor.getAotManifest();
+        if (aotManifest != null) {
+            this.extensions.<ArgsClassGenerator>getGenerator(ArgsClassGenerator.class).reserveNames(aotManifest.getSyntheticClasses());
+        }
     }
     
     private IHotSwap initHotSwapper(MixinEnvironment environment) {
@@ -230,13 +253,54 @@ final class MixinTransformer extends TreeTransformer implements IMixinTransforme
      */
     @Override
     public byte[] transformClass(MixinEnvironment environment, String name, byte[] classBytes) {
+        if (!this.processor.requiresProcessing(environment, name) || this.processor.acceptPreApplied(environment, name, classBytes)) {
+            return classBytes;
+        }
+        
+        this.notifyPrefetcher(environment, name);
+        
+        TransformedClassCache.Entry cacheEntry = this.processor.getCachedClass(environment, name, classBytes);
+        if (cacheEntry != null && cacheEntry.isHit()) {
+            return cacheEntry.getBytes();
+        }
+        
         ClassNode classNode = this.readClass(name, classBytes);
-        if (this.processor.applyMixins(environment, name, classNode)) {
-            return this.writeClass(classNode);
+        Set<MethodNode> modifiedMethods = environment.getOption(Option.COMPUTE_ALL_FRAMES) ? null : new HashSet<MethodNode>();
+        if (this.processor.applyMixins(environment, name, classNode, cacheEntry, modifiedMethods)) {
+            byte[] transformedBytes = this.writeClass(classNode, modifiedMethods);
+            if (cacheEntry != null) {
+                cacheEntry.store(transformedBytes);
+            }
+            return transformedBytes;
         }
         return classBytes;
     }
 
+    /**
+     * Notify the target prefetcher that a class has been requested, starting
+     * the prefetcher the first time a class is transformed in the default
+     * phase. Earlier phases are not prefetched since most targets are loaded
+     * after the default phase is reached.
+     */
+    private void notifyPrefetcher(MixinEnvironment environment, String name) {
+        if (!this.prefetch || environment.getPhase() != Phase.DEFAULT) {
+            return;
+        }
+        
+        TargetClassPrefetcher prefetcher = this.prefetcher;
+        if (prefetcher == null) {
+            synchronized (this) {
+                prefetcher = this.prefetcher;
+                if (prefetcher == null) {
+                    prefetcher = new TargetClassPrefetcher(LoadOrderProfile.getInstance().getPreviousOrder());
+                    prefetcher.start();
+                    this.prefetcher = prefetcher;
+                }
+            }
+        }
+        prefetcher.onRequested(name);
+    }
+
     /**
      * Apply mixins and postprocessors to the supplied class
      * 
@@ -247,6 +311,7 @@ final class MixinTransformer extends TreeTransformer implements IMixinTransforme
      */
     @Override
     public boolean transformClass(MixinEnvironment environment, String name, ClassNode classNode) {
+        this.notifyPrefetcher(environment, name);
         return this.processor.applyMixins(environment, name, classNode);
     }
     
@@ -24,8 +24,8 @@
  */
 package org.spongepowered.asm.mixin.transformer;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.spongepowered.asm.mixin.throwables.MixinError;
 import org.spongepowered.asm.service.ISyntheticClassInfo;
@@ -45,7 +45,7 @@ class SyntheticClassRegistry implements ISyntheticClassRegistry {
     /**
      * Map of class name to {@link ISyntheticClassInfo} structs
      */
-    private final Map<String, ISyntheticClassInfo> classes = new HashMap<String, ISyntheticClassInfo>();
+    private final ConcurrentMap<String, ISyntheticClassInfo> classes = new ConcurrentHashMap<String, ISyntheticClassInfo>();
 
     SyntheticClassRegistry() {
     }
@@ -67,15 +67,11 @@ class SyntheticClassRegistry implements ISyntheticClassRegistry {
      */
     void registerSyntheticClass(ISyntheticClassInfo sci) {
         String name = sci.getName();
-        ISyntheticClassInfo info = this.classes.get(name);
-        if (info != null) {
-            if (info == sci) {
-                return;
-            }
+        ISyntheticClassInfo info = this.classes.putIfAbsent(name, sci);
+        if (info != null && info != sci) {
             throw new MixinError("Synthetic class with name " + name + " was already registered by " + info.getMixin()
                 + ". Duplicate being registered by " + sci.getMixin());
         }
-        this.classes.put(name, sci);
     }
 
 }
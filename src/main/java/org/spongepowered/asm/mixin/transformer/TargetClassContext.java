@@ -25,15 +25,19 @@
 package org.spongepowered.asm.mixin.transformer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 
 import org.spongepowered.asm.logging.ILogger;
+import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.AnnotationNode;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.FieldNode;
@@ -57,7 +61,10 @@ import org.spongepowered.asm.util.perf.Profiler;
 import org.spongepowered.asm.util.perf.Profiler.Section;
 
 /**
- * Struct for containing target class information during mixin application
+ * Struct for containing target class information during mixin application.
+ * Each context is created for a single pass and is confined to the thread
+ * applying mixins to the target, see {@link MixinProcessor} for how concurrent
+ * passes are coordinated.
  */
 final class TargetClassContext extends ClassContext implements ITargetClassContext {
 
@@ -136,6 +143,17 @@ final class TargetClassContext extends ClassContext implements ITargetClassConte
      */
     private final Set<FieldNode> mixinFields = new HashSet<FieldNode>();
     
+    /**
+     * Instructions of the target class methods before mixins were applied,
+     * used to determine which methods need their stack map frames recomputed
+     */
+    private final Map<MethodNode, AbstractInsnNode[]> originalInstructions = new IdentityHashMap<MethodNode, AbstractInsnNode[]>();
+    
+    /**
+     * Class file version of the target class before mixins were applied
+     */
+    private final int originalVersion;
+    
     /**
      * Exceptions which were suppressed during mixin application because they
      * were raised by an optional mixin 
@@ -171,6 +189,10 @@ final class TargetClassContext extends ClassContext implements ITargetClassConte
         this.mixins = mixins;
         this.sourceMap = new SourceMap(classNode.sourceFile);
         this.sourceMap.addFile(this.classNode);
+        this.originalVersion = classNode.version;
+        for (MethodNode method : classNode.methods) {
+            this.originalInstructions.put(method, method.instructions.toArray());
+        }
     }
     
     @Override
@@ -405,6 +427,32 @@ final class TargetClassContext extends ClassContext implements ITargetClassConte
         return target;
     }
     
+    /**
+     * Get the methods in the target class which were added or modified by
+     * mixins and therefore need their maxs and stack map frames recomputed.
+     * Returns null if the whole class needs to be recomputed.
+     * 
+     * @return modified methods, or null if all methods should be considered
+     *      modified
+     */
+    Set<MethodNode> getModifiedMethods() {
+        if (this.classNode.version != this.originalVersion) {
+            return null;
+        }
+        
+        Set<MethodNode> modified = Collections.<MethodNode>newSetFromMap(new IdentityHashMap<MethodNode, Boolean>());
+        for (Target target : this.targetMethods.values()) {
+            modified.add(target.method);
+        }
+        for (MethodNode method : this.classNode.methods) {
+            AbstractInsnNode[] original = this.originalInstructions.get(method);
+            if (original == null || !Arrays.equals(original, method.instructions.toArray())) {
+                modified.add(method);
+            }
+        }
+        return modified;
+    }
+    
     /**
      * Apply mixins for this target class
      */
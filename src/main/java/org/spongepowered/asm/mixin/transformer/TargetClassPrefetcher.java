@@ -0,0 +1,218 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+import org.spongepowered.asm.service.MixinService;
+
+/**
+ * Loads class metadata for the targets recorded in the previous launch's
+ * {@link LoadOrderProfile} ahead of them being requested, see {@link
+ * Option#TARGET_PREFETCH}. Worker threads walk the recorded order, staying a
+ * bounded distance ahead of the targets actually requested, and load the
+ * {@link ClassInfo} of each target along with its superclasses and
+ * interfaces. The metadata is read exactly as {@link ClassInfo#forName} would
+ * read it on the class-loading thread, and is handed over through the
+ * ClassInfo cache, so the hierarchy lookups made whilst the target is
+ * transformed are already resolved.
+ * 
+ * <p>Mixins are never applied on the worker threads. Applying mixins changes
+ * state which is shared with other targets, such as conformed member names
+ * and synthetic classes, and takes locks which may be needed by a
+ * class-loading thread. Application therefore always happens on the thread
+ * which loads the class, and a fetch which turns out to be unnecessary only
+ * leaves metadata in the cache which would otherwise have been loaded on
+ * demand.</p>
+ */
+final class TargetClassPrefetcher {
+    
+    /**
+     * Worker thread factory
+     */
+    static final class WorkerFactory implements ThreadFactory {
+        
+        private final AtomicInteger count = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Mixin Prefetch #" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+        
+    }
+    
+    /**
+     * Number of profiled targets the workers may run ahead of the most recent
+     * target requested
+     */
+    private static final int WINDOW = 128;
+    
+    /**
+     * Logger
+     */
+    private static final ILogger logger = MixinService.getService().getLogger("mixin");
+    
+    /**
+     * Targets in the order they were transformed in the previous launch
+     */
+    private final List<String> order;
+    
+    /**
+     * Position of each target in the order
+     */
+    private final Map<String, Integer> positions = new HashMap<String, Integer>();
+    
+    /**
+     * Targets which have been requested, these are no longer fetched
+     */
+    private final Set<String> requested = Collections.<String>newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    
+    /**
+     * Next position in the order to be claimed by a worker
+     */
+    private final AtomicInteger cursor = new AtomicInteger();
+    
+    /**
+     * Worker pool
+     */
+    private ExecutorService executor;
+    
+    /**
+     * Furthest position in the order which has been requested
+     */
+    private int position = -1;
+    
+    TargetClassPrefetcher(List<String> order) {
+        this.order = order;
+        for (int pos = order.size() - 1; pos >= 0; pos--) {
+            this.positions.put(order.get(pos), Integer.valueOf(pos));
+        }
+    }
+    
+    /**
+     * Start the worker threads
+     */
+    synchronized void start() {
+        if (this.executor != null || this.order.isEmpty()) {
+            return;
+        }
+        
+        int threads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+        this.executor = Executors.newFixedThreadPool(threads, new WorkerFactory());
+        for (int i = 0; i < threads; i++) {
+            this.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    TargetClassPrefetcher.this.work();
+                }
+            });
+        }
+        this.executor.shutdown();
+    }
+    
+    /**
+     * Notify the prefetcher that the specified target has been requested by
+     * the class loader, which moves the window the workers operate in. Never
+     * blocks.
+     * 
+     * @param name class name
+     */
+    void onRequested(String name) {
+        if (!this.requested.add(name)) {
+            return;
+        }
+        
+        Integer pos = this.positions.get(name);
+        if (pos == null) {
+            return;
+        }
+        
+        synchronized (this) {
+            if (pos.intValue() > this.position) {
+                this.position = pos.intValue();
+                this.notifyAll();
+            }
+        }
+    }
+    
+    private void work() {
+        for (int pos = this.cursor.getAndIncrement(); pos < this.order.size(); pos = this.cursor.getAndIncrement()) {
+            if (!this.awaitWindow(pos)) {
+                return;
+            }
+            
+            String name = this.order.get(pos);
+            if (this.requested.contains(name)) {
+                continue;
+            }
+            
+            try {
+                TargetClassPrefetcher.prefetch(name);
+            } catch (Exception ex) {
+                // Anything which failed is loaded again on demand, errors are
+                // reported then if they still occur
+                TargetClassPrefetcher.logger.debug("Could not prefetch target class {}: {}", name, ex.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Load the metadata for the specified target, its superclasses and the
+     * interfaces they implement directly
+     */
+    private static void prefetch(String name) {
+        for (ClassInfo info = ClassInfo.forName(name); info != null; info = info.getSuperClass()) {
+            for (String iface : info.getInterfaces()) {
+                ClassInfo.forName(iface);
+            }
+        }
+    }
+    
+    private synchronized boolean awaitWindow(int pos) {
+        while (pos > this.position + TargetClassPrefetcher.WINDOW) {
+            try {
+                this.wait();
+            } catch (InterruptedException ex) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
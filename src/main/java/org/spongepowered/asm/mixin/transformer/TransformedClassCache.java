@@ -0,0 +1,423 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.mixin.transformer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.tree.ClassNode;
+import org.spongepowered.asm.launch.MixinBootstrap;
+import org.spongepowered.asm.logging.ILogger;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.MixinEnvironment.Option;
+import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.transformers.MixinClassReader;
+import org.spongepowered.asm.util.Constants;
+import org.spongepowered.asm.util.Files;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Persistent cache of transformed class bytecode, stored in the mixin output
+ * directory and enabled by {@link Option#TRANSFORMED_CLASS_CACHE}. Each entry
+ * is keyed by a digest of the incoming class bytes, the environment options,
+ * and the config resources and bytecode of every mixin applied to the class,
+ * and the cache as a whole is scoped to the {@link LaunchFingerprint} of the
+ * current launch. Entries from other launch fingerprints are removed when the
+ * cache is opened.
+ * 
+ * <p>Only targets whose mixins can be applied without leaving state behind in
+ * the transformer are considered, see {@link #isCacheable}. The processor is
+ * responsible for replaying the remaining side-effects of application (class
+ * metadata, audit trail, config bookkeeping) when an entry is used.</p>
+ */
+final class TransformedClassCache {
+    
+    /**
+     * A cache lookup for a single target class. If the lookup missed, the
+     * entry can be used to store the transformed bytecode once mixins have
+     * been applied.
+     */
+    final class Entry {
+        
+        /**
+         * Cache file for this entry
+         */
+        private final File file;
+        
+        /**
+         * Cached bytecode, null if the lookup missed
+         */
+        private final byte[] bytes;
+        
+        /**
+         * Set if application did not complete cleanly and the result should
+         * not be stored
+         */
+        private volatile boolean discarded;
+        
+        Entry(File file, byte[] bytes) {
+            this.file = file;
+            this.bytes = bytes;
+        }
+        
+        boolean isHit() {
+            return this.bytes != null;
+        }
+        
+        byte[] getBytes() {
+            return this.bytes;
+        }
+        
+        /**
+         * Prevent the result of this transformation from being stored
+         */
+        void discard() {
+            this.discarded = true;
+        }
+        
+        /**
+         * Store the transformed bytecode for this entry
+         * 
+         * @param transformedBytes transformed class bytes
+         */
+        void store(byte[] transformedBytes) {
+            if (this.bytes != null || this.discarded || transformedBytes == null
+                    || TransformedClassCache.contains(transformedBytes, TransformedClassCache.SYNTHETIC_PACKAGE_REF)) {
+                return;
+            }
+            TransformedClassCache.this.write(this.file, transformedBytes);
+        }
+        
+    }
+    
+    /**
+     * Cache directory name, in the mixin output directory
+     */
+    private static final String CACHE_DIR = "classcache";
+    
+    /**
+     * Transformed classes which reference generated synthetic classes cannot
+     * be cached, since the synthetic classes are only registered when the
+     * mixins are actually applied
+     */
+    static final byte[] SYNTHETIC_PACKAGE_REF = Constants.SYNTHETIC_PACKAGE.replace('.', '/').getBytes(Charsets.UTF_8);
+
+    /**
+     * Logger
+     */
+    private static final ILogger logger = MixinService.getService().getLogger("mixin");
+    
+    /**
+     * Cache directory for the current launch fingerprint
+     */
+    private final File dir;
+    
+    /**
+     * Digests of mixin bytecode, computed the first time each mixin is
+     * involved in a lookup
+     */
+    private final ConcurrentMap<MixinInfo, byte[]> mixinDigests = new ConcurrentHashMap<MixinInfo, byte[]>();
+    
+    /**
+     * Digests of config and refmap resources
+     */
+    private final ConcurrentMap<MixinConfig, byte[]> configDigests = new ConcurrentHashMap<MixinConfig, byte[]>();
+    
+    /**
+     * Cache counters
+     */
+    private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), writes = new AtomicLong();
+    
+    private TransformedClassCache(File dir) {
+        this.dir = dir;
+    }
+    
+    /**
+     * Open the cache for the current launch, returns null if the cache cannot
+     * be used
+     */
+    static TransformedClassCache open() {
+        String fingerprint = LaunchFingerprint.getHex();
+        if (fingerprint == null) {
+            TransformedClassCache.logger.warn("Transformed class cache is not available, the launch fingerprint could not be computed");
+            return null;
+        }
+        
+        File root = new File(Constants.DEBUG_OUTPUT_DIR, TransformedClassCache.CACHE_DIR);
+        File dir = new File(root, fingerprint);
+        File[] stale = root.listFiles();
+        if (stale != null) {
+            for (File file : stale) {
+                if (!file.getName().equals(fingerprint)) {
+                    try {
+                        Files.deleteRecursively(file);
+                    } catch (IOException ex) {
+                        TransformedClassCache.logger.debug("Could not remove stale class cache {}: {}", file, ex.getMessage());
+                    }
+                }
+            }
+        }
+        
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            TransformedClassCache.logger.warn("Transformed class cache is not available, could not create {}", dir);
+            return null;
+        }
+        
+        TransformedClassCache.logger.debug("Using transformed class cache at {}", dir);
+        return new TransformedClassCache(dir);
+    }
+    
+    /**
+     * Get whether the supplied mixins can be served from the cache. Mixins
+     * from configs with a plugin are excluded because the plugin may observe
+     * or modify the target during application, and mixins with inner classes
+     * are excluded because their synthetic classes are generated on demand
+     * from state built during application.
+     * 
+     * @param mixins mixins to be applied to a target
+     * @return true if the target can be cached
+     */
+    static boolean isCacheable(SortedSet<MixinInfo> mixins) {
+        for (MixinInfo mixin : mixins) {
+            if (mixin.getParent().getPlugin() != null || !mixin.getInnerClasses().isEmpty() || !mixin.getSyntheticInnerClasses().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Look up the supplied class in the cache
+     * 
+     * @param environment current environment
+     * @param name class name
+     * @param classBytes incoming class bytes
+     * @param mixins mixins which will be applied to the class, in order
+     * @return cache entry or null if the class cannot be cached
+     */
+    Entry get(MixinEnvironment environment, String name, byte[] classBytes, SortedSet<MixinInfo> mixins) {
+        byte[] key = this.computeKey(environment, name, classBytes, mixins);
+        if (key == null) {
+            return null;
+        }
+        
+        File file = new File(this.dir, LaunchFingerprint.toHex(key));
+        byte[] bytes = TransformedClassCache.read(file);
+        if (bytes != null) {
+            this.hits.incrementAndGet();
+        } else {
+            this.misses.incrementAndGet();
+        }
+        return new Entry(file, bytes);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("TransformedClassCache[hits=%d, misses=%d, writes=%d]", this.hits.get(), this.misses.get(), this.writes.get());
+    }
+    
+    /**
+     * Read the header of the supplied class bytes, without method bodies
+     */
+    static ClassNode readHeader(String name, byte[] classBytes) {
+        ClassNode classNode = new ClassNode();
+        new MixinClassReader(classBytes, name).accept(classNode, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return classNode;
+    }
+
+    private byte[] computeKey(MixinEnvironment environment, String name, byte[] classBytes, SortedSet<MixinInfo> mixins) {
+        MessageDigest digest = TransformedClassCache.createDigest();
+        StringBuilder options = new StringBuilder(MixinBootstrap.VERSION).append('\n');
+        options.append(MixinEnvironment.getCompatibilityLevel()).append('\n');
+        for (Option option : Option.values()) {
+            options.append(option.name()).append('=').append(environment.getOption(option)).append(':')
+                    .append(environment.getOptionValue(option)).append('\n');
+        }
+        options.append(name).append('\n');
+        digest.update(options.toString().getBytes(Charsets.UTF_8));
+        digest.update(classBytes);
+        
+        for (MixinInfo mixin : mixins) {
+            byte[] configDigest = this.getDigest(mixin.getParent());
+            byte[] mixinDigest = this.getDigest(mixin);
+            if (configDigest == null || mixinDigest == null) {
+                return null;
+            }
+            digest.update(mixin.toString().getBytes(Charsets.UTF_8));
+            digest.update(configDigest);
+            digest.update(mixinDigest);
+        }
+        
+        return digest.digest();
+    }
+    
+    private byte[] getDigest(MixinInfo mixin) {
+        byte[] mixinDigest = this.mixinDigests.get(mixin);
+        if (mixinDigest == null) {
+            try {
+                ClassWriter writer = new ClassWriter(0);
+                mixin.getClassNode(0).accept(writer);
+                MessageDigest digest = TransformedClassCache.createDigest();
+                mixinDigest = digest.digest(writer.toByteArray());
+            } catch (Exception ex) {
+                TransformedClassCache.logger.debug("Could not compute digest for mixin {}: {}", mixin, ex.getMessage());
+                mixinDigest = new byte[0];
+            }
+            this.mixinDigests.put(mixin, mixinDigest);
+        }
+        return mixinDigest.length > 0 ? mixinDigest : null;
+    }
+    
+    private byte[] getDigest(MixinConfig config) {
+        byte[] configDigest = this.configDigests.get(config);
+        if (configDigest == null) {
+            MessageDigest digest = TransformedClassCache.createDigest();
+            if (TransformedClassCache.update(digest, config.getName()) && TransformedClassCache.update(digest, config.getRefMapperConfig())) {
+                configDigest = digest.digest();
+            } else {
+                TransformedClassCache.logger.debug("Could not compute digest for config {}", config);
+                configDigest = new byte[0];
+            }
+            this.configDigests.put(config, configDigest);
+        }
+        return configDigest.length > 0 ? configDigest : null;
+    }
+    
+    /**
+     * Update the digest with the contents of the specified resource, a missing
+     * resource contributes only its name
+     */
+    private static boolean update(MessageDigest digest, String resourceName) {
+        if (resourceName == null) {
+            return true;
+        }
+        digest.update(resourceName.getBytes(Charsets.UTF_8));
+        InputStream resource = null;
+        try {
+            resource = MixinService.getService().getResourceAsStream(resourceName);
+            if (resource != null) {
+                byte[] buffer = new byte[8192];
+                for (int read = resource.read(buffer); read >= 0; read = resource.read(buffer)) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return true;
+        } catch (IOException ex) {
+            return false;
+        } finally {
+            if (resource != null) {
+                try {
+                    resource.close();
+                } catch (IOException ex) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-1 is not available", ex);
+        }
+    }
+    
+    private static byte[] read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            byte[] bytes = new byte[(int)raf.length()];
+            raf.readFully(bytes);
+            return bytes;
+        } catch (IOException ex) {
+            TransformedClassCache.logger.debug("Could not read cached class {}: {}", file, ex.getMessage());
+            return null;
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException ex) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private void write(File file, byte[] bytes) {
+        File tempFile = new File(file.getParentFile(), file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(tempFile);
+            out.write(bytes);
+            out.close();
+            out = null;
+            if (!tempFile.renameTo(file)) {
+                tempFile.delete();
+            } else {
+                this.writes.incrementAndGet();
+            }
+        } catch (IOException ex) {
+            TransformedClassCache.logger.debug("Could not write cached class {}: {}", file, ex.getMessage());
+            tempFile.delete();
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ex) {
+                    // ignore
+                }
+            }
+        }
+    }
+    
+    static boolean contains(byte[] bytes, byte[] pattern) {
+        outer: for (int i = 0, max = bytes.length - pattern.length; i <= max; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+}
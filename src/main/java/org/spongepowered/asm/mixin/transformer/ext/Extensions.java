@@ -24,11 +24,11 @@
  */
 package org.spongepowered.asm.mixin.transformer.ext;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.objectweb.asm.tree.ClassNode;
 import org.spongepowered.asm.mixin.MixinEnvironment;
@@ -38,26 +38,29 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
 
 /**
- * Mixin transformer extensions and common modules such as class generators
+ * Mixin transformer extensions and common modules such as class generators.
+ * Extensions are registered up front but are looked up and iterated for every
+ * transformed class, which can happen on several threads at once when
+ * concurrent application is enabled, so the registries are thread-safe.
  */
 public final class Extensions implements IExtensionRegistry {
     
     /**
      * All transformer extensions
      */
-    private final List<IExtension> extensions = new ArrayList<IExtension>();
+    private final List<IExtension> extensions = new CopyOnWriteArrayList<IExtension>();
     
     /**
      * Map of extension class types to extension instances, used to fetch
      * generators using {@link #getExtension}
      */
-    private final Map<Class<? extends IExtension>, IExtension> extensionMap
-            = new HashMap<Class<? extends IExtension>, IExtension>();
+    private final Map<Class<? extends IExtension>, IExtension> extensionMap =
+            new ConcurrentHashMap<Class<? extends IExtension>, IExtension>();
 
     /**
      * Modules which generate synthetic classes required by mixins 
      */
-    private final List<IClassGenerator> generators = new ArrayList<IClassGenerator>();
+    private final List<IClassGenerator> generators = new CopyOnWriteArrayList<IClassGenerator>();
     
     /**
      * Read-only view of available generators
@@ -68,15 +71,15 @@ public final class Extensions implements IExtensionRegistry {
      * Map of generator class types to generator instances, used to fetch
      * generators using {@link #getGenerator}
      */
-    private final Map<Class<? extends IClassGenerator>, IClassGenerator> generatorMap
-            = new HashMap<Class<? extends IClassGenerator>, IClassGenerator>();
+    private final Map<Class<? extends IClassGenerator>, IClassGenerator> generatorMap =
+            new ConcurrentHashMap<Class<? extends IClassGenerator>, IClassGenerator>();
     
     private final ISyntheticClassRegistry syntheticClassRegistry;
     
     /**
      * Active transformer extensions
      */
-    private List<IExtension> activeExtensions = Collections.<IExtension>emptyList();
+    private volatile List<IExtension> activeExtensions = Collections.<IExtension>emptyList();
     
     public Extensions(ISyntheticClassRegistry syntheticClassRegistry) {
         this.syntheticClassRegistry = syntheticClassRegistry;
@@ -24,10 +24,22 @@
  */
 package org.spongepowered.asm.transformers;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.spongepowered.asm.util.asm.ASM;
 import org.spongepowered.asm.service.ILegacyClassTransformer;
+import org.spongepowered.asm.util.perf.Events;
+import org.spongepowered.asm.util.perf.IEventSink.ITimedEvent;
 
 /**
  * Base class for transformers which work with ASM tree model
@@ -67,19 +79,113 @@ public abstract class TreeTransformer implements ILegacyClassTransformer {
      * @return generated bytecode
      */
     protected final byte[] writeClass(ClassNode classNode) {
+        ITimedEvent frameEvent = Events.beginFrameComputation(classNode.name);
+        
         // Use optimised writer for speed
         if (this.classReader != null && this.classNode == classNode) {
             this.classNode = null;
             ClassWriter writer = new MixinClassWriter(this.classReader, ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
             this.classReader = null;
             classNode.accept(writer);
-            return writer.toByteArray();
+            byte[] bytes = writer.toByteArray();
+            frameEvent.complete(classNode.methods.size(), "full");
+            return bytes;
         }
 
         this.classNode = null;
 
         ClassWriter writer = new MixinClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
         classNode.accept(writer);
-        return writer.toByteArray();
+        byte[] bytes = writer.toByteArray();
+        frameEvent.complete(classNode.methods.size(), "full");
+        return bytes;
     }
+
+    /**
+     * Write the supplied class, computing maxs and stack map frames only for
+     * the specified methods. All other methods are written with the frames and
+     * maxs they were read with, so they must not have been modified. If the
+     * frames cannot be computed selectively, the whole class is written with
+     * full frame computation instead.
+     * 
+     * @param classNode ClassNode to write out
+     * @param modifiedMethods methods which need maxs and frames computed, or
+     *      null to compute them for every method in the class
+     * @return generated bytecode
+     */
+    protected final byte[] writeClass(ClassNode classNode, Set<MethodNode> modifiedMethods) {
+        if (modifiedMethods == null || (classNode.version & 0xFFFF) < Opcodes.V1_6) {
+            return this.writeClass(classNode);
+        }
+        
+        Set<MethodNode> dirty = Collections.<MethodNode>newSetFromMap(new IdentityHashMap<MethodNode, Boolean>());
+        int methodsWithCode = 0;
+        for (MethodNode method : classNode.methods) {
+            if (method.instructions.size() > 0) {
+                methodsWithCode++;
+                if (modifiedMethods.contains(method)) {
+                    dirty.add(method);
+                }
+            }
+        }
+        
+        if (dirty.size() == methodsWithCode) {
+            return this.writeClass(classNode);
+        }
+        
+        try {
+            return TreeTransformer.writeClassSelective(classNode, dirty);
+        } catch (RuntimeException ex) {
+            return this.writeClass(classNode);
+        }
+    }
+
+    private static byte[] writeClassSelective(ClassNode classNode, Set<MethodNode> dirty) {
+        ITimedEvent frameEvent = Events.beginFrameComputation(classNode.name);
+        List<MethodNode> originalMethods = classNode.methods;
+        List<MethodNode> methods = new ArrayList<MethodNode>(originalMethods.size());
+        
+        if (!dirty.isEmpty()) {
+            // Compute frames for the dirty methods in a class which only
+            // contains those methods, then read them back with the frames
+            ClassNode scratch = new ClassNode(ASM.API_VERSION);
+            scratch.version = classNode.version;
+            scratch.access = classNode.access;
+            scratch.name = classNode.name;
+            scratch.superName = classNode.superName;
+            scratch.interfaces = classNode.interfaces;
+            for (MethodNode method : originalMethods) {
+                if (dirty.contains(method)) {
+                    scratch.methods.add(method);
+                }
+            }
+            
+            ClassWriter frameWriter = new MixinClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+            scratch.accept(frameWriter);
+            ClassNode computed = new ClassNode(ASM.API_VERSION);
+            new ClassReader(frameWriter.toByteArray()).accept(computed, 0);
+            if (computed.methods.size() != dirty.size()) {
+                throw new IllegalStateException("Method count mismatch computing frames for " + classNode.name);
+            }
+            
+            Iterator<MethodNode> computedMethods = computed.methods.iterator();
+            for (MethodNode method : originalMethods) {
+                methods.add(dirty.contains(method) ? computedMethods.next() : method);
+            }
+        } else {
+            methods.addAll(originalMethods);
+        }
+        
+        classNode.methods = methods;
+        try {
+            ClassWriter writer = new MixinClassWriter(0);
+            classNode.accept(writer);
+            byte[] bytes = writer.toByteArray();
+            frameEvent.complete(dirty.size(), "selective");
+            return bytes;
+        } finally {
+            classNode.methods = originalMethods;
+        }
+    }
+
 }
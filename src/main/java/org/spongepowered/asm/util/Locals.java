@@ -25,9 +25,10 @@
 package org.spongepowered.asm.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -260,11 +261,25 @@ public final class Locals {
      */
     private static final String[] FRAME_TYPES = { "TOP", "INTEGER", "FLOAT", "DOUBLE", "LONG", "NULL", "UNINITIALIZED_THIS" };
     
+    /**
+     * Maximum number of generated local variable tables to retain
+     */
+    private static final int MAX_CALCULATED_LOCAL_VARIABLES = 1024;
+    
     /**
      * Cached local variable lists, to avoid having to recalculate them
-     * (expensive) if multiple injectors are working with the same method
+     * (expensive) if multiple injectors are working with the same method. The
+     * least recently used tables are discarded once the cache is full.
      */
-    private static final Map<String, List<LocalVariableNode>> calculatedLocalVariables = new HashMap<String, List<LocalVariableNode>>();
+    private static final Map<String, List<LocalVariableNode>> calculatedLocalVariables = Collections.synchronizedMap(
+            new LinkedHashMap<String, List<LocalVariableNode>>(64, 0.75F, true) {
+                private static final long serialVersionUID = 1L;
+                
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<LocalVariableNode>> eldest) {
+                    return this.size() > Locals.MAX_CALCULATED_LOCAL_VARIABLES;
+                }
+            });
     
     private Locals() {
         // utility class
@@ -379,14 +394,67 @@ public final class Locals {
      *      specified location
      */
     public static LocalVariableNode[] getLocalsAt(ClassNode classNode, MethodNode method, AbstractInsnNode node, Settings settings) {
+        return Locals.computeLocals(classNode, method, Locals.skipLabels(method.instructions, node), settings, null);
+    }
+    
+    /**
+     * Compute the locals at every instruction in the specified method in a
+     * single pass. This is equivalent to calling {@link #getLocalsAt} for each
+     * instruction in the method, but only walks the method once.
+     * 
+     * <p>The returned array is indexed by instruction index and each entry is
+     * the view of the locals which {@link #getLocalsAt} would return for that
+     * instruction. Consecutive instructions with the same locals share the
+     * same array, so the entries must be copied before being modified.</p>
+     * 
+     * @param classNode ClassNode containing the method
+     * @param method MethodNode to explore
+     * @param settings Tunable settings for the state machine
+     * @return locals at each instruction in the method
+     */
+    public static LocalVariableNode[][] getLocalsForMethod(ClassNode classNode, MethodNode method, Settings settings) {
+        // Generating the LVT can insert labels, so do it before sizing the array
+        Locals.getLocalVariableTable(classNode, method);
+        InsnList insns = method.instructions;
+        LocalVariableNode[][] frames = new LocalVariableNode[insns.size()][];
+        Locals.computeLocals(classNode, method, null, settings, frames);
+        
+        // Labels and line numbers take the locals of the insn they skip to,
+        // which is always later in the list and so not yet overwritten here
+        for (int index = 0; index < frames.length; index++) {
+            AbstractInsnNode insn = insns.get(index);
+            if (insn instanceof LabelNode || insn instanceof LineNumberNode) {
+                frames[index] = frames[insns.indexOf(Locals.skipLabels(insns, insn))];
+            }
+        }
+        
+        return frames;
+    }
+    
+    /**
+     * Skip forward over up to three labels and line numbers, but not over
+     * frames, to find the insn whose locals should be reported for the
+     * specified insn
+     */
+    private static AbstractInsnNode skipLabels(InsnList insns, AbstractInsnNode node) {
         for (int i = 0; i < 3 && (node instanceof LabelNode || node instanceof LineNumberNode); i++) {
-            AbstractInsnNode nextNode = Locals.nextNode(method.instructions, node);
+            AbstractInsnNode nextNode = Locals.nextNode(insns, node);
             if (nextNode instanceof FrameNode) { // Do not ffwd over frames
                 break;
             }
             node = nextNode;
         }
-        
+        return node;
+    }
+    
+    /**
+     * Walk the method computing the locals. If <tt>snapshots</tt> is null, the
+     * walk stops at <tt>node</tt> and the locals at that node are returned.
+     * Otherwise the whole method is walked and the locals at each insn are
+     * stored in <tt>snapshots</tt> by insn index.
+     */
+    private static LocalVariableNode[] computeLocals(ClassNode classNode, MethodNode method, AbstractInsnNode node, Settings settings,
+            LocalVariableNode[][] snapshots) {
         ClassInfo classInfo = ClassInfo.forName(classNode.name);
         if (classInfo == null) {
             throw new LVTGeneratorError("Could not load class metadata for " + classNode.name + " generating LVT for " + method.name);
@@ -396,8 +464,13 @@ public final class Locals {
             throw new LVTGeneratorError("Could not locate method metadata for " + method.name + " generating LVT in " + classNode.name);
         }
         List<FrameData> frames = methodInfo.getFrames();
+        if (frames == null) {
+            throw new LVTGeneratorError("Frame information is not available for " + method.name + " generating LVT in " + classNode.name);
+        }
+        List<LocalVariableNode> localVariableTable = Locals.getLocalVariableTable(classNode, method);
 
         LocalVariableNode[] frame = new LocalVariableNode[method.maxLocals];
+        LocalVariableNode[] resolved = snapshots != null ? new LocalVariableNode[method.maxLocals] : null;
         int local = 0, index = 0;
 
         // Initialise implicit "this" reference in non-static methods
@@ -417,9 +490,11 @@ public final class Locals {
         int lastFrameSize = local;
         int knownFrameSize = local;
         VarInsnNode storeInsn = null;
+        int pos = -1;
 
         for (Iterator<AbstractInsnNode> iter = method.instructions.iterator(); iter.hasNext();) {
             AbstractInsnNode insn = iter.next();
+            pos++;
             
             // Tick the zombies
             for (int l = 0; l < frame.length; l++) {
@@ -433,7 +508,7 @@ public final class Locals {
             }
 
             if (storeInsn != null) {
-                LocalVariableNode storedLocal = Locals.getLocalVariableAt(classNode, method, insn, storeInsn.var);
+                LocalVariableNode storedLocal = Locals.getLocalVariableAt(classNode, method, localVariableTable, pos, storeInsn.var);
                 frame[storeInsn.var] = storedLocal;
                 knownFrameSize = Math.max(knownFrameSize, storeInsn.var + 1);
                 if (storedLocal != null && storeInsn.var < method.maxLocals - 1 && storedLocal.desc != null
@@ -492,7 +567,7 @@ public final class Locals {
                     final Object localType = (localPos < frameNode.local.size()) ? frameNode.local.get(localPos) : null;
 
                     if (localType instanceof String) { // String refers to a reference type
-                        frame[framePos] = Locals.getLocalVariableAt(classNode, method, insn, framePos);
+                        frame[framePos] = Locals.getLocalVariableAt(classNode, method, localVariableTable, pos, framePos);
                     } else if (localType instanceof Integer) { // Integer refers to a primitive type or other marker
                         boolean isMarkerType = localType == Opcodes.UNINITIALIZED_THIS || localType == Opcodes.NULL;
                         boolean is32bitValue = localType == Opcodes.INTEGER || localType == Opcodes.FLOAT;
@@ -509,7 +584,7 @@ public final class Locals {
                         } else if (isMarkerType) {
                             frame[framePos] = null;
                         } else if (is32bitValue || is64bitValue) {
-                            frame[framePos] = Locals.getLocalVariableAt(classNode, method, insn, framePos);
+                            frame[framePos] = Locals.getLocalVariableAt(classNode, method, localVariableTable, pos, framePos);
 
                             if (is64bitValue) {
                                 framePos++;
@@ -522,7 +597,7 @@ public final class Locals {
                     } else if (localType == null) {
                         if (framePos >= initialFrameSize && framePos >= frameSize && frameSize > 0) {
                             if (framePos < knownFrameSize) {
-                                frame[framePos] = Locals.getLocalVariableAt(classNode, method, insn, framePos);
+                                frame[framePos] = Locals.getLocalVariableAt(classNode, method, localVariableTable, pos, framePos);
                             } else {
                                 frame[framePos] = ZombieLocalVariableNode.of(frame[framePos], ZombieLocalVariableNode.TRIM);
                             }
@@ -538,7 +613,7 @@ public final class Locals {
                 VarInsnNode varInsn = (VarInsnNode)insn;
                 boolean isLoad = insn.getOpcode() >= Opcodes.ILOAD && insn.getOpcode() <= Opcodes.SALOAD;
                 if (isLoad) {
-                    LocalVariableNode toLoad = Locals.getLocalVariableAt(classNode, method, insn, varInsn.var);
+                    LocalVariableNode toLoad = Locals.getLocalVariableAt(classNode, method, localVariableTable, pos, varInsn.var);
                     frame[varInsn.var] = toLoad;
                     int varSize = toLoad != null && toLoad.desc != null ? Type.getType(frame[varInsn.var].desc).getSize() : 1;
                     knownFrameSize = Math.max(knownFrameSize, varInsn.var + varSize);
@@ -553,27 +628,44 @@ public final class Locals {
                 }
             }
             
-            if (insn == node) {
+            if (snapshots != null) {
+                Locals.resolve(frame, resolved);
+                LocalVariableNode[] previous = pos > 0 ? snapshots[pos - 1] : null;
+                snapshots[pos] = previous != null && Arrays.equals(previous, resolved) ? previous : resolved.clone();
+            } else if (insn == node) {
                 break;
             }
         }
 
-        // Null out any "unknown" or mixin-provided locals
+        if (snapshots != null) {
+            return null;
+        }
+        
+        Locals.resolve(frame, frame);
+        return frame;
+    }
+    
+    /**
+     * Null out any "unknown" or mixin-provided locals in the supplied frame,
+     * storing the result in <tt>resolved</tt>, which may be the same array
+     */
+    private static void resolve(LocalVariableNode[] frame, LocalVariableNode[] resolved) {
         for (int l = 0; l < frame.length; l++) {
-            if (frame[l] instanceof ZombieLocalVariableNode) {
-                ZombieLocalVariableNode zombie = (ZombieLocalVariableNode)frame[l];
+            LocalVariableNode local = frame[l];
+            if (local instanceof ZombieLocalVariableNode) {
+                ZombieLocalVariableNode zombie = (ZombieLocalVariableNode)local;
                 // preserve zombies where the frame node which culled them was immediately prior to
                 // the matched instruction, or *was itself* the matched instruction, the returned
                 // frame will contain the original node (the zombie ancestor)
-                frame[l] = (zombie.lifetime > 1) ? null : zombie.ancestor;
+                local = (zombie.lifetime > 1) ? null : zombie.ancestor;
             }
             
-            if ((frame[l] != null && frame[l].desc == null) || frame[l] instanceof SyntheticLocalVariableNode) {
-                frame[l] = null;
+            if ((local != null && local.desc == null) || local instanceof SyntheticLocalVariableNode) {
+                local = null;
             }
+            
+            resolved[l] = local;
         }
-
-        return frame;
     }
 
     /**
@@ -623,10 +715,28 @@ public final class Locals {
      *      variable at the specified location in the specified local slot
      */
     private static LocalVariableNode getLocalVariableAt(ClassNode classNode, MethodNode method, int pos, int var) {
+        return Locals.getLocalVariableAt(classNode, method, Locals.getLocalVariableTable(classNode, method), pos, var);
+    }
+
+    /**
+     * Attempts to locate the appropriate entry in the supplied local variable
+     * table for the specified local variable index at the location specified
+     * by pos.
+     * 
+     * @param classNode Containing class
+     * @param method Method
+     * @param localVariableTable Local variable table for the method
+     * @param pos The opcode index to get the local variable table at
+     * @param var Local variable index
+     * @return a LocalVariableNode containing information about the local
+     *      variable at the specified location in the specified local slot
+     */
+    private static LocalVariableNode getLocalVariableAt(ClassNode classNode, MethodNode method, List<LocalVariableNode> localVariableTable,
+            int pos, int var) {
         LocalVariableNode localVariableNode = null;
         LocalVariableNode fallbackNode = null;
 
-        for (LocalVariableNode local : Locals.getLocalVariableTable(classNode, method)) {
+        for (LocalVariableNode local : localVariableTable) {
             if (local.index != var) {
                 continue;
             }
@@ -684,9 +794,9 @@ public final class Locals {
             return localVars;
         }
 
-        localVars = Locals.generateLocalVariableTable(classNode, method);
+        localVars = Collections.<LocalVariableNode>unmodifiableList(Locals.generateLocalVariableTable(classNode, method));
         Locals.calculatedLocalVariables.put(methodId, localVars);
-        return Collections.<LocalVariableNode>unmodifiableList(localVars);
+        return localVars;
     }
 
     /**
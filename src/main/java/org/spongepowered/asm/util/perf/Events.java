@@ -0,0 +1,160 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util.perf;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+import org.spongepowered.asm.service.MixinService;
+import org.spongepowered.asm.util.perf.IEventSink.ITimedEvent;
+
+/**
+ * Entry point for timed pipeline events. If an {@link IEventSink} service is
+ * available, for example the JDK Flight Recorder sink on runtimes which
+ * support it, events are passed to it. Otherwise every <tt>begin</tt> method
+ * returns {@link #NONE} and events cost only the call.
+ */
+public final class Events {
+    
+    /**
+     * Event which is not recorded
+     */
+    public static final ITimedEvent NONE = new ITimedEvent() {
+        @Override
+        public void complete(int count, String outcome) {
+            // not recorded
+        }
+    };
+    
+    /**
+     * Active sink, null if no sink is available
+     */
+    private static final IEventSink sink = Events.findSink();
+    
+    private Events() {
+    }
+    
+    /**
+     * Get whether an event sink is available, callers can use this to avoid
+     * preparing event arguments which would not be used
+     * 
+     * @return true if events are being passed to a sink
+     */
+    public static boolean isActive() {
+        return Events.sink != null;
+    }
+    
+    /**
+     * Begin a class transformation event
+     * 
+     * @param className name of the class being transformed
+     * @return event in progress, or {@link #NONE} if there is no sink
+     * @see IEventSink#beginClassTransform
+     */
+    public static ITimedEvent beginClassTransform(String className) {
+        return Events.sink != null ? Events.sink.beginClassTransform(className) : Events.NONE;
+    }
+    
+    /**
+     * Begin a mixin preparation event
+     * 
+     * @param mixinClass fully qualified name of the mixin class
+     * @param config name of the config which declares the mixin
+     * @return event in progress, or {@link #NONE} if there is no sink
+     * @see IEventSink#beginMixinPrepare
+     */
+    public static ITimedEvent beginMixinPrepare(String mixinClass, String config) {
+        return Events.sink != null ? Events.sink.beginMixinPrepare(mixinClass, config) : Events.NONE;
+    }
+    
+    /**
+     * Begin an injection point search event
+     * 
+     * @param mixin name of the mixin which declares the injector
+     * @param handler name of the handler method
+     * @param injectionPoints injection points being searched for
+     * @param target target method being searched
+     * @return event in progress, or {@link #NONE} if there is no sink
+     * @see IEventSink#beginInjectorFind
+     */
+    public static ITimedEvent beginInjectorFind(String mixin, String handler, Object injectionPoints, Object target) {
+        return Events.sink != null ? Events.sink.beginInjectorFind(mixin, handler, injectionPoints, target) : Events.NONE;
+    }
+    
+    /**
+     * Begin an injection event
+     * 
+     * @param mixin name of the mixin which declares the injector
+     * @param handler name of the handler method
+     * @param injectionPoints injection points being injected at
+     * @param target target method being injected into
+     * @return event in progress, or {@link #NONE} if there is no sink
+     * @see IEventSink#beginInjectorInject
+     */
+    public static ITimedEvent beginInjectorInject(String mixin, String handler, Object injectionPoints, Object target) {
+        return Events.sink != null ? Events.sink.beginInjectorInject(mixin, handler, injectionPoints, target) : Events.NONE;
+    }
+    
+    /**
+     * Begin a class metadata load event
+     * 
+     * @param className name of the class whose metadata is being loaded
+     * @return event in progress, or {@link #NONE} if there is no sink
+     * @see IEventSink#beginClassInfoLoad
+     */
+    public static ITimedEvent beginClassInfoLoad(String className) {
+        return Events.sink != null ? Events.sink.beginClassInfoLoad(className) : Events.NONE;
+    }
+    
+    /**
+     * Begin a frame computation event
+     * 
+     * @param className name of the class being written
+     * @return event in progress, or {@link #NONE} if there is no sink
+     * @see IEventSink#beginFrameComputation
+     */
+    public static ITimedEvent beginFrameComputation(String className) {
+        return Events.sink != null ? Events.sink.beginFrameComputation(className) : Events.NONE;
+    }
+    
+    private static IEventSink findSink() {
+        try {
+            Iterator<IEventSink> sinks = ServiceLoader.<IEventSink>load(IEventSink.class, Events.class.getClassLoader()).iterator();
+            while (sinks.hasNext()) {
+                try {
+                    IEventSink sink = sinks.next();
+                    MixinService.getService().getLogger("mixin").debug("Pipeline events will be sent to {}", sink.getClass().getName());
+                    return sink;
+                } catch (Throwable th) {
+                    // Sinks which need a newer runtime fail to load, skip them
+                }
+            }
+        } catch (Throwable th) {
+            // no sinks
+        }
+        return null;
+    }
+
+}
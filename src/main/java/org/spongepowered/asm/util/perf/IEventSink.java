@@ -0,0 +1,127 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util.perf;
+
+/**
+ * Receives timed events from the mixin pipeline so that they can be passed to
+ * an external recorder such as JDK Flight Recorder. Implementations are found
+ * using the {@link java.util.ServiceLoader} mechanism and accessed via {@link
+ * Events}. Each <tt>begin</tt> method is called when the corresponding
+ * operation starts and the returned event is completed when it finishes.
+ * Events which are never completed, for example because the operation threw
+ * an exception, are discarded. Implementations should return {@link
+ * Events#NONE} from any <tt>begin</tt> method whose event is not being
+ * recorded, so that the pipeline incurs as little cost as possible.
+ */
+public interface IEventSink {
+    
+    /**
+     * An event which is in progress
+     */
+    public interface ITimedEvent {
+        
+        /**
+         * Complete and record this event. The meaning of the count and outcome
+         * depends on the type of event, see the corresponding <tt>begin</tt>
+         * method in {@link IEventSink}.
+         * 
+         * @param count count associated with the event
+         * @param outcome outcome of the operation, can be null
+         */
+        public abstract void complete(int count, String outcome);
+        
+    }
+    
+    /**
+     * Mixins and coprocessors are being applied to a class. The count is the
+     * number of mixins applied and the outcome describes what happened to the
+     * class, for example <tt>transformed</tt>, <tt>cached</tt> or <tt>failed
+     * </tt>.
+     * 
+     * @param className name of the class being transformed
+     * @return event in progress
+     */
+    public abstract ITimedEvent beginClassTransform(String className);
+    
+    /**
+     * A mixin is being prepared. The count is unused and the outcome is
+     * <tt>prepared</tt>, <tt>deferred</tt> if the mixin will be completed when
+     * it is first needed, <tt>initialised</tt> when a deferred mixin is
+     * completed, or <tt>failed</tt>.
+     * 
+     * @param mixinClass fully qualified name of the mixin class
+     * @param config name of the config which declares the mixin
+     * @return event in progress
+     */
+    public abstract ITimedEvent beginMixinPrepare(String mixinClass, String config);
+    
+    /**
+     * An injector is searching a target method for injection points. The count
+     * is the number of instructions matched and the outcome is unused.
+     * 
+     * @param mixin name of the mixin which declares the injector
+     * @param handler name of the handler method
+     * @param injectionPoints injection points being searched for, only
+     *      converted to a string if the event is recorded
+     * @param target target method being searched
+     * @return event in progress
+     */
+    public abstract ITimedEvent beginInjectorFind(String mixin, String handler, Object injectionPoints, Object target);
+    
+    /**
+     * An injector is injecting into a target method. The count is the number
+     * of instructions injected at and the outcome is unused.
+     * 
+     * @param mixin name of the mixin which declares the injector
+     * @param handler name of the handler method
+     * @param injectionPoints injection points being injected at, only
+     *      converted to a string if the event is recorded
+     * @param target target method being injected into
+     * @return event in progress
+     */
+    public abstract ITimedEvent beginInjectorInject(String mixin, String handler, Object injectionPoints, Object target);
+    
+    /**
+     * Class metadata is being loaded for {@link
+     * org.spongepowered.asm.mixin.transformer.ClassInfo#forName}. The count is
+     * unused and the outcome is <tt>loaded</tt>, <tt>indexed</tt> if the
+     * metadata came from the class index, or <tt>failed</tt>.
+     * 
+     * @param className name of the class whose metadata is being loaded
+     * @return event in progress
+     */
+    public abstract ITimedEvent beginClassInfoLoad(String className);
+    
+    /**
+     * A class is being written with stack map frames computed. The count is
+     * the number of methods whose frames were computed and the outcome is
+     * <tt>full</tt> or <tt>selective</tt>.
+     * 
+     * @param className name of the class being written
+     * @return event in progress
+     */
+    public abstract ITimedEvent beginFrameComputation(String className);
+
+}
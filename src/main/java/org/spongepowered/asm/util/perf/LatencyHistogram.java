@@ -0,0 +1,181 @@
+/*
+ * This file is part of Mixin, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.asm.util.perf;
+
+/**
+ * Histogram of latencies in nanoseconds. Values are counted in buckets which
+ * are exact below 16ns and otherwise split each power of two into 16 equal
+ * parts, so percentiles are reported to within about 6% of the true value
+ * using a fixed amount of memory. The maximum is recorded exactly.
+ */
+public final class LatencyHistogram {
+    
+    /**
+     * Number of bits of each value which select a sub-bucket
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+    
+    /**
+     * Number of sub-buckets in each power of two
+     */
+    private static final int SUB_BUCKETS = 1 << LatencyHistogram.SUB_BUCKET_BITS;
+    
+    /**
+     * Highest power of two with its own buckets, about 4.9 hours. Larger
+     * values are counted in the last bucket.
+     */
+    private static final int MAX_EXPONENT = 44;
+    
+    private static final int BUCKETS = LatencyHistogram.SUB_BUCKETS
+            + (LatencyHistogram.MAX_EXPONENT - LatencyHistogram.SUB_BUCKET_BITS + 1) * LatencyHistogram.SUB_BUCKETS;
+    
+    private final int[] counts = new int[LatencyHistogram.BUCKETS];
+    
+    private int count;
+    
+    private long total;
+    
+    private long max;
+    
+    /**
+     * Record a value
+     * 
+     * @param nanos latency in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        if (nanos < 0L) {
+            nanos = 0L;
+        }
+        this.counts[LatencyHistogram.indexOf(nanos)]++;
+        this.count++;
+        this.total += nanos;
+        this.max = Math.max(this.max, nanos);
+    }
+    
+    /**
+     * Add all values recorded by another histogram to this one
+     * 
+     * @param other histogram to add
+     */
+    public void add(LatencyHistogram other) {
+        if (other == this) {
+            return;
+        }
+        
+        int[] counts;
+        int count;
+        long total;
+        long max;
+        synchronized (other) {
+            counts = other.counts.clone();
+            count = other.count;
+            total = other.total;
+            max = other.max;
+        }
+        
+        synchronized (this) {
+            for (int i = 0; i < counts.length; i++) {
+                this.counts[i] += counts[i];
+            }
+            this.count += count;
+            this.total += total;
+            this.max = Math.max(this.max, max);
+        }
+    }
+    
+    /**
+     * Get the number of values recorded
+     */
+    public synchronized int getCount() {
+        return this.count;
+    }
+    
+    /**
+     * Get the sum of all values recorded, in nanoseconds
+     */
+    public synchronized long getTotal() {
+        return this.total;
+    }
+    
+    /**
+     * Get the largest value recorded, in nanoseconds
+     */
+    public synchronized long getMax() {
+        return this.max;
+    }
+    
+    /**
+     * Get the value below which the specified percentage of recorded values
+     * fall. The upper bound of the bucket containing the percentile is
+     * returned, limited to the largest value recorded.
+     * 
+     * @param percentile percentile to return, between 0 and 100
+     * @return percentile value in nanoseconds, or 0 if no values have been
+     *      recorded
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (this.count == 0) {
+            return 0L;
+        }
+        
+        long rank = Math.max(1L, (long)Math.ceil(Math.min(100.0D, Math.max(0.0D, percentile)) / 100.0D * this.count));
+        long seen = 0L;
+        for (int index = 0; index < this.counts.length; index++) {
+            seen += this.counts[index];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.upperBoundOf(index), this.max);
+            }
+        }
+        return this.max;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return String.format("count=%d p50=%dns p99=%dns max=%dns", this.count, this.getPercentile(50.0D), this.getPercentile(99.0D), this.max);
+    }
+
+    private static int indexOf(long nanos) {
+        if (nanos < LatencyHistogram.SUB_BUCKETS) {
+            return (int)nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > LatencyHistogram.MAX_EXPONENT) {
+            return LatencyHistogram.BUCKETS - 1;
+        }
+        int shift = exponent - LatencyHistogram.SUB_BUCKET_BITS;
+        int subBucket = (int)(nanos >>> shift) & (LatencyHistogram.SUB_BUCKETS - 1);
+        return LatencyHistogram.SUB_BUCKETS + shift * LatencyHistogram.SUB_BUCKETS + subBucket;
+    }
+    
+    private static long upperBoundOf(int index) {
+        if (index < LatencyHistogram.SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - LatencyHistogram.SUB_BUCKETS) / LatencyHistogram.SUB_BUCKETS;
+        int subBucket = (index - LatencyHistogram.SUB_BUCKETS) % LatencyHistogram.SUB_BUCKETS;
+        return ((long)(LatencyHistogram.SUB_BUCKETS + subBucket + 1) << shift) - 1L;
+    }
+
+}
@@ -24,6 +24,11 @@
  */
 package org.spongepowered.asm.util.perf;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.Method;
 import java.text.DecimalFormat;
 import java.util.*;
@@ -33,9 +38,14 @@ import org.spongepowered.asm.service.MixinService;
 import org.spongepowered.asm.util.PrettyPrinter;
 import org.spongepowered.asm.util.PrettyPrinter.Alignment;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
 
 /**
  * Performance profiler for Mixin.
@@ -43,6 +53,21 @@ import com.google.common.collect.ImmutableList.Builder;
 public final class Profiler {
     
     private static final String METRONOME_AGENT_CLASS = "org.spongepowered.metronome.Agent";
+    
+    /**
+     * Nanoseconds in a millisecond, sections record times in nanoseconds
+     */
+    static final long NANOS_PER_MS = 1000000L;
+    
+    /**
+     * Seconds in a nanosecond
+     */
+    static final double SECONDS_PER_NANO = 1.0E-9D;
+    
+    /**
+     * Number of mixins and configs to list in the summary
+     */
+    private static final int SUMMARY_ATTRIBUTIONS = 10;
 
     /**
      * Flag to indicate a root section. Root sections are always recorded at the
@@ -231,28 +256,50 @@ public final class Profiler {
          * Get the current time in milliseconds in the current phase 
          */
         public long getTime() {
-            return 0;
+            return this.getTimeNanos() / Profiler.NANOS_PER_MS;
+        }
+        
+        /**
+         * Get the current time in nanoseconds in the current phase 
+         */
+        public long getTimeNanos() {
+            return 0L;
+        }
+        
+        /**
+         * Get the current time in nanoseconds in all phases
+         */
+        public long getTotalTimeNanos() {
+            return 0L;
+        }
+        
+        /**
+         * Get the histogram of individual timings recorded by this section in
+         * all phases
+         */
+        public LatencyHistogram getHistogram() {
+            return new LatencyHistogram();
         }
 
         /**
          * Get the current time in milliseconds in all phases
          */
         public long getTotalTime() {
-            return 0;
+            return this.getTotalTimeNanos() / Profiler.NANOS_PER_MS;
         }
 
         /**
          * Get the current time in seconds in the current phase 
          */
         public double getSeconds() {
-            return 0.0D;
+            return this.getTimeNanos() * Profiler.SECONDS_PER_NANO;
         }
 
         /**
          * Get the current time in seconds in all phases
          */
         public double getTotalSeconds() {
-            return 0.0D;
+            return this.getTotalTimeNanos() * Profiler.SECONDS_PER_NANO;
         }
 
         /**
@@ -260,6 +307,18 @@ public final class Profiler {
          * milliseconds
          */
         public long[] getTimes() {
+            long[] times = this.getTimesNanos();
+            for (int i = 0; i < times.length; i++) {
+                times[i] /= Profiler.NANOS_PER_MS;
+            }
+            return times;
+        }
+        
+        /**
+         * Get all available time slices including the current one in
+         * nanoseconds
+         */
+        public long[] getTimesNanos() {
             return new long[1];
         }
         
@@ -302,8 +361,8 @@ public final class Profiler {
         }
         
         /**
-         * Internal accessor for markedTime from LiveSection, used by
-         * ResultSection 
+         * Internal accessor for markedTime (in nanoseconds) from LiveSection,
+         * used by ResultSection 
          */
         protected long getMarkedTime() {
             return 0L;
@@ -368,20 +427,32 @@ public final class Profiler {
         private int cursor = 0;
         
         /**
-         * Historical time slicess (times recorded by calls to {@link #mark}) 
+         * Historical time slicess (times recorded by calls to {@link #mark}),
+         * in nanoseconds
          */
         private long[] times = new long[0];
         
         /**
-         * Start time. Zero when not recording a time slice
+         * Start time in nanoseconds, only valid while running
          */
         private long start = 0L;
         
         /**
-         * Current accumulated time and time in all previous slices
+         * True while recording a time period
+         */
+        private boolean running;
+        
+        /**
+         * Current accumulated time and time in all previous slices, in
+         * nanoseconds
          */
         private long time, markedTime;
         
+        /**
+         * Individual time periods recorded in all slices
+         */
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        
         /**
          * Current period count and period count in all previous slices 
          */
@@ -399,16 +470,19 @@ public final class Profiler {
 
         @Override
         Section start() {
-            this.start = System.currentTimeMillis();
+            this.start = System.nanoTime();
+            this.running = true;
             return this;
         }
 
         @Override
         protected Section stop() {
-            if (this.start > 0L) {
-                this.time += System.currentTimeMillis() - this.start;
+            if (this.running) {
+                long elapsed = System.nanoTime() - this.start;
+                this.time += elapsed;
+                this.histogram.record(elapsed);
             }
-            this.start = 0L;
+            this.running = false;
             this.count++;
             return this;
         }
@@ -436,27 +510,22 @@ public final class Profiler {
         }
         
         @Override
-        public long getTime() {
+        public long getTimeNanos() {
             return this.time;
         }
         
         @Override
-        public long getTotalTime() {
+        public long getTotalTimeNanos() {
             return this.time + this.markedTime;
         }
         
         @Override
-        public double getSeconds() {
-            return this.time * 0.001D;
-        }
-        
-        @Override
-        public double getTotalSeconds() {
-            return (this.time + this.markedTime) * 0.001D;
+        public LatencyHistogram getHistogram() {
+            return this.histogram;
         }
         
         @Override
-        public long[] getTimes() {
+        public long[] getTimesNanos() {
             long[] times = new long[this.cursor + 1];
             System.arraycopy(this.times, 0, times, 0, Math.min(this.times.length, this.cursor));
             times[this.cursor] = this.time;
@@ -475,12 +544,12 @@ public final class Profiler {
         
         @Override
         public double getAverageTime() {
-            return this.count > 0 ? (double)(this.time) / this.count : 0.0D;
+            return this.count > 0 ? (double)(this.time) / this.count / Profiler.NANOS_PER_MS : 0.0D;
         }
         
         @Override
         public double getTotalAverageTime() {
-            return this.count > 0 ? (double)(this.time + this.markedTime) / (this.count + this.markedCount) : 0.0D;
+            return this.count > 0 ? (double)(this.time + this.markedTime) / (this.count + this.markedCount) / Profiler.NANOS_PER_MS : 0.0D;
         }
         
         @Override
@@ -580,43 +649,34 @@ public final class Profiler {
         }
         
         @Override
-        public long getTime() {
+        public long getTimeNanos() {
             long time = 0L;
             for (Section section : this.sections) {
-                time += section.getTime();
+                time += section.getTimeNanos();
             }
             return time;
         }
         
         @Override
-        public long getTotalTime() {
+        public long getTotalTimeNanos() {
             long totalTime = 0L;
             for (Section section : this.sections) {
-                totalTime += section.getTotalTime();
+                totalTime += section.getTotalTimeNanos();
             }
             return totalTime;
         }
         
         @Override
-        public double getSeconds() {
-            double seconds = 0.0D;
+        public LatencyHistogram getHistogram() {
+            LatencyHistogram histogram = new LatencyHistogram();
             for (Section section : this.sections) {
-                seconds += section.getSeconds();
+                histogram.add(section.getHistogram());
             }
-            return seconds;
+            return histogram;
         }
         
         @Override
-        public double getTotalSeconds() {
-            double totalSeconds = 0.0D;
-            for (Section section : this.sections) {
-                totalSeconds += section.getTotalSeconds();
-            }
-            return totalSeconds;
-        }
-        
-        @Override
-        public long[] getTimes() {
+        public long[] getTimesNanos() {
             int cursor = 0;
             for (Section section : this.sections) {
                 cursor = Math.max(cursor, section.getCursor());
@@ -624,7 +684,7 @@ public final class Profiler {
             
             long[] times = new long[cursor + 1];
             for (Section section : this.sections) {
-                long[] sectionTimes = section.getTimes();
+                long[] sectionTimes = section.getTimesNanos();
                 for (int i = 0; i < sectionTimes.length; i++) {
                     times[i] += sectionTimes[i];
                 }
@@ -672,13 +732,63 @@ public final class Profiler {
         @Override
         public double getAverageTime() {
             int count = this.getCount();
-            return count > 0 ? (double)(this.getTime()) / count : 0.0D;
+            return count > 0 ? (double)(this.getTimeNanos()) / count / Profiler.NANOS_PER_MS : 0.0D;
         }
         
         @Override
         public double getTotalAverageTime() {
-            int count = this.getCount();
-            return count > 0 ? (double)(this.getTime() + this.getMarkedTime()) / (count + this.getMarkedCount()) : 0.0D;
+            int count = this.getCount() + this.getMarkedCount();
+            return count > 0 ? (double)(this.getTimeNanos() + this.getMarkedTime()) / count / Profiler.NANOS_PER_MS : 0.0D;
+        }
+        
+    }
+    
+    /**
+     * Time attributed to a single mixin or config. Each recorded value is the
+     * time spent applying one mixin to one target class.
+     */
+    public static final class Attribution {
+        
+        /**
+         * Mixin or config name
+         */
+        private final String name;
+        
+        /**
+         * Name of the config which declares the mixin, null for configs
+         */
+        private final String parent;
+        
+        /**
+         * Application times
+         */
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        
+        Attribution(String name, String parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+        
+        /**
+         * Get the mixin or config name
+         */
+        public String getName() {
+            return this.name;
+        }
+        
+        /**
+         * Get the name of the config which declares the mixin, or null if this
+         * is a config
+         */
+        public String getParent() {
+            return this.parent;
+        }
+        
+        /**
+         * Get the application times
+         */
+        public LatencyHistogram getHistogram() {
+            return this.histogram;
         }
         
     }
@@ -703,15 +813,31 @@ public final class Profiler {
      */
     private final Map<String, Section> sections = new TreeMap<String, Profiler.Section>();
     
+    /**
+     * Time attributed to each mixin
+     */
+    private final Map<String, Attribution> mixinTimes = new TreeMap<String, Attribution>();
+    
+    /**
+     * Time attributed to each config
+     */
+    private final Map<String, Attribution> configTimes = new TreeMap<String, Attribution>();
+    
     /**
      * Profiler phases, recorded by calling {@link #mark}
      */
     private final List<String> phases = new ArrayList<String>();
     
     /**
-     * Profiler section stack
+     * Profiler section stack for each thread, sections are shared but nesting
+     * is a property of the thread which begins them
      */
-    private final Deque<Section> stack = new LinkedList<Section>();
+    private final ThreadLocal<Deque<Section>> stack = new ThreadLocal<Deque<Section>>() {
+        @Override
+        protected Deque<Section> initialValue() {
+            return new LinkedList<Section>();
+        }
+    };
     
     public Profiler(String id) {
         this.id = id;
@@ -732,6 +858,13 @@ public final class Profiler {
         Profiler.active = active;
     }
     
+    /**
+     * Get whether profilers are active
+     */
+    public static boolean isActive() {
+        return Profiler.active;
+    }
+    
     /**
      * Reset all profiler state
      */
@@ -741,9 +874,11 @@ public final class Profiler {
         }
         
         this.sections.clear();
+        this.mixinTimes.clear();
+        this.configTimes.clear();
         this.phases.clear();
         this.phases.add("Initial");
-        this.stack.clear();
+        this.stack.get().clear();
     }
 
     /**
@@ -772,7 +907,7 @@ public final class Profiler {
     }
     
     boolean isHead(Section section) {
-        return this.stack.peek() == section;
+        return this.stack.get().peek() == section;
     }
     
     /**
@@ -817,8 +952,9 @@ public final class Profiler {
         boolean root = (flags & Profiler.ROOT) != 0;
         boolean fine = (flags & Profiler.FINE) != 0;
         
+        Deque<Section> stack = this.stack.get();
         String path = name;
-        Section head = this.stack.peek();
+        Section head = stack.peek();
         if (head != null) {
             path = head.getName() + (root ? Section.SEPARATOR_ROOT : Section.SEPARATOR_CHILD) + path;
             if (head.isRoot() && !root) {
@@ -834,7 +970,7 @@ public final class Profiler {
         }
         
         section.setFine(fine).setRoot(root);
-        this.stack.push(section);
+        stack.push(section);
         
         return section.start();
     }
@@ -846,8 +982,9 @@ public final class Profiler {
      * @param section section ending
      */
     synchronized void end(Section section) {
+        Deque<Section> stack = this.stack.get();
         try {
-            for (Section head = this.stack.pop(), next = head; next != section; next = this.stack.pop()) {
+            for (Section head = stack.pop(), next = head; next != section; next = stack.pop()) {
                 if (next == null && Profiler.active) {
                     if (head == null) {
                         throw new IllegalStateException("Attempted to pop " + section + " but the stack is empty");
@@ -888,6 +1025,50 @@ public final class Profiler {
         }
     }
     
+    /**
+     * Attribute time spent applying a mixin to a target class to the mixin and
+     * to the config which declares it. Ignored when the profiler is not
+     * active.
+     * 
+     * @param mixin mixin class name
+     * @param config name of the config which declares the mixin
+     * @param nanos time spent applying the mixin to one target, in
+     *      nanoseconds
+     */
+    public void attribute(String mixin, String config, long nanos) {
+        if (!Profiler.active) {
+            return;
+        }
+        
+        Attribution mixinTime, configTime;
+        synchronized (this) {
+            mixinTime = this.mixinTimes.get(mixin);
+            if (mixinTime == null) {
+                this.mixinTimes.put(mixin, mixinTime = new Attribution(mixin, config));
+            }
+            configTime = this.configTimes.get(config);
+            if (configTime == null) {
+                this.configTimes.put(config, configTime = new Attribution(config, null));
+            }
+        }
+        mixinTime.histogram.record(nanos);
+        configTime.histogram.record(nanos);
+    }
+    
+    /**
+     * Get the time attributed to each mixin
+     */
+    public synchronized Collection<Attribution> getMixinTimes() {
+        return Collections.<Attribution>unmodifiableCollection(new ArrayList<Attribution>(this.mixinTimes.values()));
+    }
+    
+    /**
+     * Get the time attributed to each config
+     */
+    public synchronized Collection<Attribution> getConfigTimes() {
+        return Collections.<Attribution>unmodifiableCollection(new ArrayList<Attribution>(this.configTimes.values()));
+    }
+    
     /**
      * Get all recorded profiler sections
      */
@@ -910,13 +1091,13 @@ public final class Profiler {
     private static PrettyPrinter printer(boolean includeFine, boolean group, List<String> phases, Map<String, Section> sections) {
         PrettyPrinter printer = new PrettyPrinter();
         
-        // 4 extra columns, name, total, count, avg
-        int colCount = phases.size() + 4;
+        // 7 extra columns, name, total, count, avg, p50, p99, max
+        int colCount = phases.size() + 7;
         
         //                Which columns go where
-        //                Name  Total  Phases  Count         Average
-        //                |     |      |       |             |
-        int[] columns = { 0,    1,     2,      colCount - 2, colCount - 1 };
+        //                Name  Total  Phases  Count         Average       P50           P99           Max
+        //                |     |      |       |             |             |             |             |
+        int[] columns = { 0,    1,     2,      colCount - 5, colCount - 4, colCount - 3, colCount - 2, colCount - 1 };
         
         Object[] headers = new Object[(colCount) * 2];
         for (int col = 0, pos = 0; col < colCount; col++, pos = col * 2) {
@@ -930,6 +1111,12 @@ public final class Profiler {
                 headers[pos] = "    Count";
             } else if (col == columns[4]) {
                 headers[pos] = "Avg. ";
+            } else if (col == columns[5]) {
+                headers[pos] = "P50 ";
+            } else if (col == columns[6]) {
+                headers[pos] = "P99 ";
+            } else if (col == columns[7]) {
+                headers[pos] = "Max ";
             } else if (col - columns[2] < phases.size()) {
                 headers[pos] = phases.get(col - columns[2]);
             } else {
@@ -983,8 +1170,13 @@ public final class Profiler {
             }
         }
         
+        DecimalFormat msFormat = new DecimalFormat("   ###0.000 ms");
+        LatencyHistogram histogram = section.getHistogram();
         values[columns[3]] = section.getTotalCount();
-        values[columns[4]] = new DecimalFormat("   ###0.000 ms").format(section.getTotalAverageTime());
+        values[columns[4]] = msFormat.format(section.getTotalAverageTime());
+        values[columns[5]] = msFormat.format(histogram.getPercentile(50.0D) / (double)Profiler.NANOS_PER_MS);
+        values[columns[6]] = msFormat.format(histogram.getPercentile(99.0D) / (double)Profiler.NANOS_PER_MS);
+        values[columns[7]] = msFormat.format(histogram.getMax() / (double)Profiler.NANOS_PER_MS);
 
         for (int i = 0; i < values.length; i++) {
             if (values[i] == null) {
@@ -999,7 +1191,8 @@ public final class Profiler {
      * Print summary of this profiler's recorded performance to the console
      */
     public void printSummary() {
-        Profiler.printSummary(this.id, this.phases, this.sections);
+        Collection<Attribution> mixins = this.getMixinTimes(), configs = this.getConfigTimes();
+        Profiler.printSummary(this.id, this.phases, this.sections, mixins, configs);
     }
 
     /**
@@ -1007,42 +1200,208 @@ public final class Profiler {
      * console
      */
     public static void printAuditSummary() {
-        String id;
-        Set<String> allPhases; 
-        Map<String, Section> allSections;
-
-        // Collect sections from all profilers into ResultSections
-        synchronized (Profiler.profilers) {
-            id = Joiner.on(',').join(Profiler.profilers.values());
-            allPhases = new LinkedHashSet<String>();
-            allSections = new TreeMap<String, Section>() {
-
-                private static final long serialVersionUID = 1L;
-
-                @Override
-                public Section get(Object name) {
-                    Section section = super.get(name);
-                    if (section == null) {
-                        this.put(name.toString(), section = new ResultSection(name.toString()));
+        Audit audit = Audit.collect();
+        Profiler.printSummary(audit.id, audit.phases, audit.sections, audit.mixins.values(), audit.configs.values());
+    }
+    
+    /**
+     * Export summary of mixin performance from all active profilers to the
+     * specified directory in machine-readable form. Supported formats are
+     * <tt>json</tt>, which writes <tt>profile.json</tt>, and <tt>csv</tt>
+     * which writes <tt>profile.csv</tt>, multiple formats can be specified
+     * separated by commas.
+     * 
+     * @param dir directory to write to
+     * @param formats comma-separated list of formats to export
+     */
+    public static void exportAuditSummary(File dir, String formats) {
+        if (formats == null || formats.trim().isEmpty()) {
+            return;
+        }
+        
+        Audit audit = Audit.collect();
+        for (String format : formats.split(",")) {
+            format = format.trim().toLowerCase(Locale.ROOT);
+            if (format.isEmpty()) {
+                continue;
+            }
+            
+            try {
+                if ("json".equals(format)) {
+                    Profiler.write(new File(dir, "profile.json"), new GsonBuilder().setPrettyPrinting().create().toJson(audit.toJson()));
+                } else if ("csv".equals(format)) {
+                    Profiler.write(new File(dir, "profile.csv"), audit.toCsv());
+                } else {
+                    MixinService.getService().getLogger("mixin").warn("Unsupported profiler export format '{}'", format);
+                }
+            } catch (IOException ex) {
+                MixinService.getService().getLogger("mixin").error("Error exporting profiler data to {}", dir, ex);
+            }
+        }
+    }
+    
+    private static void write(File file, String contents) throws IOException {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create directory " + dir);
+        }
+        
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), Charsets.UTF_8);
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+    
+    /**
+     * Results collected from all profilers
+     */
+    static final class Audit {
+        
+        final String id;
+        
+        final List<String> phases;
+        
+        final Map<String, Section> sections;
+        
+        final Map<String, Attribution> mixins = new TreeMap<String, Attribution>();
+        
+        final Map<String, Attribution> configs = new TreeMap<String, Attribution>();
+        
+        private Audit(String id, List<String> phases, Map<String, Section> sections) {
+            this.id = id;
+            this.phases = phases;
+            this.sections = sections;
+        }
+        
+        static Audit collect() {
+            // Collect sections from all profilers into ResultSections
+            synchronized (Profiler.profilers) {
+                Set<String> allPhases = new LinkedHashSet<String>();
+                Map<String, Section> allSections = new TreeMap<String, Section>() {
+    
+                    private static final long serialVersionUID = 1L;
+    
+                    @Override
+                    public Section get(Object name) {
+                        Section section = super.get(name);
+                        if (section == null) {
+                            this.put(name.toString(), section = new ResultSection(name.toString()));
+                        }
+                        return section;
+                    }
+                };
+                
+                for (Profiler profiler : Profiler.profilers.values()) {
+                    for (String phase : profiler.phases) {
+                        allPhases.add(phase);
                     }
-                    return section;
                 }
-            };
-            for (Profiler profiler : Profiler.profilers.values()) {
-                for (String phase : profiler.phases) {
-                    allPhases.add(phase);
+                
+                Audit audit = new Audit(Joiner.on(',').join(Profiler.profilers.values()), new ArrayList<String>(allPhases), allSections);
+                for (Profiler profiler : Profiler.profilers.values()) {
+                    for (Entry<String, Section> section : profiler.sections.entrySet()) {
+                        ((ResultSection)allSections.get(section.getKey())).add(section.getValue());
+                    }
+                    Audit.merge(audit.mixins, profiler.getMixinTimes());
+                    Audit.merge(audit.configs, profiler.getConfigTimes());
                 }
-
-                for (Entry<String, Section> section : profiler.sections.entrySet()) {
-                    ((ResultSection)allSections.get(section.getKey())).add(section.getValue());
+                return audit;
+            }
+        }
+        
+        private static void merge(Map<String, Attribution> target, Collection<Attribution> source) {
+            for (Attribution attribution : source) {
+                Attribution merged = target.get(attribution.name);
+                if (merged == null) {
+                    target.put(attribution.name, merged = new Attribution(attribution.name, attribution.parent));
                 }
+                merged.histogram.add(attribution.histogram);
             }
         }
         
-        Profiler.printSummary(id, new ArrayList<String>(allPhases), allSections);
+        JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("id", this.id);
+            
+            JsonArray phases = new JsonArray();
+            for (String phase : this.phases) {
+                phases.add(new JsonPrimitive(phase));
+            }
+            json.add("phases", phases);
+            
+            JsonArray sections = new JsonArray();
+            for (Section section : this.sections.values()) {
+                LatencyHistogram histogram = section.getHistogram();
+                JsonObject entry = new JsonObject();
+                entry.addProperty("name", section.getName());
+                entry.addProperty("root", section.isRoot());
+                entry.addProperty("fine", section.isFine());
+                entry.addProperty("count", section.getTotalCount());
+                entry.addProperty("totalNanos", section.getTotalTimeNanos());
+                JsonArray phaseNanos = new JsonArray();
+                for (long nanos : section.getTimesNanos()) {
+                    phaseNanos.add(new JsonPrimitive(nanos));
+                }
+                entry.add("phaseNanos", phaseNanos);
+                entry.addProperty("p50Nanos", histogram.getPercentile(50.0));
+                entry.addProperty("p99Nanos", histogram.getPercentile(99.0));
+                entry.addProperty("maxNanos", histogram.getMax());
+                sections.add(entry);
+            }
+            json.add("sections", sections);
+            json.add("mixins", Audit.toJson(this.mixins.values()));
+            json.add("configs", Audit.toJson(this.configs.values()));
+            return json;
+        }
+        
+        private static JsonArray toJson(Collection<Attribution> attributions) {
+            JsonArray array = new JsonArray();
+            for (Attribution attribution : attributions) {
+                LatencyHistogram histogram = attribution.histogram;
+                JsonObject entry = new JsonObject();
+                entry.addProperty("name", attribution.name);
+                if (attribution.parent != null) {
+                    entry.addProperty("config", attribution.parent);
+                }
+                entry.addProperty("count", histogram.getCount());
+                entry.addProperty("totalNanos", histogram.getTotal());
+                entry.addProperty("p50Nanos", histogram.getPercentile(50.0));
+                entry.addProperty("p99Nanos", histogram.getPercentile(99.0));
+                entry.addProperty("maxNanos", histogram.getMax());
+                array.add(entry);
+            }
+            return array;
+        }
+        
+        String toCsv() {
+            StringBuilder csv = new StringBuilder("kind,name,parent,count,total_ns,mean_ns,p50_ns,p99_ns,max_ns\n");
+            for (Section section : this.sections.values()) {
+                Audit.appendCsv(csv, "section", section.getName(), null, section.getHistogram(), section.getTotalCount(),
+                        section.getTotalTimeNanos());
+            }
+            for (Attribution mixin : this.mixins.values()) {
+                Audit.appendCsv(csv, "mixin", mixin.name, mixin.parent, mixin.histogram, mixin.histogram.getCount(), mixin.histogram.getTotal());
+            }
+            for (Attribution config : this.configs.values()) {
+                Audit.appendCsv(csv, "config", config.name, null, config.histogram, config.histogram.getCount(), config.histogram.getTotal());
+            }
+            return csv.toString();
+        }
+        
+        private static void appendCsv(StringBuilder csv, String kind, String name, String parent, LatencyHistogram histogram, long count,
+                long total) {
+            csv.append(kind).append(',').append(name).append(',').append(parent != null ? parent : "").append(',')
+                .append(count).append(',').append(total).append(',').append(count > 0 ? total / count : 0L).append(',')
+                .append(histogram.getPercentile(50.0)).append(',').append(histogram.getPercentile(99.0)).append(',')
+                .append(histogram.getMax()).append('\n');
+        }
+        
     }
     
-    private static void printSummary(String id, List<String> phases, Map<String, Section> sections) {
+    private static void printSummary(String id, List<String> phases, Map<String, Section> sections, Collection<Attribution> mixins,
+            Collection<Attribution> configs) {
         
         DecimalFormat threedp = new DecimalFormat("(###0.000");
         DecimalFormat onedp = new DecimalFormat("(###0.0");
@@ -1102,6 +1461,9 @@ public final class Profiler {
         }
         printer.add();
         
+        Profiler.printAttributions(printer, "Slowest Mixins", mixins);
+        Profiler.printAttributions(printer, "Slowest Configs", configs);
+        
         try {
             Class<?> agent = MixinService.getService().getClassProvider().findAgentClass(Profiler.METRONOME_AGENT_CLASS, false);
             Method mdGetTimes = agent.getDeclaredMethod("getTimes");
@@ -1142,6 +1504,36 @@ public final class Profiler {
         printer.print();
     }
     
+    private static void printAttributions(PrettyPrinter printer, String title, Collection<Attribution> attributions) {
+        if (attributions.isEmpty()) {
+            return;
+        }
+        
+        List<Attribution> sorted = new ArrayList<Attribution>(attributions);
+        Collections.sort(sorted, new Comparator<Attribution>() {
+            @Override
+            public int compare(Attribution a, Attribution b) {
+                long ta = a.histogram.getTotal(), tb = b.histogram.getTotal();
+                return ta < tb ? 1 : ta > tb ? -1 : a.name.compareTo(b.name);
+            }
+        });
+        
+        printer.hr().add(title).hr().add();
+        int longest = 10;
+        for (Attribution attribution : sorted.subList(0, Math.min(sorted.size(), Profiler.SUMMARY_ATTRIBUTIONS))) {
+            longest = Math.max(longest, attribution.name.length());
+        }
+        
+        DecimalFormat msFormat = new DecimalFormat("###0.000");
+        for (Attribution attribution : sorted.subList(0, Math.min(sorted.size(), Profiler.SUMMARY_ATTRIBUTIONS))) {
+            LatencyHistogram histogram = attribution.histogram;
+            printer.add("%-" + longest + "s %10s ms %6d targets  P99 %8s ms", attribution.name,
+                    msFormat.format((double)histogram.getTotal() / Profiler.NANOS_PER_MS), histogram.getCount(),
+                    msFormat.format((double)histogram.getPercentile(99.0) / Profiler.NANOS_PER_MS));
+        }
+        printer.add();
+    }
+    
     /**
      * Get the specified performance profiler
      * 
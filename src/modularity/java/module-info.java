@@ -65,6 +65,8 @@ module org.spongepowered.mixin {
 
     requires static jdk.unsupported;
 
+    requires static jdk.jfr;
+
     //
     // Exports
     //
@@ -141,6 +143,10 @@ module org.spongepowered.mixin {
     provides cpw.mods.modlauncher.serviceapi.ILaunchPluginService
         with org.spongepowered.asm.launch.MixinLaunchPlugin;
     
+    uses org.spongepowered.asm.util.perf.IEventSink;
+    provides org.spongepowered.asm.util.perf.IEventSink
+        with org.spongepowered.asm.util.perf.jfr.JfrEventSink;
+    
     uses javax.annotation.processing.Processor;
     provides javax.annotation.processing.Processor
         with org.spongepowered.tools.obfuscation.MixinObfuscationProcessorInjection,